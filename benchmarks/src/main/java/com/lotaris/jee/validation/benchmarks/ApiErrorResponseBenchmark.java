@@ -0,0 +1,132 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.benchmarks.Fixtures.Payload;
+import com.lotaris.jee.validation.ImmutableJsonPointer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Collecting errors in an {@link ApiErrorResponse} and looking them up by location and code, as
+ * done by validators which skip validations on previous errors.
+ *
+ * <p>With a clean payload, lookups are performed on an empty response. Otherwise, the response
+ * contains one error for each of the <tt>size</tt> elements of a list.</p>
+ *
+ * <p>The response is also serialized to JSON, as sent to the client.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiErrorResponseBenchmark {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Param({"CLEAN", "ERRORS"})
+	private Payload payload;
+	@Param({"100", "10000"})
+	private int size;
+
+	private ApiError[] errors;
+	private String[] locations;
+	private ImmutableJsonPointer[] pointers;
+	private ApiErrorResponse response;
+
+	@Setup
+	public void setUp() {
+		errors = new ApiError[size];
+		locations = new String[size];
+		pointers = new ImmutableJsonPointer[size];
+		for (int i = 0; i < size; i++) {
+			locations[i] = "/orders/" + i + "/items/" + (i % 10);
+			pointers[i] = ImmutableJsonPointer.parse(locations[i]);
+			errors[i] = new ApiError(Fixtures.INVALID_VALUE, null, locations[i] + "/quantity", "Quantity must be positive, got %d.", -i);
+		}
+
+		response = new ApiErrorResponse(422);
+		if (!payload.isValid()) {
+			for (ApiError error : errors) {
+				response.addError(error);
+			}
+		}
+	}
+
+	@Benchmark
+	public ApiErrorResponse addErrors() {
+		final ApiErrorResponse newResponse = new ApiErrorResponse(422);
+		if (!payload.isValid()) {
+			for (ApiError error : errors) {
+				newResponse.addError(error);
+			}
+		}
+		return newResponse;
+	}
+
+	@Benchmark
+	public void hasErrorsByString(Blackhole blackhole) {
+		for (String location : locations) {
+			blackhole.consume(response.hasErrors(location));
+		}
+		blackhole.consume(response.hasErrors("/customer"));
+	}
+
+	@Benchmark
+	public void hasErrorsByPointer(Blackhole blackhole) {
+		for (ImmutableJsonPointer pointer : pointers) {
+			blackhole.consume(response.hasErrors(pointer));
+		}
+	}
+
+	@Benchmark
+	public boolean hasErrorsByCode() {
+		return response.hasErrors(Fixtures.INVALID_VALUE) || response.hasErrors(Fixtures.MISSING_VALUE);
+	}
+
+	@Benchmark
+	public void serialize(Blackhole blackhole) throws IOException {
+		MAPPER.writeValue(new BlackholeOutputStream(blackhole), response);
+	}
+
+	/**
+	 * Output stream which discards bytes into a blackhole.
+	 */
+	private static class BlackholeOutputStream extends OutputStream {
+
+		private final Blackhole blackhole;
+
+		public BlackholeOutputStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			blackhole.consume(b);
+			blackhole.consume(len);
+		}
+	}
+}
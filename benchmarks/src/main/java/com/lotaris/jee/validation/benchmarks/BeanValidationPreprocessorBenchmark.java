@@ -0,0 +1,55 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.benchmarks.Fixtures.OrderTO;
+import com.lotaris.jee.validation.benchmarks.Fixtures.Payload;
+import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
+import com.lotaris.jee.validation.preprocessing.BeanValidationPreprocessor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Running bean validations on an order and its items with the {@link BeanValidationPreprocessor}
+ * backed by Hibernate Validator, and converting the constraint violations to API errors.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanValidationPreprocessorBenchmark {
+
+	@Param({"CLEAN", "ERRORS"})
+	private Payload payload;
+	@Param({"10", "1000"})
+	private int size;
+
+	private BeanValidationPreprocessor preprocessor;
+	private OrderTO order;
+
+	@Setup
+	public void setUp() {
+		preprocessor = Fixtures.beanValidationPreprocessor();
+		order = Fixtures.order(size, payload);
+	}
+
+	@Benchmark
+	public ApiErrorResponse process() {
+		final ApiPreprocessingContext context = new ApiPreprocessingContext(preprocessor);
+		preprocessor.process(order, context);
+		return context.getApiErrorResponse();
+	}
+}
@@ -0,0 +1,297 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.AbstractValidator;
+import com.lotaris.jee.validation.IConstraintConverter;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IErrorLocationType;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.BeanValidationPreprocessor;
+import com.lotaris.jee.validation.preprocessing.DefaultPreprocessingChain;
+import com.lotaris.jee.validation.preprocessing.ModifiersPreprocessor;
+import com.lotaris.jee.validation.preprocessing.ValidationPreprocessor;
+import com.lotaris.jee.validation.preprocessing.modifier.Trim;
+import com.lotaris.jee.validation.preprocessing.modifier.TrimModifier;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Objects shared by the benchmarks: transfer objects, validators and preprocessors wired by hand
+ * (they are normally injected by the container).
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public final class Fixtures {
+
+	/**
+	 * The kind of payload a benchmark processes.
+	 */
+	public static enum Payload {
+
+		/**
+		 * Every property is valid; no error is produced.
+		 */
+		CLEAN,
+		/**
+		 * Every element is invalid; each one produces errors.
+		 */
+		ERRORS;
+
+		public boolean isValid() {
+			return this == CLEAN;
+		}
+	}
+
+	public static final IErrorCode INVALID_VALUE = new Code(10000);
+	public static final IErrorCode MISSING_VALUE = new Code(10001);
+
+	private static final ValidatorFactory VALIDATOR_FACTORY = Validation.buildDefaultValidatorFactory();
+
+	/**
+	 * Returns a constraint converter which maps <tt>@NotNull</tt> to {@link #MISSING_VALUE} and
+	 * every other constraint to {@link #INVALID_VALUE}.
+	 *
+	 * @return a constraint converter
+	 */
+	public static IConstraintConverter constraintConverter() {
+		return new IConstraintConverter() {
+
+			@Override
+			public IErrorCode getErrorCode(Class<? extends Annotation> annotationType) {
+				return annotationType == NotNull.class ? MISSING_VALUE : INVALID_VALUE;
+			}
+
+			@Override
+			public IErrorLocationType getErrorLocationType(Class<? extends Annotation> annotationType) {
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Returns a validator which adds an error to items with a negative quantity.
+	 *
+	 * @return an item validator
+	 */
+	public static IValidator<ItemTO> itemValidator() {
+		return new AbstractValidator<ItemTO>() {
+
+			@Override
+			protected void validate(ItemTO object, IValidationContext context) {
+				if (object.getQuantity() < 0) {
+					context.addError("/quantity", null, INVALID_VALUE, "Quantity must be positive, got %d.", object.getQuantity());
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns a validator which validates each item of an order with {@link #itemValidator()}.
+	 *
+	 * @return an order validator
+	 */
+	public static IValidator<OrderTO> orderValidator() {
+		final IValidator<ItemTO> itemValidator = itemValidator();
+		return new AbstractValidator<OrderTO>() {
+
+			@Override
+			protected void validate(OrderTO object, IValidationContext context) {
+				context.validateObjects(object.getItems(), "/items", itemValidator);
+			}
+		};
+	}
+
+	/**
+	 * Builds a list of items.
+	 *
+	 * @param size the number of items
+	 * @param payload whether the items are valid
+	 * @return a list of items
+	 */
+	public static List<ItemTO> items(int size, Payload payload) {
+		final List<ItemTO> items = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			items.add(payload.isValid() ? new ItemTO("Item " + i, i) : new ItemTO(null, -i - 1));
+		}
+		return items;
+	}
+
+	/**
+	 * Builds an order with the specified number of items. Names are padded with whitespace so
+	 * that they are modified by {@link Trim}.
+	 *
+	 * @param size the number of items
+	 * @param payload whether the order and its items are valid
+	 * @return an order
+	 */
+	public static OrderTO order(int size, Payload payload) {
+		final OrderTO order = new OrderTO();
+		order.setReference(payload.isValid() ? "  ORDER   0001  " : null);
+		order.setCustomer("  John   Doe  ");
+		order.setComment("  Please    deliver \t before noon.  ");
+		order.setItems(items(size, payload));
+		return order;
+	}
+
+	public static BeanValidationPreprocessor beanValidationPreprocessor() {
+		final BeanValidationPreprocessor preprocessor = new BeanValidationPreprocessor();
+		inject(preprocessor, "validatorFactory", VALIDATOR_FACTORY);
+		preprocessor.setConstraintConverter(constraintConverter());
+		return preprocessor;
+	}
+
+	public static ModifiersPreprocessor modifiersPreprocessor() {
+		final ModifiersPreprocessor preprocessor = new ModifiersPreprocessor();
+		inject(preprocessor, "trimProcessor", new TrimModifier());
+		postConstruct(preprocessor, ModifiersPreprocessor.class, "configure");
+		return preprocessor;
+	}
+
+	public static DefaultPreprocessingChain defaultPreprocessingChain() {
+		final DefaultPreprocessingChain chain = new DefaultPreprocessingChain();
+		inject(chain, "modifiersProcessor", modifiersPreprocessor());
+		inject(chain, "beanValidationProcessor", beanValidationPreprocessor());
+		inject(chain, "validationProcessor", new ValidationPreprocessor());
+		postConstruct(chain, DefaultPreprocessingChain.class, "buildChain");
+		return chain;
+	}
+
+	private static void inject(Object target, String fieldName, Object value) {
+		try {
+			final Field field = findField(target.getClass(), fieldName);
+			field.setAccessible(true);
+			field.set(target, value);
+		} catch (IllegalAccessException | NoSuchFieldException ex) {
+			throw new IllegalStateException("Could not inject field " + fieldName + " of " + target.getClass(), ex);
+		}
+	}
+
+	private static Field findField(Class<?> type, String fieldName) throws NoSuchFieldException {
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			try {
+				return current.getDeclaredField(fieldName);
+			} catch (NoSuchFieldException ex) {
+				// look in the superclass
+			}
+		}
+		throw new NoSuchFieldException(fieldName);
+	}
+
+	/**
+	 * Calls a protected <tt>@PostConstruct</tt> method. Preprocessors cannot be subclassed for
+	 * this purpose as they scan their own class for injected fields.
+	 */
+	private static void postConstruct(Object target, Class<?> declaringClass, String methodName) {
+		try {
+			final Method method = declaringClass.getDeclaredMethod(methodName);
+			method.setAccessible(true);
+			method.invoke(target);
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Could not call " + methodName + " on " + target.getClass(), ex);
+		}
+	}
+
+	public static class OrderTO {
+
+		@NotNull
+		@Size(min = 1, max = 50)
+		@Trim
+		private String reference;
+		@Trim
+		private String customer;
+		@Trim(collapseWhitespace = false)
+		private String comment;
+		@Valid
+		private List<ItemTO> items;
+
+		//<editor-fold defaultstate="collapsed" desc="Getters & Setters">
+		public String getReference() {
+			return reference;
+		}
+
+		public void setReference(String reference) {
+			this.reference = reference;
+		}
+
+		public String getCustomer() {
+			return customer;
+		}
+
+		public void setCustomer(String customer) {
+			this.customer = customer;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+
+		public void setComment(String comment) {
+			this.comment = comment;
+		}
+
+		public List<ItemTO> getItems() {
+			return items;
+		}
+
+		public void setItems(List<ItemTO> items) {
+			this.items = items;
+		}
+		//</editor-fold>
+	}
+
+	public static class ItemTO {
+
+		@NotNull
+		@Size(max = 255)
+		@Trim
+		private String name;
+		@Min(0)
+		private int quantity;
+
+		public ItemTO(String name, int quantity) {
+			this.name = name;
+			this.quantity = quantity;
+		}
+
+		//<editor-fold defaultstate="collapsed" desc="Getters & Setters">
+		public String getName() {
+			return name;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+		//</editor-fold>
+	}
+
+	private static class Code implements IErrorCode {
+
+		private final int code;
+
+		public Code(int code) {
+			this.code = code;
+		}
+
+		@Override
+		public int getCode() {
+			return code;
+		}
+
+		@Override
+		public int getDefaultHttpStatusCode() {
+			return 422;
+		}
+	}
+
+	private Fixtures() {
+	}
+}
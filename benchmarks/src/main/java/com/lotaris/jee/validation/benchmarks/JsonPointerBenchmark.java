@@ -0,0 +1,98 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ImmutableJsonPointer;
+import com.lotaris.jee.validation.JsonPointer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building, rendering and parsing JSON pointers such as <tt>/orders/12/items/3/name</tt>, as done
+ * for every validated object and every error.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPointerBenchmark {
+
+	/**
+	 * The number of fragments of the pointer.
+	 */
+	@Param({"2", "8"})
+	private int depth;
+
+	private String[] fragments;
+	private String pointer;
+	private String escapedPointer;
+	private JsonPointer mutablePointer;
+
+	@Setup
+	public void setUp() {
+		fragments = new String[depth];
+		final StringBuilder builder = new StringBuilder();
+		final StringBuilder escapedBuilder = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			fragments[i] = i % 2 == 0 ? "property" + i : String.valueOf(i);
+			builder.append('/').append(fragments[i]);
+			escapedBuilder.append('/').append(fragments[i]).append("~1~0");
+		}
+		pointer = builder.toString();
+		escapedPointer = escapedBuilder.toString();
+		mutablePointer = new JsonPointer();
+	}
+
+	@Benchmark
+	public String buildMutablePointer() {
+		mutablePointer.root();
+		for (String fragment : fragments) {
+			mutablePointer.path(fragment);
+		}
+		return mutablePointer.toString();
+	}
+
+	@Benchmark
+	public String pushAndPopMutablePointer() {
+		mutablePointer.root();
+		for (String fragment : fragments) {
+			mutablePointer.path(fragment);
+		}
+		final String result = mutablePointer.path("name").toString();
+		mutablePointer.pop();
+		return result;
+	}
+
+	@Benchmark
+	public int addToMutablePointer() {
+		mutablePointer.root();
+		return mutablePointer.add(pointer);
+	}
+
+	@Benchmark
+	public ImmutableJsonPointer parseImmutablePointer() {
+		return ImmutableJsonPointer.parse(pointer);
+	}
+
+	@Benchmark
+	public ImmutableJsonPointer parseEscapedImmutablePointer() {
+		return ImmutableJsonPointer.parse(escapedPointer);
+	}
+
+	@Benchmark
+	public ImmutableJsonPointer resolveImmutablePointer() {
+		return ImmutableJsonPointer.root().resolve(pointer);
+	}
+}
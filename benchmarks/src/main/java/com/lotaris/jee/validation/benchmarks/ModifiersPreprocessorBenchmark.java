@@ -0,0 +1,63 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.benchmarks.Fixtures.OrderTO;
+import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
+import com.lotaris.jee.validation.preprocessing.ModifiersPreprocessor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Applying <tt>@Trim</tt> modifiers to the properties of an object with the
+ * {@link ModifiersPreprocessor}. Modifiers produce no errors; instead, the properties are either
+ * already trimmed or padded with whitespace.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModifiersPreprocessorBenchmark {
+
+	@Param({"false", "true"})
+	private boolean padded;
+
+	private ModifiersPreprocessor preprocessor;
+	private String reference;
+	private String customer;
+	private String comment;
+	private OrderTO order;
+
+	@Setup
+	public void setUp() {
+		preprocessor = Fixtures.modifiersPreprocessor();
+		reference = padded ? "  ORDER   0001  " : "ORDER 0001";
+		customer = padded ? "  John   Doe  " : "John Doe";
+		comment = padded ? "  Please    deliver \t before noon.  " : "Please deliver before noon.";
+		order = new OrderTO();
+	}
+
+	@Benchmark
+	public OrderTO process() {
+
+		// restore the original values as they are modified in place
+		order.setReference(reference);
+		order.setCustomer(customer);
+		order.setComment(comment);
+
+		preprocessor.process(order, new ApiPreprocessingContext(preprocessor));
+		return order;
+	}
+}
@@ -0,0 +1,63 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.benchmarks.Fixtures.OrderTO;
+import com.lotaris.jee.validation.benchmarks.Fixtures.Payload;
+import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
+import com.lotaris.jee.validation.preprocessing.DefaultPreprocessingChain;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Running the full {@link DefaultPreprocessingChain} (modifiers, bean validations and API
+ * validators) on an order, the way a REST resource processes a request body. With
+ * <tt>stopOnErrors</tt>, validators are skipped once bean validations have produced errors.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreprocessingChainBenchmark {
+
+	@Param({"CLEAN", "ERRORS"})
+	private Payload payload;
+	@Param({"10", "1000"})
+	private int size;
+
+	private DefaultPreprocessingChain chain;
+	private IValidator<OrderTO> validator;
+	private OrderTO order;
+
+	@Setup
+	public void setUp() {
+		chain = Fixtures.defaultPreprocessingChain();
+		validator = Fixtures.orderValidator();
+		order = Fixtures.order(size, payload);
+	}
+
+	@Benchmark
+	public ApiErrorResponse process() throws ApiErrorsException {
+		return new ApiPreprocessingContext(chain).failOnErrors(false).validateWith(validator).process(order).getApiErrorResponse();
+	}
+
+	@Benchmark
+	public ApiErrorResponse processStoppingOnErrors() throws ApiErrorsException {
+		return new ApiPreprocessingContext(chain).failOnErrors(false).stopOnErrors().validateWith(validator).process(order).getApiErrorResponse();
+	}
+}
@@ -0,0 +1,70 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.benchmarks.Fixtures.OrderTO;
+import com.lotaris.jee.validation.benchmarks.Fixtures.Payload;
+import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
+import com.lotaris.jee.validation.preprocessing.PreprocessingChain;
+import com.lotaris.jee.validation.preprocessing.ValidationPreprocessor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocations of the validation layer when processing a valid request: modifiers and API
+ * validators are run on a clean order, either with a new {@link ApiPreprocessingContext} for each
+ * request or with a context that is reset and reused. Bean validations are left out since the
+ * validation provider allocates on its own.
+ *
+ * <p>Run with the GC profiler and compare <tt>gc.alloc.rate.norm</tt> (bytes per request):</p>
+ *
+ * <p><pre>
+ *	java -jar target/benchmarks.jar ValidRequestAllocation -prof gc
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidRequestAllocationBenchmark {
+
+	@Param({"10", "100"})
+	private int size;
+
+	private PreprocessingChain chain;
+	private IValidator<OrderTO> validator;
+	private OrderTO order;
+	private ApiPreprocessingContext reusedContext;
+
+	@Setup
+	public void setUp() {
+		chain = new PreprocessingChain().add(Fixtures.modifiersPreprocessor()).add(new ValidationPreprocessor());
+		validator = Fixtures.orderValidator();
+		order = Fixtures.order(size, Payload.CLEAN);
+		reusedContext = new ApiPreprocessingContext(chain);
+	}
+
+	@Benchmark
+	public boolean newContext() throws ApiErrorsException {
+		return new ApiPreprocessingContext(chain).validateWith(validator).process(order).isSuccessful();
+	}
+
+	@Benchmark
+	public boolean reusedContext() throws ApiErrorsException {
+		return reusedContext.reset().validateWith(validator).process(order).isSuccessful();
+	}
+}
@@ -0,0 +1,77 @@
+package com.lotaris.jee.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.JsonValidationContext;
+import com.lotaris.jee.validation.benchmarks.Fixtures.ItemTO;
+import com.lotaris.jee.validation.benchmarks.Fixtures.Payload;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validating each element of a large list with
+ * {@link JsonValidationContext#validateObjects(java.util.List, java.lang.String, com.lotaris.jee.validation.IValidator)},
+ * sequentially or in parallel.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateObjectsBenchmark {
+
+	@Param({"CLEAN", "ERRORS"})
+	private Payload payload;
+	@Param({"1000", "100000"})
+	private int size;
+	@Param({"false", "true"})
+	private boolean parallel;
+
+	private List<ItemTO> items;
+	private IValidator<ItemTO> validator;
+	private ExecutorService executor;
+
+	@Setup
+	public void setUp() {
+		items = Fixtures.items(size, payload);
+		validator = Fixtures.itemValidator();
+		if (parallel) {
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Benchmark
+	public ApiErrorResponse validateObjects() {
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext context = new JsonValidationContext(response);
+		if (parallel) {
+			context.validateListsInParallel(executor);
+		}
+		context.validateObjects(items, "/items", validator);
+		return response;
+	}
+}
@@ -152,20 +152,20 @@ public abstract class AbstractConstraintValidator<A extends Annotation, T> imple
 		@Override
 		public IConstraintValidationContext addError(String location, String message, Object... messageArgs) {
 			location = validateLocation(location);
-			addErrors().buildConstraintViolationWithTemplate(String.format(message, messageArgs)).addPropertyNode(location).addConstraintViolation();
+			addErrors().buildConstraintViolationWithTemplate(ApiError.formatMessage(message, messageArgs)).addPropertyNode(location).addConstraintViolation();
 			return this;
 		}
 		
 		@Override
 		public IConstraintValidationContext addArrayError(String location, int index, String message, Object... messageArgs) {
 			location = validateLocation(location);
-			addErrors().buildConstraintViolationWithTemplate(String.format(message, messageArgs)).addPropertyNode(location).addPropertyNode(String.valueOf(index)).addConstraintViolation();
+			addErrors().buildConstraintViolationWithTemplate(ApiError.formatMessage(message, messageArgs)).addPropertyNode(location).addPropertyNode(String.valueOf(index)).addConstraintViolation();
 			return this;
 		}
 
 		@Override
 		public IConstraintValidationContext addErrorAtCurrentLocation(String message, Object... messageArgs) {
-			addErrors().buildConstraintViolationWithTemplate(String.format(message, messageArgs)).addConstraintViolation();
+			addErrors().buildConstraintViolationWithTemplate(ApiError.formatMessage(message, messageArgs)).addConstraintViolation();
 			return this;
 		}
 		
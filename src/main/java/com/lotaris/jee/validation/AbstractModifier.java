@@ -15,6 +15,10 @@ import java.lang.annotation.Annotation;
  *	}
  * </p></pre>
  *
+ * <p>The {@link com.lotaris.jee.validation.preprocessing.ModifiersPreprocessor} passes a cached {@link FieldAccessor} to modifiers
+ * extending this class (see {@link #process(java.lang.Object, com.lotaris.jee.validation.FieldAccessor, java.lang.annotation.Annotation)});
+ * override that method to read and write the field without looking up its accessor.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public abstract class AbstractModifier<T extends Annotation> implements IModifier<T> {
@@ -29,4 +33,17 @@ public abstract class AbstractModifier<T extends Annotation> implements IModifie
 	public Class<? extends Annotation> getAnnotationType() {
 		return annotationType;
 	}
+
+	/**
+	 * Modifies the value of the field of the specified accessor. By default, this calls
+	 * {@link #process(java.lang.Object, java.lang.reflect.Field, java.lang.annotation.Annotation)}
+	 * with the field of the accessor.
+	 *
+	 * @param object the object
+	 * @param accessor the accessor of the field on which the modification must be applied
+	 * @param annotation the annotation that was on the field
+	 */
+	public void process(Object object, FieldAccessor accessor, T annotation) {
+		process(object, accessor.getField(), annotation);
+	}
 }
@@ -1,7 +1,10 @@
 package com.lotaris.jee.validation;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@link IPatchObject} implementation. Setters in subclasses should call the
@@ -43,14 +46,86 @@ import java.util.Set;
  *	assertFalse(person.isPropertySet(PersonTO.LAST_NAME));    // last name was not set
  * </pre></p>
  *
+ * <p>Each property name is assigned an index the first time it is marked as set (or when its
+ * index is requested with {@link #getPropertyIndex(java.lang.Class, java.lang.String)}). Indexes
+ * are shared by a whole class hierarchy (all subclasses of the same direct subclass of
+ * <tt>AbstractPatchTransferObject</tt>), so an index obtained for a superclass is also valid for
+ * its subclasses. Set properties are tracked as a bit mask, so a patch object does not allocate
+ * anything for hierarchies with up to 64 properties. Frequently used setters can use indexes
+ * directly:</p>
+ *
+ * <p><pre>
+ *	private static final int FIRST_NAME_INDEX = getPropertyIndex(PersonTO.class, FIRST_NAME);
+ *
+ *	public void setFirstName(String firstName) {
+ *		this.firstName = markPropertyAsSet(FIRST_NAME_INDEX, firstName);
+ *	}
+ * </pre></p>
+ *
+ * <p>At most {@link #MAX_INDEXED_PROPERTIES} names are indexed per hierarchy by
+ * {@link #markPropertyAsSet(java.lang.String, java.lang.Object)}, so that arbitrary names (e.g.
+ * coming from a request) cannot grow the indexes for good. Other names are tracked by each patch
+ * object in a set.</p>
+ *
  * @author Simon Oulevay <simon.oulevay@lotaris.com>
  */
 public abstract class AbstractPatchTransferObject implements IPatchObject {
 
-	private Set<String> setProperties;
+	/**
+	 * The maximum number of property names indexed per class hierarchy when properties are marked
+	 * as set by name. Indexes requested with
+	 * {@link #getPropertyIndex(java.lang.Class, java.lang.String)} are always assigned.
+	 */
+	public static final int MAX_INDEXED_PROPERTIES = 512;
+
+	/**
+	 * The property indexes of each patch object class. Subclasses share the indexes of the direct
+	 * subclass of <tt>AbstractPatchTransferObject</tt> they extend.
+	 */
+	private static final ClassValue<PropertyIndex> PROPERTY_INDEXES = new ClassValue<PropertyIndex>() {
+		@Override
+		protected PropertyIndex computeValue(Class<?> type) {
+			final Class<?> superclass = type.getSuperclass();
+			if (superclass != null && superclass != AbstractPatchTransferObject.class && AbstractPatchTransferObject.class.isAssignableFrom(superclass)) {
+				return PROPERTY_INDEXES.get(superclass);
+			}
+			return new PropertyIndex();
+		}
+	};
+
+	/**
+	 * Returns the index of the specified property in patch objects of the specified class. The
+	 * index is assigned when first requested and never changes.
+	 *
+	 * @param type the class of the patch objects
+	 * @param property the name of the property
+	 * @return the index of the property
+	 * @throws IllegalArgumentException if the class or property is null
+	 */
+	public static int getPropertyIndex(Class<? extends AbstractPatchTransferObject> type, String property) {
+		if (type == null) {
+			throw new IllegalArgumentException("Patch object class cannot be null");
+		}
+		return PROPERTY_INDEXES.get(type).register(property, Integer.MAX_VALUE);
+	}
+
+	private final PropertyIndex propertyIndex;
+	/**
+	 * The set properties with an index lower than 64.
+	 */
+	private long setProperties;
+	/**
+	 * The set properties with an index of 64 or more (null until one is set).
+	 */
+	private BitSet moreSetProperties;
+	/**
+	 * The set properties which have no index because too many names were indexed (null until one
+	 * is set).
+	 */
+	private Set<String> unindexedSetProperties;
 
 	public AbstractPatchTransferObject() {
-		setProperties = new HashSet<>();
+		propertyIndex = PROPERTY_INDEXES.get(getClass());
 	}
 
 	/**
@@ -67,14 +142,112 @@ public abstract class AbstractPatchTransferObject implements IPatchObject {
 	 * @param property the property to mark as set
 	 * @param value the value to return
 	 * @return the value
+	 * @throws IllegalArgumentException if the property is null
 	 */
 	public <T> T markPropertyAsSet(String property, T value) {
-		setProperties.add(property);
+
+		final int index = propertyIndex.register(property, MAX_INDEXED_PROPERTIES);
+		if (index >= 0) {
+			return markPropertyAsSet(index, value);
+		}
+
+		if (unindexedSetProperties == null) {
+			unindexedSetProperties = new HashSet<>();
+		}
+		unindexedSetProperties.add(property);
+		return value;
+	}
+
+	/**
+	 * Marks the property with the specified index as set and returns the value given as the
+	 * second argument (see {@link #getPropertyIndex(java.lang.Class, java.lang.String)}).
+	 *
+	 * @param <T> the type of value
+	 * @param index the index of the property to mark as set
+	 * @param value the value to return
+	 * @return the value
+	 * @throws IllegalArgumentException if the index is negative
+	 */
+	public <T> T markPropertyAsSet(int index, T value) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Property index must be greater than or equal to zero, got " + index);
+		} else if (index < Long.SIZE) {
+			setProperties |= 1L << index;
+		} else {
+			if (moreSetProperties == null) {
+				moreSetProperties = new BitSet();
+			}
+			moreSetProperties.set(index - Long.SIZE);
+		}
 		return value;
 	}
 
 	@Override
 	public boolean isPropertySet(String property) {
-		return setProperties.contains(property);
+		return property != null && (isPropertySet(propertyIndex.indexOf(property)) || (unindexedSetProperties != null && unindexedSetProperties.contains(property)));
+	}
+
+	/**
+	 * Indicates whether the property with the specified index was explicitly set (see
+	 * {@link #getPropertyIndex(java.lang.Class, java.lang.String)}).
+	 *
+	 * @param index the index of the property to check
+	 * @return true if the property was explicitly set (to any value, including null)
+	 */
+	public boolean isPropertySet(int index) {
+		if (index < 0) {
+			return false;
+		} else if (index < Long.SIZE) {
+			return (setProperties & (1L << index)) != 0;
+		}
+		return moreSetProperties != null && moreSetProperties.get(index - Long.SIZE);
+	}
+
+	/**
+	 * Property indexes of a patch object class hierarchy. Indexes are assigned in the order
+	 * properties are first registered.
+	 */
+	private static class PropertyIndex {
+
+		private final ConcurrentMap<String, Integer> indexes = new ConcurrentHashMap<>();
+
+		public int indexOf(String property) {
+			final Integer index = indexes.get(property);
+			return index != null ? index : -1;
+		}
+
+		/**
+		 * Returns the index of the specified property, assigning one if necessary.
+		 *
+		 * @param property the name of the property
+		 * @param maxIndexes the number of indexes after which no new index is assigned
+		 * @return the index of the property, or -1 if it has none and the limit is reached
+		 */
+		public int register(String property, int maxIndexes) {
+			if (property == null) {
+				throw new IllegalArgumentException("Property cannot be null");
+			}
+
+			final Integer index = indexes.get(property);
+			if (index != null) {
+				return index;
+			}
+
+			// indexes are only assigned once per property, so this rarely happens
+			synchronized (this) {
+				final Integer existingIndex = indexes.get(property);
+				if (existingIndex != null) {
+					return existingIndex;
+				}
+
+				final int newIndex = indexes.size();
+				if (newIndex >= maxIndexes) {
+					return -1;
+				}
+
+				indexes.put(property, newIndex);
+				return newIndex;
+			}
+		}
 	}
 }
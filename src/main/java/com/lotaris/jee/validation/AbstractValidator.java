@@ -1,6 +1,8 @@
 package com.lotaris.jee.validation;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -60,15 +62,47 @@ import java.util.Set;
  *	}
  * </pre></p>
  *
+ * <h2>Performance</h2>
+ *
+ * <p>Annotations are read once per validator class and the locations they define are parsed in
+ * advance, so creating validators is cheap. When the context is a {@link JsonValidationContext},
+ * previous errors are looked up without building location strings. This is not possible when
+ * <tt>getPreviousErrorLocations</tt> is overridden, or after the set it returns has been obtained
+ * (as it may have been modified).</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public abstract class AbstractValidator<T> implements IValidator<T> {
 
+	/**
+	 * Per-class metadata, computed once for each validator class.
+	 */
+	private static final ClassValue<ValidatorMetadata> METADATA = new ClassValue<ValidatorMetadata>() {
+		@Override
+		protected ValidatorMetadata computeValue(Class<?> type) {
+			return new ValidatorMetadata(type);
+		}
+	};
+
+	private final ValidatorMetadata metadata;
+	/**
+	 * The locations to check for previous errors. Lazily created from the class metadata when
+	 * locations are added or requested.
+	 */
 	private Set<String> previousErrorLocations;
+	/**
+	 * The parsed locations to check for previous errors (relative to the current location).
+	 */
+	private ImmutableJsonPointer[] compiledPreviousErrorLocations;
+	/**
+	 * Whether the set of locations has been returned by <tt>getPreviousErrorLocations</tt>, in which
+	 * case it may have been modified and the parsed locations cannot be trusted.
+	 */
+	private boolean previousErrorLocationsExposed;
 
 	public AbstractValidator() {
-		previousErrorLocations = new HashSet<>(5);
-		fillPreviousErrorLocationsFromAnnotations(previousErrorLocations);
+		metadata = METADATA.get(getClass());
+		compiledPreviousErrorLocations = metadata.compiledPreviousErrorLocations;
 	}
 
 	/**
@@ -86,9 +120,21 @@ public abstract class AbstractValidator<T> implements IValidator<T> {
 	public void collectErrors(T object, IValidationContext context) {
 
 		// don't do anything if previous errors are found
-		for (final String relativeLocation : getPreviousErrorLocations(context)) {
-			if (context.hasErrors(context.location(relativeLocation))) {
-				return;
+		if (!metadata.previousErrorLocationsOverridden && !previousErrorLocationsExposed && context instanceof JsonValidationContext) {
+
+			// fast path: check pre-parsed locations without building location strings
+			final JsonValidationContext jsonContext = (JsonValidationContext) context;
+			for (final ImmutableJsonPointer relativeLocation : compiledPreviousErrorLocations) {
+				// a null location stands for errors with no location, as with hasErrors(null)
+				if (relativeLocation != null ? jsonContext.hasErrorsAtRelativeLocation(relativeLocation) : jsonContext.hasErrors((String) null)) {
+					return;
+				}
+			}
+		} else {
+			for (final String relativeLocation : getPreviousErrorLocations(context)) {
+				if (context.hasErrors(context.location(relativeLocation))) {
+					return;
+				}
 			}
 		}
 
@@ -103,7 +149,8 @@ public abstract class AbstractValidator<T> implements IValidator<T> {
 	 * @return a set of locations to check for previous errors
 	 */
 	public Set<String> getPreviousErrorLocations(IValidationContext context) {
-		return previousErrorLocations;
+		previousErrorLocationsExposed = true;
+		return getOrCreatePreviousErrorLocations();
 	}
 
 	/**
@@ -115,21 +162,16 @@ public abstract class AbstractValidator<T> implements IValidator<T> {
 	 * @return this validator
 	 */
 	public AbstractValidator<T> skipOnPreviousErrors(String... locations) {
-		fillSet(previousErrorLocations, locations);
+
+		final Set<String> currentLocations = getOrCreatePreviousErrorLocations();
+		fillSet(currentLocations, locations);
+		compiledPreviousErrorLocations = compile(currentLocations);
+
 		return this;
 	}
 
 	protected final void fillPreviousErrorLocationsFromAnnotations(Set<String> locations) {
-
-		final SkipValidationOnPreviousErrors annotation = getClass().getAnnotation(SkipValidationOnPreviousErrors.class);
-		if (annotation != null) {
-			fillSet(locations, annotation.locations());
-		}
-
-		final SkipValidationOnPreviousErrorsAtCurrentLocation currentLocationAnnotation = getClass().getAnnotation(SkipValidationOnPreviousErrorsAtCurrentLocation.class);
-		if (currentLocationAnnotation != null) {
-			fillSet(locations, "");
-		}
+		locations.addAll(metadata.previousErrorLocations);
 	}
 
 	protected Set<String> fillSet(String... strings) {
@@ -145,4 +187,69 @@ public abstract class AbstractValidator<T> implements IValidator<T> {
 
 		return set;
 	}
+
+	private Set<String> getOrCreatePreviousErrorLocations() {
+		if (previousErrorLocations == null) {
+			previousErrorLocations = new HashSet<>(metadata.previousErrorLocations);
+		}
+		return previousErrorLocations;
+	}
+
+	private static ImmutableJsonPointer[] compile(Set<String> locations) {
+
+		final ImmutableJsonPointer[] compiled = new ImmutableJsonPointer[locations.size()];
+
+		int i = 0;
+		for (String location : locations) {
+			compiled[i++] = location != null ? ImmutableJsonPointer.parse(location) : null;
+		}
+
+		return compiled;
+	}
+
+	/**
+	 * Previous error configuration of a validator class.
+	 */
+	private static class ValidatorMetadata {
+
+		/**
+		 * The locations defined by annotations.
+		 */
+		private final Set<String> previousErrorLocations;
+		private final ImmutableJsonPointer[] compiledPreviousErrorLocations;
+		/**
+		 * Whether the class (or a superclass) overrides <tt>getPreviousErrorLocations</tt>.
+		 */
+		private final boolean previousErrorLocationsOverridden;
+
+		public ValidatorMetadata(Class<?> type) {
+
+			final Set<String> locations = new LinkedHashSet<>();
+
+			final SkipValidationOnPreviousErrors annotation = type.getAnnotation(SkipValidationOnPreviousErrors.class);
+			if (annotation != null) {
+				Collections.addAll(locations, annotation.locations());
+			}
+
+			if (type.isAnnotationPresent(SkipValidationOnPreviousErrorsAtCurrentLocation.class)) {
+				locations.add("");
+			}
+
+			this.previousErrorLocations = Collections.unmodifiableSet(locations);
+			this.compiledPreviousErrorLocations = compile(locations);
+			this.previousErrorLocationsOverridden = isPreviousErrorLocationsOverridden(type);
+		}
+
+		private static boolean isPreviousErrorLocationsOverridden(Class<?> type) {
+			for (Class<?> current = type; current != null && current != AbstractValidator.class; current = current.getSuperclass()) {
+				try {
+					current.getDeclaredMethod("getPreviousErrorLocations", IValidationContext.class);
+					return true;
+				} catch (NoSuchMethodException nsme) {
+					// check the superclass
+				}
+			}
+			return false;
+		}
+	}
 }
@@ -13,11 +13,23 @@ import org.codehaus.jackson.annotate.JsonProperty;
  * <p>The code identifies the error type (e.g. invalid string length). It can be
  * used to look up a translation.</p>
  *
+ * <p>The message may be given as a template with arguments (see
+ * {@link String#format(java.lang.String, java.lang.Object[])}). It is only formatted the first
+ * time the message is requested (e.g. when the error is serialized) and the result is cached. If
+ * the template is not valid for the arguments, the message is the template itself. Requesting the
+ * message from several threads is safe. Note that the arguments are not copied, so they should
+ * not be modified after the error is created.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public class ApiError implements IError {
 
-	private String message;
+	private volatile String message;
+	/**
+	 * The message template, if the message has not yet been formatted.
+	 */
+	@JsonIgnore
+	private volatile MessageTemplate messageTemplate;
 	@JsonIgnore
 	private IErrorCode code;
 	@JsonIgnore
@@ -36,8 +48,43 @@ public class ApiError implements IError {
 		this.locationType = locationType;
 		this.location = location;
 	}
+
+	/**
+	 * Constructs an error whose message will be formatted when it is first requested.
+	 *
+	 * @param code the code identifying the error type
+	 * @param locationType the location type
+	 * @param location the location of the error
+	 * @param messageTemplate the message template
+	 * @param messageArgs the arguments to be interpolated into the message template
+	 */
+	public ApiError(IErrorCode code, IErrorLocationType locationType, String location, String messageTemplate, Object... messageArgs) {
+		this.code = code;
+		this.locationType = locationType;
+		this.location = location;
+		if (messageTemplate == null || ((messageArgs == null || messageArgs.length == 0) && messageTemplate.indexOf('%') < 0)) {
+			this.message = messageTemplate;
+		} else {
+			this.messageTemplate = new MessageTemplate(messageTemplate, messageArgs);
+		}
+	}
 	//</editor-fold>
 
+	/**
+	 * Formats a message with {@link String#format(java.lang.String, java.lang.Object[])}. Messages
+	 * with no arguments and no format specifiers are returned as is.
+	 *
+	 * @param message the message template
+	 * @param messageArgs the arguments to be interpolated into the message template
+	 * @return the formatted message
+	 */
+	static String formatMessage(String message, Object... messageArgs) {
+		if (message != null && (messageArgs == null || messageArgs.length == 0) && message.indexOf('%') < 0) {
+			return message;
+		}
+		return String.format(message, messageArgs);
+	}
+
 	@JsonProperty("code")
 	public Integer getNumericCode() {
 		return code != null ? code.getCode() : null;
@@ -51,11 +98,23 @@ public class ApiError implements IError {
 	//<editor-fold defaultstate="collapsed" desc="Getters & Setters">
 	@Override
 	public String getMessage() {
+
+		// the message is written before the template is cleared, so a thread seeing no template
+		// also sees the message; concurrent first calls may both format it, with the same result
+		final MessageTemplate template = messageTemplate;
+		if (template != null) {
+			final String formatted = template.format();
+			message = formatted;
+			messageTemplate = null;
+			return formatted;
+		}
+
 		return message;
 	}
 
 	public void setMessage(String message) {
 		this.message = message;
+		this.messageTemplate = null;
 	}
 
 	@Override
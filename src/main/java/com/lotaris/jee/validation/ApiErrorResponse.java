@@ -3,9 +3,12 @@ package com.lotaris.jee.validation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.codehaus.jackson.annotate.JsonIgnore;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
 
 /**
  * An API response indicating that one or multiple errors prevented the request from being
@@ -16,20 +19,40 @@ import org.codehaus.jackson.annotate.JsonIgnore;
  * {@link ApiResponse#configure(com.lotaris.dcc.rest.IApiResponseConfig)} to automatically set the
  * HTTP status code and body of the response.</p>
  *
+ * <p>The number of errors can be limited with {@link #setMaxErrors(int)} (for the whole response)
+ * or {@link #setMaxErrors(java.lang.String, int)} (for a location and its sub-locations). Once a
+ * limit is reached, further errors are discarded; once an error has been discarded, the response
+ * is marked as truncated and its JSON representation has a <tt>truncated</tt> property set to
+ * true.</p>
+ *
+ * <p>The list of errors and its indexes are only created when the first error is added, so an
+ * empty response is cheap to create and query.</p>
+ *
+ * <p>A response can be cleared with {@link #reset()} and reused, e.g. by a pooled
+ * {@link com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext}.</p>
+ *
+ * <p>The response is serialized by an {@link ApiErrorResponseSerializer}, which streams its errors
+ * to the client.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
+@JsonSerialize(using = ApiErrorResponseSerializer.class)
 public class ApiErrorResponse implements IErrorCollector {
 
+	/**
+	 * The errors of this response. Created with the indexes below when the first error is added.
+	 */
 	private List<ApiError> errors;
 	@JsonIgnore
 	private int httpStatusCode;
 	/**
-	 * A cache to allow fast error lookup by location.
+	 * An index to allow fast error lookup by location, including parent locations.
 	 *
 	 * @see #hasErrors(java.lang.String)
+	 * @see #hasErrors(com.lotaris.jee.validation.IJsonPointer)
 	 */
 	@JsonIgnore
-	private Set<String> knownErrorLocations;
+	private ErrorLocationIndex<ApiError> errorsByLocation;
 	/**
 	 * A cache to allow fast error lookup by code.
 	 *
@@ -37,6 +60,18 @@ public class ApiErrorResponse implements IErrorCollector {
 	 */
 	@JsonIgnore
 	private Set<Integer> knownErrorCodes;
+	/**
+	 * The maximum number of errors (0 for no limit).
+	 */
+	@JsonIgnore
+	private int maxErrors;
+	/**
+	 * The maximum number of errors at or under specific locations. Lazily created.
+	 */
+	@JsonIgnore
+	private Map<String, Integer> maxErrorsByLocation;
+	@JsonIgnore
+	private boolean truncated;
 
 	/**
 	 * Constructs an empty error response with no error message. Use {@link #add(ApiError)} to add
@@ -50,9 +85,6 @@ public class ApiErrorResponse implements IErrorCollector {
 			throw new IllegalArgumentException("HTTP status code for an API error response must be in the 4xx or 5xx range, got " + httpStatusCode);
 		}
 		this.httpStatusCode = httpStatusCode;
-		this.errors = new ArrayList<>();
-		this.knownErrorLocations = new HashSet<>();
-		this.knownErrorCodes = new HashSet<>();
 	}
 
 	/**
@@ -84,28 +116,26 @@ public class ApiErrorResponse implements IErrorCollector {
 
 	private void addError(ApiError error) {
 
+		if (isErrorLimitReached(error.getLocation())) {
+			truncated = true;
+			return;
+		}
+
+		if (errors == null) {
+			errors = new ArrayList<>();
+			errorsByLocation = new ErrorLocationIndex<>();
+			knownErrorCodes = new HashSet<>();
+		}
+
 		errors.add(error);
 
 		// store the error code for quick lookup by #hasErrors(EApiErrorCodes)
 		knownErrorCodes.add(error.getCode() != null ? error.getCode().getCode() : null);
 
-		// store the error location for quick lookup by #hasErrors(String)
-		if (error.getLocation() == null) {
-			knownErrorLocations.add(null);
-		} else {
-
-			// also store parent paths, e.g. for "/person/children/0/name", the following paths
-			// will be stored: "/person", "/person/children", "/person/children/0", "/person/children/0/name"
-			String location = error.getLocation();
-			while (!location.isEmpty()) {
-				knownErrorLocations.add(location);
-				if (location.contains("/")) {
-					location = location.replaceFirst("\\/[^\\/]*$", "");
-				} else {
-					break;
-				}
-			}
-		}
+		// index the error location for quick lookup by #hasErrors(String); the error will also be
+		// found under parent paths, e.g. for "/person/children/0/name": "/person", "/person/children",
+		// "/person/children/0" and "/person/children/0/name"
+		errorsByLocation.add(error.getLocation(), error);
 	}
 
 	@Override
@@ -116,17 +146,177 @@ public class ApiErrorResponse implements IErrorCollector {
 
 	@Override
 	public boolean hasErrors() {
-		return !errors.isEmpty();
+		return errors != null && !errors.isEmpty();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The root of the document (<tt>""</tt>) is not considered to have errors.</p>
+	 */
 	@Override
 	public boolean hasErrors(String location) {
-		return knownErrorLocations.contains(location);
+		return errors != null && (location == null || !location.isEmpty()) && errorsByLocation.contains(location);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The root of the document (<tt>""</tt>) is not considered to have errors.</p>
+	 */
+	@Override
+	public boolean hasErrors(IJsonPointer location) {
+		return errors != null && (location == null || !location.isRoot()) && errorsByLocation.contains(location);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The limit is reached if the response has {@link #setMaxErrors(int) the maximum number of
+	 * errors}, or if the location is at or under a location that has
+	 * {@link #setMaxErrors(java.lang.String, int) the maximum number of errors for that
+	 * location}.</p>
+	 */
+	@Override
+	public boolean isErrorLimitReached(String location) {
+		if (errors == null) {
+			// limits are always greater than zero
+			return false;
+		} else if (maxErrors > 0 && errors.size() >= maxErrors) {
+			return true;
+		} else if (location == null || maxErrorsByLocation == null) {
+			return false;
+		}
+
+		for (Map.Entry<String, Integer> limit : maxErrorsByLocation.entrySet()) {
+			if (isAtOrUnder(location, limit.getKey()) && errorsByLocation.count(limit.getKey()) >= limit.getValue()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the number of errors this response still accepts before its global limit is reached.
+	 *
+	 * @return the number of errors, or <tt>Integer.MAX_VALUE</tt> if there is no global limit
+	 */
+	int getRemainingErrors() {
+		if (maxErrors == 0) {
+			return Integer.MAX_VALUE;
+		}
+		return Math.max(0, maxErrors - (errors != null ? errors.size() : 0));
+	}
+
+	/**
+	 * Removes all errors and error limits from this response so that it can be reused. The HTTP
+	 * status code is kept.
+	 *
+	 * <p>A response must not be reset while it is still in use, e.g. after it has been thrown in
+	 * an {@link ApiErrorsException}.</p>
+	 *
+	 * @return this response
+	 */
+	public ApiErrorResponse reset() {
+		if (errors != null) {
+			errors.clear();
+			errorsByLocation.clear();
+			knownErrorCodes.clear();
+		}
+		maxErrors = 0;
+		maxErrorsByLocation = null;
+		truncated = false;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of errors in this response. Further errors will be discarded and the
+	 * response will then be marked as truncated.
+	 *
+	 * @param maxErrors the maximum number of errors (0 for no limit)
+	 * @throws IllegalArgumentException if the maximum is negative
+	 */
+	public void setMaxErrors(int maxErrors) {
+		if (maxErrors < 0) {
+			throw new IllegalArgumentException("Maximum number of errors must be greater than or equal to zero, got " + maxErrors);
+		}
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * Sets the maximum number of errors at or under the specified location. For example, with a
+	 * maximum of 10 errors for <tt>/items</tt>, errors at <tt>/items/42/name</tt> will be discarded
+	 * once 10 errors have been added under <tt>/items</tt>, while errors at other locations will
+	 * still be accepted.
+	 *
+	 * @param location an absolute JSON Pointer (see http://tools.ietf.org/html/rfc6901)
+	 * @param maxErrors the maximum number of errors at or under the location
+	 * @throws IllegalArgumentException if the location is null or the maximum is not positive
+	 */
+	public void setMaxErrors(String location, int maxErrors) {
+		if (location == null) {
+			throw new IllegalArgumentException("Location cannot be null");
+		} else if (maxErrors <= 0) {
+			throw new IllegalArgumentException("Maximum number of errors for a location must be greater than zero, got " + maxErrors);
+		}
+
+		if (maxErrorsByLocation == null) {
+			maxErrorsByLocation = new LinkedHashMap<>();
+		}
+		maxErrorsByLocation.put(location, maxErrors);
+	}
+
+	/**
+	 * Indicates whether errors were discarded because an error limit was reached. A response with
+	 * exactly the maximum number of errors is not truncated.
+	 *
+	 * @return true if the list of errors is incomplete
+	 */
+	@JsonIgnore
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Marks this response as truncated, e.g. when it is built from a collector which discarded
+	 * errors.
+	 */
+	void markAsTruncated() {
+		this.truncated = true;
+	}
+
+	/**
+	 * Returns the number of errors at or under the specified location. For example, an error at
+	 * <tt>/person/children/0/name</tt> is counted for <tt>/person</tt> and
+	 * <tt>/person/children</tt>. The root of the document (<tt>""</tt>) counts all errors that have
+	 * a location.
+	 *
+	 * @param location a JSON Pointer, or null to count errors with no location
+	 * @return a number of errors
+	 */
+	public int countErrors(String location) {
+		return errors != null ? errorsByLocation.count(location) : 0;
+	}
+
+	/**
+	 * Returns the errors at or under the specified location (see {@link #countErrors(java.lang.String)}).
+	 * Errors are grouped by location, parent locations first.
+	 *
+	 * @param location a JSON Pointer, or null to list errors with no location
+	 * @return an unmodifiable list of errors (empty if there are none)
+	 */
+	public List<ApiError> getErrors(String location) {
+		return errors != null ? errorsByLocation.list(location) : Collections.<ApiError>emptyList();
 	}
 
 	@Override
 	public boolean hasErrors(IErrorCode code) {
-		return knownErrorCodes.contains(code != null ? code.getCode() : null);
+		return errors != null && knownErrorCodes.contains(code != null ? code.getCode() : null);
+	}
+
+	private static boolean isAtOrUnder(String location, String parentLocation) {
+		return location.startsWith(parentLocation) && (location.length() == parentLocation.length() || location.charAt(parentLocation.length()) == '/');
 	}
 
 	//<editor-fold defaultstate="collapsed" desc="Getters & Setters">
@@ -142,7 +332,7 @@ public class ApiErrorResponse implements IErrorCollector {
 	 * @return the list of errors added to this response, or null if there are none
 	 */
 	public List<ApiError> getErrors() {
-		return Collections.unmodifiableList(errors);
+		return errors != null ? Collections.unmodifiableList(errors) : Collections.<ApiError>emptyList();
 	}
 	//</editor-fold>
 }
@@ -0,0 +1,141 @@
+package com.lotaris.jee.validation;
+
+import java.io.IOException;
+import java.util.List;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.io.SerializedString;
+import org.codehaus.jackson.map.JsonSerializer;
+import org.codehaus.jackson.map.SerializerProvider;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * Writes an {@link ApiErrorResponse} directly to a JSON generator. The output has the same
+ * properties and values as the default bean serialization, in a fixed order:
+ *
+ * <p><pre>
+ *	{
+ *		"errors": [
+ *			{ "message": "...", "location": "/name", "code": 1000, "locationType": "json" },
+ *			...
+ *		],
+ *		"truncated": true // only present if the response is truncated
+ *	}
+ * </pre></p>
+ *
+ * <p>The serialization inclusion of the object mapper is honored: null properties of errors are
+ * omitted unless it is {@link JsonSerialize.Inclusion#ALWAYS} (the default), and empty strings are
+ * also omitted if it is {@link JsonSerialize.Inclusion#NON_EMPTY}. Errors have no default values,
+ * so {@link JsonSerialize.Inclusion#NON_DEFAULT} is treated like
+ * {@link JsonSerialize.Inclusion#NON_NULL}.</p>
+ *
+ * <p>Errors are written one by one without introspection, boxing or intermediate collections.
+ * The generator is flushed after every {@link #DEFAULT_FLUSH_INTERVAL} errors so that very large
+ * responses are streamed to the client in chunks rather than buffered in full.</p>
+ *
+ * <p>This serializer is registered on {@link ApiErrorResponse} with <tt>@JsonSerialize</tt>.
+ * Subclasses of {@link ApiError} are serialized with their own serializer; subclasses of
+ * {@link ApiErrorResponse} which add properties must declare their own serializer.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class ApiErrorResponseSerializer extends JsonSerializer<ApiErrorResponse> {
+
+	/**
+	 * The default number of errors written between two flushes of the generator.
+	 */
+	public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+	private static final SerializedString ERRORS = new SerializedString("errors");
+	private static final SerializedString TRUNCATED = new SerializedString("truncated");
+	private static final SerializedString MESSAGE = new SerializedString("message");
+	private static final SerializedString LOCATION = new SerializedString("location");
+	private static final SerializedString CODE = new SerializedString("code");
+	private static final SerializedString LOCATION_TYPE = new SerializedString("locationType");
+
+	private final int flushInterval;
+
+	public ApiErrorResponseSerializer() {
+		this(DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * Constructs a serializer which flushes the generator after the specified number of errors.
+	 *
+	 * @param flushInterval the number of errors between two flushes (0 to only flush at the end,
+	 * as determined by the object mapper)
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public ApiErrorResponseSerializer(int flushInterval) {
+		if (flushInterval < 0) {
+			throw new IllegalArgumentException("Flush interval must be greater than or equal to zero, got " + flushInterval);
+		}
+		this.flushInterval = flushInterval;
+	}
+
+	@Override
+	public void serialize(ApiErrorResponse value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+
+		jgen.writeStartObject();
+		jgen.writeFieldName(ERRORS);
+		jgen.writeStartArray();
+
+		final JsonSerialize.Inclusion inclusion = provider.getConfig().getSerializationInclusion();
+		final boolean omitNulls = inclusion != null && inclusion != JsonSerialize.Inclusion.ALWAYS;
+		final boolean omitEmptyStrings = inclusion == JsonSerialize.Inclusion.NON_EMPTY;
+
+		final List<ApiError> errors = value.getErrors();
+		final int n = errors.size();
+		for (int i = 0; i < n; i++) {
+
+			final ApiError error = errors.get(i);
+			if (error.getClass() == ApiError.class) {
+				writeError(error, jgen, omitNulls, omitEmptyStrings);
+			} else {
+				provider.defaultSerializeValue(error, jgen);
+			}
+
+			if (flushInterval > 0 && (i + 1) % flushInterval == 0) {
+				jgen.flush();
+			}
+		}
+
+		jgen.writeEndArray();
+
+		if (value.isTruncated()) {
+			jgen.writeFieldName(TRUNCATED);
+			jgen.writeBoolean(true);
+		}
+
+		jgen.writeEndObject();
+	}
+
+	private static void writeError(ApiError error, JsonGenerator jgen, boolean omitNulls, boolean omitEmptyStrings) throws IOException {
+
+		jgen.writeStartObject();
+		writeString(jgen, MESSAGE, error.getMessage(), omitNulls, omitEmptyStrings);
+		writeString(jgen, LOCATION, error.getLocation(), omitNulls, omitEmptyStrings);
+
+		final IErrorCode code = error.getCode();
+		if (code != null) {
+			jgen.writeFieldName(CODE);
+			jgen.writeNumber(code.getCode());
+		} else if (!omitNulls) {
+			jgen.writeFieldName(CODE);
+			jgen.writeNull();
+		}
+
+		final IErrorLocationType locationType = error.getLocationType();
+		writeString(jgen, LOCATION_TYPE, locationType != null ? locationType.getLocationType() : null, omitNulls, omitEmptyStrings);
+
+		jgen.writeEndObject();
+	}
+
+	private static void writeString(JsonGenerator jgen, SerializedString name, String value, boolean omitNulls, boolean omitEmptyStrings) throws IOException {
+		if ((value == null && omitNulls) || (value != null && value.isEmpty() && omitEmptyStrings)) {
+			return;
+		}
+
+		jgen.writeFieldName(name);
+		jgen.writeString(value);
+	}
+}
@@ -0,0 +1,140 @@
+package com.lotaris.jee.validation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Error collector which keeps errors in a local buffer instead of adding them to its parent
+ * collector. Lookups with <tt>hasErrors</tt> take both the buffered errors and the errors of the
+ * parent collector into account. Buffered errors can later be added to the parent collector with
+ * {@link #flush()}.
+ *
+ * <p>This allows validating parts of a document concurrently without modifying the parent
+ * collector, which must then not be modified until the buffered errors are flushed.</p>
+ *
+ * <p>Collectors buffering errors for the same parent can share a counter of buffered errors, so
+ * that the error limit of the parent is reached as soon as they have buffered together as many
+ * errors as the parent still accepts.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+class BufferingErrorCollector implements IErrorCollector {
+
+	private final IErrorCollector parent;
+	private final List<IError> errors;
+	private final ErrorLocationIndex<IError> errorsByLocation;
+	private final Set<Integer> knownErrorCodes;
+	/**
+	 * The number of errors buffered by this collector and the collectors it shares the counter
+	 * with.
+	 */
+	private final AtomicInteger bufferedErrors;
+	/**
+	 * The number of errors the parent collector accepted when this collector was created.
+	 */
+	private final int capacity;
+
+	/**
+	 * Constructs a collector with its own counter of buffered errors.
+	 *
+	 * @param parent the collector to add errors to when they are flushed
+	 */
+	public BufferingErrorCollector(IErrorCollector parent) {
+		this(parent, new AtomicInteger());
+	}
+
+	/**
+	 * Constructs a collector which shares a counter of buffered errors with other collectors of the
+	 * same parent.
+	 *
+	 * @param parent the collector to add errors to when they are flushed
+	 * @param bufferedErrors the shared counter of buffered errors
+	 */
+	public BufferingErrorCollector(IErrorCollector parent, AtomicInteger bufferedErrors) {
+		this.parent = parent;
+		this.errors = new ArrayList<>();
+		this.errorsByLocation = new ErrorLocationIndex<>();
+		this.knownErrorCodes = new HashSet<>();
+		this.bufferedErrors = bufferedErrors;
+		this.capacity = remainingErrors(parent);
+	}
+
+	/**
+	 * Adds the buffered errors to the parent collector in the order they were added to this
+	 * collector, and clears the buffer.
+	 */
+	public void flush() {
+		for (IError error : errors) {
+			parent.addError(error);
+		}
+		bufferedErrors.addAndGet(-errors.size());
+		errors.clear();
+		errorsByLocation.clear();
+		knownErrorCodes.clear();
+	}
+
+	@Override
+	public IErrorCollector addError(IError error) {
+		bufferedErrors.incrementAndGet();
+		errors.add(error);
+		errorsByLocation.add(error.getLocation(), error);
+		knownErrorCodes.add(error.getCode() != null ? error.getCode().getCode() : null);
+		return this;
+	}
+
+	@Override
+	public boolean hasErrors() {
+		return !errors.isEmpty() || parent.hasErrors();
+	}
+
+	@Override
+	public boolean hasErrors(String absoluteLocation) {
+		// like ApiErrorResponse, the root of the document is not considered to have errors
+		return ((absoluteLocation == null || !absoluteLocation.isEmpty()) && errorsByLocation.contains(absoluteLocation)) || parent.hasErrors(absoluteLocation);
+	}
+
+	@Override
+	public boolean hasErrors(IJsonPointer absoluteLocation) {
+		return ((absoluteLocation == null || !absoluteLocation.isRoot()) && errorsByLocation.contains(absoluteLocation)) || parent.hasErrors(absoluteLocation);
+	}
+
+	@Override
+	public boolean hasErrors(IErrorCode code) {
+		return knownErrorCodes.contains(code != null ? code.getCode() : null) || parent.hasErrors(code);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The limit is reached once the collectors sharing the counter of buffered errors have
+	 * together buffered as many errors as the parent collector accepted when this collector was
+	 * created, or if the limit of the parent collector is reached. Limits of locations are only
+	 * checked against the errors already added to the parent collector. Concurrent collectors may
+	 * still buffer a few more errors than the limit; the parent collector will discard them when
+	 * they are flushed.</p>
+	 */
+	@Override
+	public boolean isErrorLimitReached(String absoluteLocation) {
+		return bufferedErrors.get() >= capacity || parent.isErrorLimitReached(absoluteLocation);
+	}
+
+	/**
+	 * Returns the number of errors the specified collector still accepts.
+	 *
+	 * @param collector an error collector
+	 * @return the number of errors, or <tt>Integer.MAX_VALUE</tt> if the collector has no limit or
+	 * its limit is not known
+	 */
+	private static int remainingErrors(IErrorCollector collector) {
+		if (collector instanceof ApiErrorResponse) {
+			return ((ApiErrorResponse) collector).getRemainingErrors();
+		} else if (collector instanceof BufferingErrorCollector) {
+			final BufferingErrorCollector buffer = (BufferingErrorCollector) collector;
+			return buffer.capacity == Integer.MAX_VALUE ? Integer.MAX_VALUE : Math.max(0, buffer.capacity - buffer.bufferedErrors.get());
+		}
+		return Integer.MAX_VALUE;
+	}
+}
@@ -0,0 +1,179 @@
+package com.lotaris.jee.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe error collector. Errors can be added by multiple threads concurrently while other
+ * threads check for errors with <tt>hasErrors</tt>.
+ *
+ * <p>Errors are appended to a lock-free queue and their locations (including parent locations) and
+ * codes are indexed in concurrent sets. An error is indexed after being appended, so if
+ * <tt>hasErrors</tt> returns true for a location or code, a matching error is part of the next
+ * snapshot returned by {@link #getErrors()}.</p>
+ *
+ * <p>Once all errors have been collected, use {@link #toApiErrorResponse(int)} to obtain an error
+ * response which can be serialized.</p>
+ *
+ * <p><pre>
+ *	ConcurrentErrorCollector collector = new ConcurrentErrorCollector();
+ *	// validate with multiple threads...
+ *	if (collector.hasErrors()) {
+ *		throw new ApiErrorsException(collector.toApiErrorResponse(422));
+ *	}
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see ApiErrorResponse
+ */
+public class ConcurrentErrorCollector implements IErrorCollector {
+
+	private final ConcurrentLinkedQueue<IError> errors;
+	/**
+	 * The number of accepted errors. Errors are counted before being appended, so this may be
+	 * greater than the number of errors in the queue while errors are being added.
+	 */
+	private final AtomicInteger numberOfErrors;
+	/**
+	 * The maximum number of errors (0 for no limit).
+	 */
+	private final int maxErrors;
+	/**
+	 * The locations of the errors and their parent locations (the root of the document is not
+	 * stored).
+	 */
+	private final Set<ImmutableJsonPointer> knownErrorLocations;
+	private final Set<Integer> knownErrorCodes;
+	private volatile boolean hasErrorsWithNoLocation;
+	private volatile boolean hasErrorsWithNoCode;
+	private volatile boolean truncated;
+
+	/**
+	 * Constructs an empty collector with no error limit.
+	 */
+	public ConcurrentErrorCollector() {
+		this(0);
+	}
+
+	/**
+	 * Constructs an empty collector which will discard errors beyond the specified number.
+	 *
+	 * @param maxErrors the maximum number of errors (0 for no limit)
+	 * @throws IllegalArgumentException if the maximum is negative
+	 */
+	public ConcurrentErrorCollector(int maxErrors) {
+		if (maxErrors < 0) {
+			throw new IllegalArgumentException("Maximum number of errors must be greater than or equal to zero, got " + maxErrors);
+		}
+		this.errors = new ConcurrentLinkedQueue<>();
+		this.numberOfErrors = new AtomicInteger();
+		this.maxErrors = maxErrors;
+		this.knownErrorLocations = Collections.newSetFromMap(new ConcurrentHashMap<ImmutableJsonPointer, Boolean>());
+		this.knownErrorCodes = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+	}
+
+	@Override
+	public IErrorCollector addError(IError error) {
+
+		// reserve a slot for the error
+		if (numberOfErrors.incrementAndGet() > maxErrors && maxErrors > 0) {
+			numberOfErrors.decrementAndGet();
+			truncated = true;
+			return this;
+		}
+
+		errors.add(error);
+
+		if (error.getCode() == null) {
+			hasErrorsWithNoCode = true;
+		} else {
+			knownErrorCodes.add(error.getCode().getCode());
+		}
+
+		if (error.getLocation() == null) {
+			hasErrorsWithNoLocation = true;
+		} else {
+
+			// also store parent locations; unlike ApiErrorResponse, do not stop at the first known
+			// location as another thread may still be storing its parents
+			ImmutableJsonPointer location = ImmutableJsonPointer.parseUninterned(error.getLocation());
+			while (!location.isRoot()) {
+				knownErrorLocations.add(location);
+				location = location.parent();
+			}
+		}
+
+		return this;
+	}
+
+	@Override
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
+	@Override
+	public boolean hasErrors(String absoluteLocation) {
+		return absoluteLocation == null ? hasErrorsWithNoLocation : knownErrorLocations.contains(ImmutableJsonPointer.parseUninterned(absoluteLocation));
+	}
+
+	@Override
+	public boolean hasErrors(IJsonPointer absoluteLocation) {
+		return absoluteLocation == null ? hasErrorsWithNoLocation : knownErrorLocations.contains(ImmutableJsonPointer.snapshot(absoluteLocation));
+	}
+
+	@Override
+	public boolean hasErrors(IErrorCode code) {
+		return code == null ? hasErrorsWithNoCode : knownErrorCodes.contains(code.getCode());
+	}
+
+	@Override
+	public boolean isErrorLimitReached(String absoluteLocation) {
+		return maxErrors > 0 && numberOfErrors.get() >= maxErrors;
+	}
+
+	/**
+	 * Indicates whether errors were discarded because the error limit was reached.
+	 *
+	 * @return true if the list of errors is incomplete
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Returns a snapshot of the errors added to this collector, in the order they were added.
+	 * Errors added concurrently with this call may or may not be included.
+	 *
+	 * @return an unmodifiable list of errors
+	 */
+	public List<IError> getErrors() {
+		return Collections.unmodifiableList(new ArrayList<>(errors));
+	}
+
+	/**
+	 * Returns an error response containing a snapshot of the errors added to this collector, in
+	 * the order they were added. If errors were discarded, the response is marked as truncated.
+	 *
+	 * @param httpStatusCode the HTTP status code of the response
+	 * @return a new error response
+	 * @throws IllegalArgumentException if the status code is not in the 4xx or 5xx range
+	 */
+	public ApiErrorResponse toApiErrorResponse(int httpStatusCode) {
+
+		final ApiErrorResponse response = new ApiErrorResponse(httpStatusCode);
+		for (IError error : errors) {
+			response.addError(error);
+		}
+
+		if (truncated) {
+			response.markAsTruncated();
+		}
+
+		return response;
+	}
+}
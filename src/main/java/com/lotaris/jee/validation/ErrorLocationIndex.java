@@ -0,0 +1,382 @@
+package com.lotaris.jee.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of errors by location. Locations are JSON Pointers (see http://tools.ietf.org/html/rfc6901)
+ * stored in a path trie with one node per path fragment, so that:
+ *
+ * <ul>
+ * <li>adding an error is linear in the number of fragments of its location and creates no
+ * substrings for fragments that are already known;</li>
+ * <li>checking whether there are errors at or under a location (e.g. <tt>/person</tt> for an error
+ * at <tt>/person/children/0/name</tt>) is also linear in the number of fragments;</li>
+ * <li>errors can be counted in constant time and listed under any location once it is found.</li>
+ * </ul>
+ *
+ * <p>Locations are matched fragment by fragment, so <tt>/pers</tt> does not match
+ * <tt>/person</tt>. As with {@link JsonPointer#add(java.lang.String)}, the leading separator is
+ * optional. Errors with no location are tracked separately and can be looked up with a null
+ * location.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <E> the type of error
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class ErrorLocationIndex<E> {
+
+	private final Node<E> root;
+	private final List<E> errorsWithNoLocation;
+
+	public ErrorLocationIndex() {
+		this.root = new Node<>(null, 0);
+		this.errorsWithNoLocation = new ArrayList<>();
+	}
+
+	/**
+	 * Removes all errors from this index.
+	 */
+	public void clear() {
+		root.clear();
+		errorsWithNoLocation.clear();
+	}
+
+	/**
+	 * Adds an error at the specified location.
+	 *
+	 * @param location a JSON Pointer (the empty string is the root), or null if the error has no
+	 * location
+	 * @param error the error
+	 */
+	public void add(String location, E error) {
+		if (location == null) {
+			errorsWithNoLocation.add(error);
+			return;
+		}
+
+		Node<E> node = root;
+		node.count++;
+
+		final int length = location.length();
+		if (length > 0) {
+
+			// skip the leading separator, if any
+			int start = location.charAt(0) == '/' ? 1 : 0;
+
+			while (true) {
+				int end = location.indexOf('/', start);
+				if (end < 0) {
+					end = length;
+				}
+
+				node = node.getOrAddChild(location, start, end);
+				node.count++;
+
+				if (end == length) {
+					break;
+				}
+				start = end + 1;
+			}
+		}
+
+		node.addError(error);
+	}
+
+	/**
+	 * Indicates whether there are errors at or under the specified location.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return true if at least one error was added at or under the location
+	 */
+	public boolean contains(String location) {
+		return count(location) > 0;
+	}
+
+	/**
+	 * Indicates whether there are errors at or under the specified location.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return true if at least one error was added at or under the location
+	 */
+	public boolean contains(IJsonPointer location) {
+		return count(location) > 0;
+	}
+
+	/**
+	 * Returns the number of errors at or under the specified location.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return a number of errors
+	 */
+	public int count(String location) {
+		if (location == null) {
+			return errorsWithNoLocation.size();
+		}
+
+		final Node<E> node = find(location);
+		return node != null ? node.count : 0;
+	}
+
+	/**
+	 * Returns the number of errors at or under the specified location.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return a number of errors
+	 */
+	public int count(IJsonPointer location) {
+		if (location == null) {
+			return errorsWithNoLocation.size();
+		}
+
+		final Node<E> node = find(location);
+		return node != null ? node.count : 0;
+	}
+
+	/**
+	 * Returns the errors at or under the specified location. Errors are grouped by location, with
+	 * parent locations first; errors and locations are otherwise in the order they were added.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return an unmodifiable list of errors (empty if there are none)
+	 */
+	public List<E> list(String location) {
+		if (location == null) {
+			return Collections.unmodifiableList(errorsWithNoLocation);
+		}
+
+		return list(find(location));
+	}
+
+	/**
+	 * Returns the errors at or under the specified location. See
+	 * {@link #list(java.lang.String)}.
+	 *
+	 * @param location a JSON Pointer, or null for errors with no location
+	 * @return an unmodifiable list of errors (empty if there are none)
+	 */
+	public List<E> list(IJsonPointer location) {
+		if (location == null) {
+			return Collections.unmodifiableList(errorsWithNoLocation);
+		}
+
+		return list(find(location));
+	}
+
+	private List<E> list(Node<E> node) {
+		if (node == null || node.count == 0) {
+			return Collections.emptyList();
+		}
+
+		final List<E> result = new ArrayList<>(node.count);
+		node.collectErrors(result);
+		return Collections.unmodifiableList(result);
+	}
+
+	private Node<E> find(String location) {
+
+		Node<E> node = root;
+
+		final int length = location.length();
+		if (length == 0) {
+			return node;
+		}
+
+		int start = location.charAt(0) == '/' ? 1 : 0;
+
+		while (node != null) {
+			int end = location.indexOf('/', start);
+			if (end < 0) {
+				end = length;
+			}
+
+			node = node.getChild(location, start, end);
+
+			if (end == length) {
+				break;
+			}
+			start = end + 1;
+		}
+
+		return node;
+	}
+
+	private Node<E> find(IJsonPointer location) {
+
+		Node<E> node = root;
+
+		final int size = location.size();
+		for (int i = 0; i < size && node != null; i++) {
+			final String fragment = location.fragmentAt(i);
+			node = node.getChild(fragment, 0, fragment.length());
+		}
+
+		return node;
+	}
+
+	/**
+	 * Returns the hash of the specified region of a string. This is the same as
+	 * <tt>s.substring(start, end).hashCode()</tt> without creating the substring.
+	 */
+	private static int hash(String s, int start, int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		return h;
+	}
+
+	/**
+	 * A location in the trie. Children are kept in a linked list to preserve insertion order;
+	 * nodes with many children (e.g. large arrays) additionally index them in an open-addressing
+	 * hash table.
+	 */
+	private static class Node<E> {
+
+		/**
+		 * Number of children above which they are indexed in a hash table.
+		 */
+		private static final int TABLE_THRESHOLD = 8;
+
+		private final String fragment;
+		private final int hash;
+		/**
+		 * Number of errors at or under this location.
+		 */
+		private int count;
+		/**
+		 * Errors at this exact location. Lazily created.
+		 */
+		private List<E> errors;
+		private Node<E> firstChild;
+		private Node<E> lastChild;
+		private Node<E> nextSibling;
+		private int numberOfChildren;
+		private Node<E>[] table;
+
+		public Node(String fragment, int hash) {
+			this.fragment = fragment;
+			this.hash = hash;
+		}
+
+		/**
+		 * Removes the errors and children of this node.
+		 */
+		public void clear() {
+			count = 0;
+			errors = null;
+			firstChild = null;
+			lastChild = null;
+			numberOfChildren = 0;
+			table = null;
+		}
+
+		public void addError(E error) {
+			if (errors == null) {
+				errors = new ArrayList<>(2);
+			}
+			errors.add(error);
+		}
+
+		public void collectErrors(List<E> result) {
+			if (errors != null) {
+				result.addAll(errors);
+			}
+
+			for (Node<E> child = firstChild; child != null; child = child.nextSibling) {
+				if (child.count > 0) {
+					child.collectErrors(result);
+				}
+			}
+		}
+
+		public Node<E> getChild(String s, int start, int end) {
+			return getChild(s, start, end, hash(s, start, end));
+		}
+
+		public Node<E> getOrAddChild(String s, int start, int end) {
+
+			final int h = hash(s, start, end);
+
+			Node<E> child = getChild(s, start, end, h);
+			if (child == null) {
+				child = new Node<>(s.substring(start, end), h);
+				addChild(child);
+			}
+
+			return child;
+		}
+
+		private Node<E> getChild(String s, int start, int end, int h) {
+
+			final int length = end - start;
+
+			if (table == null) {
+				for (Node<E> child = firstChild; child != null; child = child.nextSibling) {
+					if (child.matches(s, start, length, h)) {
+						return child;
+					}
+				}
+				return null;
+			}
+
+			final int mask = table.length - 1;
+			for (int i = spread(h) & mask; table[i] != null; i = (i + 1) & mask) {
+				if (table[i].matches(s, start, length, h)) {
+					return table[i];
+				}
+			}
+
+			return null;
+		}
+
+		private boolean matches(String s, int start, int length, int h) {
+			return hash == h && fragment.length() == length && fragment.regionMatches(0, s, start, length);
+		}
+
+		private void addChild(Node<E> child) {
+
+			if (lastChild == null) {
+				firstChild = child;
+			} else {
+				lastChild.nextSibling = child;
+			}
+			lastChild = child;
+			numberOfChildren++;
+
+			if (table != null) {
+				// keep the load factor at or below 1/2
+				if (numberOfChildren * 2 > table.length) {
+					rebuildTable(table.length * 2);
+				} else {
+					insertIntoTable(child);
+				}
+			} else if (numberOfChildren > TABLE_THRESHOLD) {
+				rebuildTable(TABLE_THRESHOLD * 4);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void rebuildTable(int capacity) {
+			table = (Node<E>[]) new Node<?>[capacity];
+			for (Node<E> child = firstChild; child != null; child = child.nextSibling) {
+				insertIntoTable(child);
+			}
+		}
+
+		private void insertIntoTable(Node<E> child) {
+			final int mask = table.length - 1;
+			int i = spread(child.hash) & mask;
+			while (table[i] != null) {
+				i = (i + 1) & mask;
+			}
+			table[i] = child;
+		}
+
+		private static int spread(int h) {
+			return h ^ (h >>> 16);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.lotaris.jee.validation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads and writes the value of a field through method handles. Access checks are performed once
+ * when the accessor is created rather than on every access, which makes accessors suitable for
+ * modifiers (see {@link IModifier}) that run on every processed object.
+ *
+ * <p>Accessors are cached per field; use {@link #of(java.lang.reflect.Field)} to obtain one.</p>
+ *
+ * <p><pre>
+ *	FieldAccessor accessor = FieldAccessor.of(field);
+ *	Object value = accessor.get(object);
+ *	accessor.set(object, newValue);
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public final class FieldAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Accessors by declaring class and field name. Values are associated to the declaring class so
+	 * they do not prevent it from being unloaded.
+	 */
+	private static final ClassValue<ConcurrentMap<String, FieldAccessor>> ACCESSORS = new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+		@Override
+		protected ConcurrentMap<String, FieldAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * Returns the accessor for the specified field. The field is not modified; in particular, it
+	 * need not be accessible.
+	 *
+	 * @param field an instance field
+	 * @return an accessor for the field
+	 * @throws IllegalArgumentException if the field is null or static
+	 */
+	public static FieldAccessor of(Field field) {
+		if (field == null) {
+			throw new IllegalArgumentException("Field cannot be null");
+		}
+
+		final ConcurrentMap<String, FieldAccessor> accessors = ACCESSORS.get(field.getDeclaringClass());
+
+		final FieldAccessor accessor = accessors.get(field.getName());
+		if (accessor != null) {
+			return accessor;
+		}
+
+		final FieldAccessor newAccessor = new FieldAccessor(field);
+		final FieldAccessor existingAccessor = accessors.putIfAbsent(field.getName(), newAccessor);
+		return existingAccessor != null ? existingAccessor : newAccessor;
+	}
+
+	private final Field field;
+	private final MethodHandle getter;
+	/**
+	 * Setter handle (null for final fields, which are written through reflection).
+	 */
+	private final MethodHandle setter;
+
+	private FieldAccessor(Field field) {
+		if (Modifier.isStatic(field.getModifiers())) {
+			throw new IllegalArgumentException("Field " + field + " is static");
+		}
+
+		// use a copy to leave the accessibility of the original field untouched
+		try {
+			this.field = field.getDeclaringClass().getDeclaredField(field.getName());
+		} catch (NoSuchFieldException ex) {
+			throw new IllegalArgumentException("Field " + field + " could not be found in its declaring class", ex);
+		}
+		this.field.setAccessible(true);
+
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			this.getter = lookup.unreflectGetter(this.field).asType(GETTER_TYPE);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalArgumentException("Field " + field + " cannot be read", ex);
+		}
+
+		MethodHandle fieldSetter;
+		try {
+			fieldSetter = lookup.unreflectSetter(this.field).asType(SETTER_TYPE);
+		} catch (IllegalAccessException ex) {
+			fieldSetter = null;
+		}
+		this.setter = fieldSetter;
+	}
+
+	/**
+	 * Returns the value of the field in the specified object. Primitive values are boxed.
+	 *
+	 * @param object the object whose field to read
+	 * @return the value of the field
+	 * @throws IllegalArgumentException if the object is not an instance of the declaring class
+	 */
+	public Object get(Object object) {
+		try {
+			return (Object) getter.invokeExact(object);
+		} catch (ClassCastException | NullPointerException ex) {
+			throw new IllegalArgumentException("Cannot read field " + field + " of " + describe(object), ex);
+		} catch (RuntimeException | Error ex) {
+			throw ex;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Could not read field " + field, t);
+		}
+	}
+
+	/**
+	 * Sets the value of the field in the specified object. Primitive values must be boxed.
+	 *
+	 * @param object the object whose field to write
+	 * @param value the new value
+	 * @throws IllegalArgumentException if the object is not an instance of the declaring class or
+	 * the value cannot be assigned to the field
+	 */
+	public void set(Object object, Object value) {
+		if (setter == null) {
+			setWithReflection(object, value);
+			return;
+		}
+
+		try {
+			setter.invokeExact(object, value);
+		} catch (ClassCastException | NullPointerException ex) {
+			throw new IllegalArgumentException("Cannot set field " + field + " of " + describe(object) + " to " + describe(value), ex);
+		} catch (RuntimeException | Error ex) {
+			throw ex;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Could not set field " + field, t);
+		}
+	}
+
+	/**
+	 * Returns the field this accessor reads and writes. The returned field is accessible and must
+	 * not be modified.
+	 *
+	 * @return the field
+	 */
+	public Field getField() {
+		return field;
+	}
+
+	private void setWithReflection(Object object, Object value) {
+		try {
+			field.set(object, value);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException("Could not set field " + field, ex);
+		}
+	}
+
+	private static String describe(Object object) {
+		return object != null ? "an instance of " + object.getClass().getName() : "null";
+	}
+}
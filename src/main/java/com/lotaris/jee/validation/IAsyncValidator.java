@@ -0,0 +1,44 @@
+package com.lotaris.jee.validation;
+
+/**
+ * A validation which completes asynchronously, typically because it needs I/O (e.g. checking that
+ * a name is unique in a remote service). Errors are collected into the supplied validation context
+ * and the validator notifies the supplied callback once it is done.
+ *
+ * <p><pre>
+ *	public void collectErrors(final UserTO user, final IValidationContext context, final IValidationCallback callback) {
+ *		userService.findByNameAsync(user.getName(), new UserServiceCallback() {
+ *			public void found(User existingUser) {
+ *				if (existingUser != null) {
+ *					context.addError("/name", ErrorLocationType.JSON, ErrorCode.NAME_TAKEN, "Name is already taken");
+ *				}
+ *				callback.completed();
+ *			}
+ *			public void failed(Exception e) {
+ *				callback.failed(e);
+ *			}
+ *		});
+ *	}
+ * </pre></p>
+ *
+ * <p>Asynchronous validators run concurrently, each with its own validation context; they can see
+ * errors added before they were started but not errors added by other asynchronous validators.
+ * The context must not be used after the callback has been notified.</p>
+ *
+ * @param <T> the type of object to validate
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext#validateAsyncWith(com.lotaris.jee.validation.IAsyncValidator[])
+ */
+public interface IAsyncValidator<T> {
+
+	/**
+	 * Starts validating the specified object. The callback must be notified exactly once, from any
+	 * thread, when validation is complete or has failed. Exceptions thrown by this method are
+	 * equivalent to notifying a failure.
+	 *
+	 * @param object the object to validate
+	 * @param context the context used to add and keep track of errors during validation
+	 * @param callback the callback to notify once validation is complete
+	 */
+	void collectErrors(T object, IValidationContext context, IValidationCallback callback);
+}
@@ -0,0 +1,39 @@
+package com.lotaris.jee.validation;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves many keys at once, typically with a single query (e.g. fetching all the products
+ * referenced by the items of an order). Validators register lookups with
+ * {@link IValidationContext#deferLookup(com.lotaris.jee.validation.IBatchResolver, java.lang.Object, com.lotaris.jee.validation.IDeferredCheck)};
+ * the context calls each resolver once with the keys of all its lookups.
+ *
+ * <p><pre>
+ *	public class ProductResolver implements IBatchResolver&lt;Long, Product&gt; {
+ *
+ *		public Map&lt;Long, Product&gt; resolve(Set&lt;Long&gt; ids) {
+ *			final Map&lt;Long, Product&gt; products = new HashMap&lt;&gt;();
+ *			for (Product product : productDao.findByIds(ids)) {
+ *				products.put(product.getId(), product);
+ *			}
+ *			return products;
+ *		}
+ *	}
+ * </pre></p>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of resolved value
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see IDeferredCheck
+ */
+public interface IBatchResolver<K, V> {
+
+	/**
+	 * Resolves the specified keys.
+	 *
+	 * @param keys the keys to resolve (never empty)
+	 * @return the resolved values by key (keys which could not be resolved may be omitted)
+	 */
+	Map<K, V> resolve(Set<K> keys);
+}
@@ -0,0 +1,33 @@
+package com.lotaris.jee.validation;
+
+/**
+ * Validation which needs a value resolved by an {@link IBatchResolver}. It is called once the
+ * resolver has resolved the keys of all lookups registered with
+ * {@link IValidationContext#deferLookup(com.lotaris.jee.validation.IBatchResolver, java.lang.Object, com.lotaris.jee.validation.IDeferredCheck)}.
+ *
+ * <p><pre>
+ *	context.deferLookup(productResolver, item.getProductId(), new IDeferredCheck&lt;Long, Product&gt;() {
+ *		public void check(Long id, Product product, IValidationContext context) {
+ *			if (product == null) {
+ *				context.addError("/productId", ErrorLocationType.JSON, ErrorCode.UNKNOWN_PRODUCT, "No product found with ID %d", id);
+ *			}
+ *		}
+ *	});
+ * </pre></p>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of resolved value
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public interface IDeferredCheck<K, V> {
+
+	/**
+	 * Validates the resolved value. The current location of the context is the location at which
+	 * the lookup was registered, so relative error locations are the same as in the validator.
+	 *
+	 * @param key the key of the lookup
+	 * @param value the value resolved for the key, or null if it could not be resolved
+	 * @param context the context used to add and keep track of errors
+	 */
+	void check(K key, V value, IValidationContext context);
+}
@@ -40,6 +40,15 @@ public interface IErrorCollector {
 	 */
 	boolean hasErrors(String absoluteLocation);
 
+	/**
+	 * Indicates whether this collector has errors at or under the specified location. This is the
+	 * same as {@link #hasErrors(java.lang.String)} but avoids rendering the location to a string.
+	 *
+	 * @param absoluteLocation a JSON Pointer
+	 * @return true if at least one error with the specified location was added to this collector
+	 */
+	boolean hasErrors(IJsonPointer absoluteLocation);
+
 	/**
 	 * Indicates whether this collector has errors with the specified code.
 	 *
@@ -47,4 +56,14 @@ public interface IErrorCollector {
 	 * @return true if at least one error with the specified code was added to this collector
 	 */
 	boolean hasErrors(IErrorCode code);
+
+	/**
+	 * Indicates whether this collector has reached its error limit for the specified location,
+	 * i.e. whether further errors at that location would be discarded. Validation of that location
+	 * can then be skipped.
+	 *
+	 * @param absoluteLocation a JSON Pointer, or null for errors with no location
+	 * @return true if no more errors will be accepted at the specified location
+	 */
+	boolean isErrorLimitReached(String absoluteLocation);
 }
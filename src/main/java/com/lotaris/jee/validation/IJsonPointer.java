@@ -0,0 +1,43 @@
+package com.lotaris.jee.validation;
+
+/**
+ * Read-only view of a JSON Pointer (see http://tools.ietf.org/html/rfc6901) as a sequence of path
+ * fragments. Reserved characters in the fragments are escaped.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see JsonPointer
+ * @see ImmutableJsonPointer
+ */
+public interface IJsonPointer {
+
+	/**
+	 * Returns the number of path fragments in this pointer.
+	 *
+	 * @return the number of path fragments (0 if the pointer points to the root)
+	 */
+	int size();
+
+	/**
+	 * Returns the path fragment at the specified index.
+	 *
+	 * @param index the index of the fragment to retrieve
+	 * @return the (escaped) path fragment
+	 * @throws IndexOutOfBoundsException if the index is out of bounds (zero-based)
+	 */
+	String fragmentAt(int index);
+
+	/**
+	 * Indicates whether this pointer points to the root of the JSON document.
+	 *
+	 * @return true when the pointer is <tt>""</tt>
+	 */
+	boolean isRoot();
+
+	/**
+	 * Returns the string form of this pointer (e.g. <tt>"/person/children/0"</tt>).
+	 *
+	 * @return a JSON Pointer string
+	 */
+	@Override
+	String toString();
+}
@@ -9,6 +9,9 @@ import java.lang.reflect.Field;
  * strings must be trimmed before they are validated. A modifier is the implementation of such an
  * operation.
  *
+ * <p>Modifiers run on every processed object; use a {@link FieldAccessor} to read and write the
+ * field without repeated access checks.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  * @see Trim
  */
@@ -0,0 +1,25 @@
+package com.lotaris.jee.validation;
+
+/**
+ * Notified by an {@link IAsyncValidator} when it is done.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public interface IValidationCallback {
+
+	/**
+	 * Indicates that validation is complete and that all errors have been added to the validation
+	 * context.
+	 *
+	 * @throws IllegalStateException if the callback was already notified
+	 */
+	void completed();
+
+	/**
+	 * Indicates that validation could not be completed (e.g. a remote service is unavailable).
+	 *
+	 * @param throwable the cause of the failure
+	 * @throws IllegalStateException if the callback was already notified
+	 */
+	void failed(Throwable throwable);
+}
@@ -93,6 +93,16 @@ public interface IValidationContext {
 	 */
 	boolean hasErrors(IErrorCode code);
 
+	/**
+	 * Indicates whether the maximum number of errors has been reached for the current location.
+	 * Further errors at or under the current location will be discarded, so validation of the
+	 * current object can be skipped.
+	 *
+	 * @return true if no more errors will be accepted at the current location
+	 * @see ApiErrorResponse#setMaxErrors(int)
+	 */
+	boolean isErrorLimitReached();
+
 	/**
 	 * Returns the absolute location of the specified path, relative to the current location.
 	 * Calling this with the empty string returns the current (absolute) location. Calling with null
@@ -175,4 +185,39 @@ public interface IValidationContext {
 	 * @throws IllegalArgumentException if no state object was registered for that class
 	 */
 	<T> T getState(Class<? extends T> stateClass) throws IllegalArgumentException;
+
+	/**
+	 * Registers a lookup to be resolved later together with the other lookups of the same
+	 * resolver. This avoids one query per element when validating lists of references: each
+	 * element registers a lookup, then {@link #resolveDeferredLookups()} calls each resolver once
+	 * with all keys and runs the checks.
+	 *
+	 * <p><pre>
+	 * // in the validator of each order item
+	 * context.deferLookup(productResolver, item.getProductId(), productExistsCheck);
+	 * </pre></p>
+	 *
+	 * <p>The check is run at the current location, so it can add errors with the same relative
+	 * locations as the validator.</p>
+	 *
+	 * @param <K> the type of key
+	 * @param <V> the type of resolved value
+	 * @param resolver the resolver used to resolve the key (lookups are batched by resolver)
+	 * @param key the key to resolve
+	 * @param check the validation to run with the resolved value
+	 * @return this context
+	 * @see IBatchResolver
+	 */
+	<K, V> IValidationContext deferLookup(IBatchResolver<K, V> resolver, K key, IDeferredCheck<K, V> check);
+
+	/**
+	 * Resolves the lookups registered with <tt>deferLookup</tt>: each resolver is called once with
+	 * the keys of all its lookups, then the checks are run in the order they were registered. If
+	 * checks register more lookups, those are resolved in the same way until none are left.
+	 *
+	 * <p>This is called by the validation preprocessor after all validators have run.</p>
+	 *
+	 * @return this context
+	 */
+	IValidationContext resolveDeferredLookups();
 }
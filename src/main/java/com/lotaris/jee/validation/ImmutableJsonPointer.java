@@ -0,0 +1,401 @@
+package com.lotaris.jee.validation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable JSON Pointer (see http://tools.ietf.org/html/rfc6901). Unlike {@link JsonPointer},
+ * adding a path fragment with <tt>child</tt> returns a new pointer which shares this pointer as its
+ * parent.
+ *
+ * <p><pre>
+ *	ImmutableJsonPointer items = ImmutableJsonPointer.root().child("items");
+ *
+ *	items.child(0).child("name").toString(); // "/items/0/name"
+ *	items.child(0).parent() == items.child(1).parent(); // true
+ *
+ *	ImmutableJsonPointer.parse("/items/0/name") == items.child(0).child("name"); // true
+ * </pre></p>
+ *
+ * <h2>Interning</h2>
+ *
+ * <p>Pointers are interned in a global canonical pool: building the same pointer twice returns the
+ * same instance, so pointers can be compared by identity and their hash code is computed only once.
+ * The pool is bounded to {@link #MAX_INTERNED_POINTERS} pointers; once it is full, new pointers are
+ * created without being interned. Such pointers are still equal to interned pointers with the same
+ * fragments (see {@link #equals(java.lang.Object)}), so they can be used transparently.</p>
+ *
+ * <p>Pointers built from request data (list indexes, map keys) or only used to query errors
+ * should be created with {@link #parseUninterned(java.lang.String)} or
+ * {@link #snapshot(com.lotaris.jee.validation.IJsonPointer)}, which reuse pointers already in
+ * the pool but never add to it, so that such pointers do not fill the pool for good.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see JsonPointer
+ * @see http://tools.ietf.org/html/rfc6901
+ */
+public final class ImmutableJsonPointer implements IJsonPointer {
+
+	/**
+	 * The maximum number of pointers kept in the canonical pool.
+	 */
+	public static final int MAX_INTERNED_POINTERS = 65536;
+
+	private static final ImmutableJsonPointer ROOT = new ImmutableJsonPointer(null, null, true);
+	private static final AtomicInteger NUMBER_OF_INTERNED_POINTERS = new AtomicInteger();
+
+	/**
+	 * The parent pointer (null for the root).
+	 */
+	private final ImmutableJsonPointer parent;
+	/**
+	 * The last (escaped) path fragment (null for the root).
+	 */
+	private final String fragment;
+	/**
+	 * The number of path fragments.
+	 */
+	private final int size;
+	private final int hashCode;
+	/**
+	 * Whether this pointer is in the canonical pool.
+	 */
+	private final boolean interned;
+	/**
+	 * The interned child pointers by (escaped) path fragment. Lazily created.
+	 */
+	private volatile ConcurrentMap<String, ImmutableJsonPointer> children;
+	/**
+	 * The rendered pointer. Lazily created.
+	 */
+	private volatile String string;
+
+	private ImmutableJsonPointer(ImmutableJsonPointer parent, String fragment, boolean interned) {
+		this.parent = parent;
+		this.fragment = fragment;
+		this.interned = interned;
+
+		if (parent == null) {
+			this.size = 0;
+			this.hashCode = 0;
+			this.string = "";
+		} else {
+			this.size = parent.size + 1;
+			this.hashCode = 31 * parent.hashCode + fragment.hashCode();
+		}
+	}
+
+	/**
+	 * Returns the pointer to the root of the JSON document.
+	 *
+	 * @return the root pointer (<tt>""</tt>)
+	 */
+	public static ImmutableJsonPointer root() {
+		return ROOT;
+	}
+
+	/**
+	 * Returns the pointer represented by the specified string. Reserved JSON Pointer characters
+	 * in the string should already be escaped. The leading separator is optional, so
+	 * <tt>"/foo/bar"</tt> and <tt>"foo/bar"</tt> return the same pointer.
+	 *
+	 * @param pointer a JSON Pointer string (the empty string is the root)
+	 * @return a pointer
+	 */
+	public static ImmutableJsonPointer parse(String pointer) {
+		return ROOT.resolve(pointer, true);
+	}
+
+	/**
+	 * Returns the pointer represented by the specified string without adding it to the canonical
+	 * pool: the interned pointer is returned if it already exists, otherwise a new pointer is
+	 * created. See {@link #parse(java.lang.String)}.
+	 *
+	 * @param pointer a JSON Pointer string (the empty string is the root)
+	 * @return a pointer
+	 */
+	public static ImmutableJsonPointer parseUninterned(String pointer) {
+		return ROOT.resolve(pointer, false);
+	}
+
+	/**
+	 * Returns an immutable pointer with the same path fragments as the specified pointer.
+	 *
+	 * @param pointer the pointer to copy
+	 * @return an immutable pointer (the same instance if it already is one)
+	 */
+	public static ImmutableJsonPointer of(IJsonPointer pointer) {
+		if (pointer instanceof ImmutableJsonPointer) {
+			return (ImmutableJsonPointer) pointer;
+		}
+
+		ImmutableJsonPointer result = ROOT;
+
+		final int n = pointer.size();
+		for (int i = 0; i < n; i++) {
+			result = result.escapedChild(pointer.fragmentAt(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns an immutable pointer with the same path fragments as the specified pointer without
+	 * adding it to the canonical pool: the interned pointer is returned if it already exists,
+	 * otherwise a new pointer is created. This is meant for mutable pointers whose current value
+	 * must be kept, e.g. the current location of a validation context.
+	 *
+	 * @param pointer the pointer to copy
+	 * @return an immutable pointer (the same instance if it already is one)
+	 */
+	public static ImmutableJsonPointer snapshot(IJsonPointer pointer) {
+		if (pointer instanceof ImmutableJsonPointer) {
+			return (ImmutableJsonPointer) pointer;
+		}
+
+		ImmutableJsonPointer result = ROOT;
+
+		final int n = pointer.size();
+		for (int i = 0; i < n; i++) {
+			result = result.existingOrNewChild(pointer.fragmentAt(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns a pointer to the specified property of the value this pointer points to. Reserved
+	 * characters are escaped.
+	 *
+	 * @param name the property name
+	 * @return the child pointer
+	 */
+	public ImmutableJsonPointer child(String name) {
+		return escapedChild(JsonPointer.escapeFragment(name));
+	}
+
+	/**
+	 * Returns a pointer to the specified array element of the value this pointer points to.
+	 *
+	 * @param index the array index
+	 * @return the child pointer
+	 */
+	public ImmutableJsonPointer child(int index) {
+		return escapedChild(Integer.toString(index));
+	}
+
+	/**
+	 * Returns the pointer obtained by adding the path fragments of the specified string to this
+	 * pointer. This method performs no escaping so reserved JSON Pointer characters should already
+	 * be escaped (see {@link JsonPointer#add(java.lang.String)}).
+	 *
+	 * @param relativePointer the path fragments to add (the empty string adds none)
+	 * @return the resolved pointer
+	 */
+	public ImmutableJsonPointer resolve(String relativePointer) {
+		return resolve(relativePointer, true);
+	}
+
+	private ImmutableJsonPointer resolve(String relativePointer, boolean intern) {
+		if (relativePointer.isEmpty()) {
+			return this;
+		}
+
+		ImmutableJsonPointer result = this;
+
+		// skip the leading separator, if any
+		int start = relativePointer.charAt(0) == '/' ? 1 : 0;
+
+		while (true) {
+			final int end = relativePointer.indexOf('/', start);
+			final String fragment = end < 0 ? relativePointer.substring(start) : relativePointer.substring(start, end);
+			result = intern ? result.escapedChild(fragment) : result.existingOrNewChild(fragment);
+
+			if (end < 0) {
+				return result;
+			}
+
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Returns the parent of this pointer, i.e. the pointer without its last path fragment.
+	 *
+	 * @return the parent pointer, or null if this pointer is the root
+	 */
+	public ImmutableJsonPointer parent() {
+		return parent;
+	}
+
+	/**
+	 * Returns the last path fragment of this pointer.
+	 *
+	 * @return the last (escaped) path fragment, or null if this pointer is the root
+	 */
+	public String fragment() {
+		return fragment;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds the path fragments of this pointer to the specified mutable pointer, without rendering
+	 * and parsing them.
+	 *
+	 * @param pointer the pointer to add the fragments to
+	 */
+	void addTo(JsonPointer pointer) {
+		if (parent != null) {
+			parent.addTo(pointer);
+			pointer.addEscapedFragment(fragment);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>This is a linear operation: fragments are found by walking up the parent pointers.</p>
+	 */
+	@Override
+	public String fragmentAt(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		ImmutableJsonPointer current = this;
+		for (int i = size - 1; i > index; i--) {
+			current = current.parent;
+		}
+
+		return current.fragment;
+	}
+
+	@Override
+	public boolean isRoot() {
+		return parent == null;
+	}
+
+	/**
+	 * Indicates whether this pointer is equal to or an ancestor of the specified pointer.
+	 *
+	 * @param pointer the pointer to check
+	 * @return true if the specified pointer is this pointer or one of its descendants
+	 */
+	public boolean isPrefixOf(ImmutableJsonPointer pointer) {
+
+		ImmutableJsonPointer current = pointer;
+		while (current != null && current.size > size) {
+			current = current.parent;
+		}
+
+		return equals(current);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof ImmutableJsonPointer)) {
+			return false;
+		}
+
+		final ImmutableJsonPointer other = (ImmutableJsonPointer) obj;
+
+		// two interned pointers are only equal if they are the same instance
+		if (interned && other.interned) {
+			return false;
+		}
+
+		return hashCode == other.hashCode && size == other.size && fragment.equals(other.fragment) && parent.equals(other.parent);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		String result = string;
+		if (result == null) {
+			result = parent.toString() + "/" + fragment;
+			string = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the interned child pointer with the specified escaped fragment if it exists, or a
+	 * new pointer outside of the pool.
+	 *
+	 * @param escapedFragment the escaped path fragment
+	 * @return the child pointer
+	 */
+	private ImmutableJsonPointer existingOrNewChild(String escapedFragment) {
+
+		final ConcurrentMap<String, ImmutableJsonPointer> currentChildren = children;
+		if (currentChildren != null) {
+			final ImmutableJsonPointer child = currentChildren.get(escapedFragment);
+			if (child != null) {
+				return child;
+			}
+		}
+
+		return new ImmutableJsonPointer(this, escapedFragment, false);
+	}
+
+	/**
+	 * Returns the child pointer with the specified escaped fragment, interning it if possible.
+	 *
+	 * @param escapedFragment the escaped path fragment
+	 * @return the child pointer
+	 */
+	private ImmutableJsonPointer escapedChild(String escapedFragment) {
+
+		// children of pointers outside of the pool are not interned either
+		if (!interned) {
+			return new ImmutableJsonPointer(this, escapedFragment, false);
+		}
+
+		ConcurrentMap<String, ImmutableJsonPointer> currentChildren = children;
+		if (currentChildren != null) {
+			final ImmutableJsonPointer child = currentChildren.get(escapedFragment);
+			if (child != null) {
+				return child;
+			}
+		}
+
+		// the pool is full
+		if (NUMBER_OF_INTERNED_POINTERS.incrementAndGet() > MAX_INTERNED_POINTERS) {
+			NUMBER_OF_INTERNED_POINTERS.decrementAndGet();
+			return new ImmutableJsonPointer(this, escapedFragment, false);
+		}
+
+		if (currentChildren == null) {
+			synchronized (this) {
+				currentChildren = children;
+				if (currentChildren == null) {
+					currentChildren = new ConcurrentHashMap<>(4);
+					children = currentChildren;
+				}
+			}
+		}
+
+		final ImmutableJsonPointer child = new ImmutableJsonPointer(this, escapedFragment, true);
+		final ImmutableJsonPointer existingChild = currentChildren.putIfAbsent(escapedFragment, child);
+		if (existingChild != null) {
+			// another thread interned the same pointer first
+			NUMBER_OF_INTERNED_POINTERS.decrementAndGet();
+			return existingChild;
+		}
+
+		return child;
+	}
+}
@@ -1,6 +1,6 @@
 package com.lotaris.jee.validation;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * JSON Pointer that identifies a value within a JSON document (see
@@ -24,21 +24,72 @@ import java.util.LinkedList;
  *	pointer.root().toString() // ""
  * </pre></p>
  *
+ * <p>Fragments are stored in a growable array, so adding, removing and accessing a fragment by
+ * index are constant-time operations. The string form of the pointer is rendered incrementally as
+ * fragments are added and is cached for each depth: calling {@link #toString()} repeatedly, or
+ * after popping back to a previously rendered location, returns the same string instance.</p>
+ *
+ * <p>Popped fragments are kept until a different fragment is added at their position. Adding the
+ * same fragments again, e.g. when validating the same property of each element of a list, neither
+ * creates substrings nor renders the pointer again.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see ImmutableJsonPointer
  * @see http://tools.ietf.org/html/rfc6901
  */
-public class JsonPointer {
+public class JsonPointer implements IJsonPointer {
 
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final String[] NO_STRINGS = new String[0];
+	private static final int[] NO_OFFSETS = new int[0];
+	/**
+	 * The path fragments of the first array indexes, shared to avoid converting indexes of list
+	 * elements to strings over and over again.
+	 */
+	private static final String[] INDEX_FRAGMENTS = new String[256];
+
+	static {
+		for (int i = 0; i < INDEX_FRAGMENTS.length; i++) {
+			INDEX_FRAGMENTS[i] = Integer.toString(i);
+		}
+	}
+
+	/**
+	 * The individual path fragments. Only the first <tt>size</tt> elements are in use.
+	 */
+	private String[] pathFragments;
+	/**
+	 * The number of path fragments.
+	 */
+	private int size;
+	/**
+	 * The number of path fragments including those which were popped but are still valid after the
+	 * current ones (always greater than or equal to <tt>size</tt>).
+	 */
+	private int shadowSize;
+	/**
+	 * The rendered pointer, kept in sync with the path fragments (null until the first fragment is
+	 * added).
+	 */
+	private StringBuilder rendered;
 	/**
-	 * The individual path fragments.
+	 * The offset in the rendered pointer at which each path fragment (and its separator) starts.
 	 */
-	private LinkedList<String> pathFragments;
+	private int[] offsets;
+	/**
+	 * The rendered string of the pointer truncated after each path fragment. An entry is only
+	 * invalidated when the corresponding fragment is replaced.
+	 */
+	private String[] renderedStrings;
 
 	/**
-	 * Constructs a pointer (points to the root of the JSON document by default).
+	 * Constructs a pointer (points to the root of the JSON document by default). Nothing is
+	 * allocated until the first path fragment is added.
 	 */
 	public JsonPointer() {
-		pathFragments = new LinkedList<>();
+		pathFragments = NO_STRINGS;
+		offsets = NO_OFFSETS;
+		renderedStrings = NO_STRINGS;
 	}
 
 	/**
@@ -56,14 +107,22 @@ public class JsonPointer {
 			return 0;
 		}
 
-		final String[] splitFragments = fragments.replaceFirst("^\\/", "").split("\\/", -1);
+		// skip the leading separator, if any
+		int start = !fragments.isEmpty() && fragments.charAt(0) == '/' ? 1 : 0;
 
-		final int n = splitFragments.length;
-		for (int i = 0; i < n; i++) {
-			pathFragments.add(splitFragments[i]);
-		}
+		int n = 0;
+		while (true) {
+			final int end = fragments.indexOf('/', start);
+			n++;
+
+			if (end < 0) {
+				push(fragments, start, fragments.length());
+				return n;
+			}
 
-		return n;
+			push(fragments, start, end);
+			start = end + 1;
+		}
 	}
 
 	/**
@@ -73,10 +132,19 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer path(String fragment) {
-		pathFragments.addLast(escapeFragment(fragment));
+		push(escapeFragment(fragment));
 		return this;
 	}
 
+	/**
+	 * Adds an already escaped path fragment.
+	 *
+	 * @param fragment the escaped path fragment
+	 */
+	void addEscapedFragment(String fragment) {
+		push(fragment);
+	}
+
 	/**
 	 * Adds a path fragment representing an array index.
 	 *
@@ -84,7 +152,7 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer path(int index) {
-		pathFragments.addLast(Integer.toString(index));
+		push(index >= 0 && index < INDEX_FRAGMENTS.length ? INDEX_FRAGMENTS[index] : Integer.toString(index));
 		return this;
 	}
 
@@ -97,10 +165,7 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer pop() {
-		if (!pathFragments.isEmpty()) {
-			pathFragments.removeLast();
-		}
-		return this;
+		return pop(1);
 	}
 
 	/**
@@ -110,10 +175,15 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer pop(int n) {
-		while (n >= 1 && !pathFragments.isEmpty()) {
-			pathFragments.removeLast();
-			n--;
+		if (n < 1 || size == 0) {
+			return this;
 		}
+
+		// popped fragments are kept in case they are added again
+		final int newSize = n >= size ? 0 : size - n;
+		rendered.setLength(offsets[newSize]);
+		size = newSize;
+
 		return this;
 	}
 
@@ -124,9 +194,29 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer shift() {
-		if (!pathFragments.isEmpty()) {
-			pathFragments.removeFirst();
+		if (size == 0) {
+			return this;
+		}
+
+		// popped fragments are discarded
+		Arrays.fill(pathFragments, size, shadowSize, null);
+		Arrays.fill(renderedStrings, size, shadowSize, null);
+
+		// every remaining fragment moves one position to the left
+		final int shiftedLength = size >= 2 ? offsets[1] : rendered.length();
+		for (int i = 1; i < size; i++) {
+			pathFragments[i - 1] = pathFragments[i];
+			offsets[i - 1] = offsets[i] - shiftedLength;
 		}
+
+		size--;
+		shadowSize = size;
+		pathFragments[size] = null;
+		rendered.delete(0, shiftedLength);
+
+		// all prefixes have changed
+		Arrays.fill(renderedStrings, 0, size, null);
+
 		return this;
 	}
 
@@ -136,8 +226,7 @@ public class JsonPointer {
 	 * @return this updated pointer
 	 */
 	public JsonPointer root() {
-		pathFragments.clear();
-		return this;
+		return pop(size);
 	}
 
 	/**
@@ -145,8 +234,19 @@ public class JsonPointer {
 	 *
 	 * @return true when the pointer is <tt>""</tt>
 	 */
+	@Override
 	public boolean isRoot() {
-		return pathFragments.isEmpty();
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of path fragments in this pointer.
+	 *
+	 * @return the number of path fragments (0 if the pointer points to the root)
+	 */
+	@Override
+	public int size() {
+		return size;
 	}
 
 	/**
@@ -156,31 +256,189 @@ public class JsonPointer {
 	 * @return the path fragment
 	 * @throws IndexOutOfBoundsException if the index is out of bounds (zero-based)
 	 */
+	@Override
 	public String fragmentAt(int index) {
-		return pathFragments.get(index);
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return pathFragments[index];
+	}
+
+	/**
+	 * Returns the path fragment at the specified index with JSON Pointer reserved characters
+	 * unescaped. For example, the fragment <tt>"a~1b"</tt> is returned as <tt>"a/b"</tt>.
+	 *
+	 * @param index the index of the fragment to retrieve
+	 * @return the unescaped path fragment
+	 * @throws IndexOutOfBoundsException if the index is out of bounds (zero-based)
+	 * @throws IllegalArgumentException if the fragment contains an invalid escape sequence
+	 */
+	public String unescapedFragmentAt(int index) {
+		return unescapeFragment(fragmentAt(index));
 	}
 
 	@Override
 	public String toString() {
+		if (size == 0) {
+			return "";
+		}
 
-		final StringBuilder builder = new StringBuilder();
+		String string = renderedStrings[size - 1];
+		if (string == null) {
+			string = rendered.toString();
+			renderedStrings[size - 1] = string;
+		}
 
-		for (String fragment : pathFragments) {
-			builder.append("/");
-			builder.append(fragment);
+		return string;
+	}
+
+	/**
+	 * Appends an already escaped path fragment contained in the specified string.
+	 *
+	 * @param fragments the string containing the escaped path fragment
+	 * @param start the index of the first character of the fragment
+	 * @param end the index after the last character of the fragment
+	 */
+	private void push(String fragments, int start, int end) {
+		if (size < shadowSize) {
+			final String poppedFragment = pathFragments[size];
+			if (poppedFragment.length() == end - start && fragments.startsWith(poppedFragment, start)) {
+				restore();
+				return;
+			}
 		}
 
-		return builder.toString();
+		push(fragments.substring(start, end));
+	}
+
+	/**
+	 * Appends an already escaped path fragment.
+	 *
+	 * @param fragment the escaped path fragment
+	 */
+	private void push(String fragment) {
+		if (size < shadowSize) {
+			if (fragment.equals(pathFragments[size])) {
+				restore();
+				return;
+			}
+
+			// popped fragments at and after this position are no longer valid
+			Arrays.fill(pathFragments, size, shadowSize, null);
+			Arrays.fill(renderedStrings, size, shadowSize, null);
+			shadowSize = size;
+		}
+
+		if (size == pathFragments.length) {
+			final int capacity = size == 0 ? DEFAULT_CAPACITY : size * 2;
+			pathFragments = Arrays.copyOf(pathFragments, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			renderedStrings = Arrays.copyOf(renderedStrings, capacity);
+		}
+
+		if (rendered == null) {
+			rendered = new StringBuilder();
+		}
+
+		offsets[size] = rendered.length();
+		rendered.append('/').append(fragment);
+		pathFragments[size] = fragment;
+		renderedStrings[size] = null;
+		size++;
+		shadowSize = size;
+	}
+
+	/**
+	 * Adds back the popped path fragment at the current position. Its rendered string, if any, is
+	 * still valid since the previous fragments are the same.
+	 */
+	private void restore() {
+		offsets[size] = rendered.length();
+		rendered.append('/').append(pathFragments[size]);
+		size++;
 	}
 
 	/**
-	 * Escapes JSON pointer reserved characters.
+	 * Escapes JSON pointer reserved characters: <tt>"~"</tt> becomes <tt>"~0"</tt> and
+	 * <tt>"/"</tt> becomes <tt>"~1"</tt>. The same string is returned if there is nothing to
+	 * escape.
 	 *
 	 * @param pathFragment a path fragment which may contain reserved characters
 	 * @return the escaped path fragment
 	 * @see http://tools.ietf.org/html/rfc6901#section-3
 	 */
-	private String escapeFragment(String pathFragment) {
-		return pathFragment.replaceAll("~", "~0").replaceAll("\\/", "~1");
+	public static String escapeFragment(String pathFragment) {
+
+		final int n = pathFragment.length();
+
+		int i = 0;
+		while (i < n && !isReservedCharacter(pathFragment.charAt(i))) {
+			i++;
+		}
+
+		if (i == n) {
+			return pathFragment;
+		}
+
+		final StringBuilder builder = new StringBuilder(n + 4);
+		builder.append(pathFragment, 0, i);
+
+		for (; i < n; i++) {
+			final char c = pathFragment.charAt(i);
+			if (c == '~') {
+				builder.append("~0");
+			} else if (c == '/') {
+				builder.append("~1");
+			} else {
+				builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Unescapes JSON pointer reserved characters: <tt>"~1"</tt> becomes <tt>"/"</tt> and
+	 * <tt>"~0"</tt> becomes <tt>"~"</tt>. This is the reverse of
+	 * {@link #escapeFragment(java.lang.String)}. The same string is returned if there is nothing
+	 * to unescape.
+	 *
+	 * @param pathFragment an escaped path fragment
+	 * @return the unescaped path fragment
+	 * @throws IllegalArgumentException if a <tt>"~"</tt> is not followed by <tt>"0"</tt> or
+	 * <tt>"1"</tt>
+	 * @see http://tools.ietf.org/html/rfc6901#section-4
+	 */
+	public static String unescapeFragment(String pathFragment) {
+
+		int i = pathFragment.indexOf('~');
+		if (i < 0) {
+			return pathFragment;
+		}
+
+		final int n = pathFragment.length();
+		final StringBuilder builder = new StringBuilder(n);
+		builder.append(pathFragment, 0, i);
+
+		for (; i < n; i++) {
+			final char c = pathFragment.charAt(i);
+			if (c != '~') {
+				builder.append(c);
+			} else if (i + 1 < n && pathFragment.charAt(i + 1) == '0') {
+				builder.append('~');
+				i++;
+			} else if (i + 1 < n && pathFragment.charAt(i + 1) == '1') {
+				builder.append('/');
+				i++;
+			} else {
+				throw new IllegalArgumentException("Invalid escape sequence at index " + i + " in JSON Pointer fragment \"" + pathFragment + "\"");
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private static boolean isReservedCharacter(char c) {
+		return c == '~' || c == '/';
 	}
 }
@@ -1,8 +1,21 @@
 package com.lotaris.jee.validation;
 
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Control object responsible for keeping track of errors and their location during validation.
@@ -16,6 +29,9 @@ import java.util.Map;
  * of the JSON document. Path fragments are added and popped as the object structure is traversed
  * with <tt>validateObject(s)</tt> methods.
  *
+ * <p>Large lists can be validated in parallel, see
+ * {@link #validateListsInParallel(java.util.concurrent.ExecutorService, int)}.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  * @see IValidator
  */
@@ -33,9 +49,35 @@ public class JsonValidationContext implements IValidationContext {
 	 */
 	private JsonPointer currentLocation;
 	/**
-	 * State objects to share between validators and with the caller.
+	 * State objects to share between validators and with the caller. Lazily created.
 	 */
 	private Map<Class, Object> states;
+	/**
+	 * The executor used to validate lists in parallel (null to validate them sequentially).
+	 */
+	private ExecutorService parallelExecutor;
+	/**
+	 * The minimum size of lists to validate in parallel.
+	 */
+	private int parallelThreshold;
+	/**
+	 * The monitor notified of validations and errors.
+	 */
+	private IValidationMonitor monitor;
+	/**
+	 * The context this context buffers errors for (null if errors are added to the collector
+	 * directly).
+	 */
+	private JsonValidationContext parent;
+	/**
+	 * The lookups to resolve, in the order they were registered. Lazily created.
+	 */
+	private List<DeferredLookup<?, ?>> deferredLookups;
+
+	/**
+	 * The default minimum size of lists to validate in parallel.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
 
 	/**
 	 * Constructs a new context.
@@ -45,12 +87,157 @@ public class JsonValidationContext implements IValidationContext {
 	public JsonValidationContext(IErrorCollector collector) {
 		this.collector = collector;
 		this.currentLocation = new JsonPointer();
-		this.states = new HashMap<>();
+		this.monitor = NoOpValidationMonitor.INSTANCE;
+	}
+
+	/**
+	 * Resets this context so that it can be reused with the same error collector: the current
+	 * location is moved back to the root of the JSON document, state objects and unresolved
+	 * lookups are removed, lists are validated sequentially again and the monitor is removed.
+	 * Errors are not removed from the collector.
+	 *
+	 * @return this context
+	 */
+	public JsonValidationContext reset() {
+		currentLocation.root();
+		if (states != null) {
+			states.clear();
+		}
+		parallelExecutor = null;
+		parallelThreshold = 0;
+		monitor = NoOpValidationMonitor.INSTANCE;
+		deferredLookups = null;
+		return this;
+	}
+
+	/**
+	 * Creates a context to validate part of a list in parallel with other parts. The context starts
+	 * at the current location of this context and has a read-only view of its states. Its lookups
+	 * are added to this context when its errors are flushed.
+	 *
+	 * @param buffer the object into which to collect errors
+	 * @return a new context
+	 */
+	private JsonValidationContext createChunkContext(IErrorCollector buffer) {
+
+		final JsonValidationContext chunkContext = new JsonValidationContext(buffer);
+		chunkContext.states = states != null ? Collections.unmodifiableMap(states) : Collections.<Class, Object>emptyMap();
+		chunkContext.monitor = monitor;
+		chunkContext.parent = this;
+
+		if (!currentLocation.isRoot()) {
+			chunkContext.currentLocation.add(currentLocation.toString());
+		}
+
+		return chunkContext;
+	}
+
+	/**
+	 * Returns a new context at the same location, with the same states and monitor,
+	 * whose errors and deferred lookups are kept in a buffer until {@link #flushBufferedErrors()}
+	 * is called. The buffered context sees the errors of this context and its own errors.
+	 *
+	 * <p>Several buffered contexts can be used concurrently, e.g. by asynchronous validators, as
+	 * long as this context is not modified until their errors are flushed. State objects cannot be
+	 * added to a buffered context, since they are shared with this context.</p>
+	 *
+	 * @return a buffered context
+	 */
+	public JsonValidationContext createBufferedContext() {
+		return createChunkContext(new BufferingErrorCollector(collector));
+	}
+
+	/**
+	 * Adds the errors buffered by this context to the error collector of the context it was
+	 * created from, in the order they were added, and clears the buffer. Unresolved lookups are
+	 * moved to that context.
+	 *
+	 * @throws IllegalStateException if this context was not created with
+	 * {@link #createBufferedContext()}
+	 */
+	public void flushBufferedErrors() {
+		if (parent == null) {
+			throw new IllegalStateException("Only buffered validation contexts can be flushed");
+		}
+
+		((BufferingErrorCollector) collector).flush();
+
+		if (deferredLookups != null && !deferredLookups.isEmpty()) {
+			parent.getDeferredLookups().addAll(deferredLookups);
+			deferredLookups.clear();
+		}
+	}
+
+	/**
+	 * Enables parallel validation of lists with <tt>validateObjects</tt>. Lists with at least
+	 * {@link #DEFAULT_PARALLEL_THRESHOLD} elements will be split into chunks validated
+	 * concurrently. See {@link #validateListsInParallel(java.util.concurrent.ExecutorService, int)}.
+	 *
+	 * @param executor the executor to run validations with
+	 * @return this context
+	 */
+	public JsonValidationContext validateListsInParallel(ExecutorService executor) {
+		return validateListsInParallel(executor, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Enables parallel validation of lists with <tt>validateObjects</tt>. Lists with at least the
+	 * specified number of elements will be split into chunks (one per thread of the executor if it
+	 * is a {@link ForkJoinPool}, or one per available processor otherwise). The first chunk is
+	 * validated by the calling thread and the others are submitted to the executor.
+	 *
+	 * <p>Each chunk is validated with its own location and its own error buffer. Validators can
+	 * see errors previously added to this context and errors added by the same chunk, but not
+	 * errors added by other chunks. Once all chunks are validated, their errors are added to this
+	 * context in the order of the list, so the result is the same as with sequential
+	 * validation. Chunks count their errors together against the error limit of this context and
+	 * stop once it is reached; which errors are then kept depends on timing.</p>
+	 *
+	 * <p>Note that the same validator instance is used by all threads, so it must be thread-safe,
+	 * as must state objects. State objects cannot be added while validating a list in parallel.
+	 * Nested lists are validated sequentially.</p>
+	 *
+	 * @param executor the executor to run validations with (null to validate lists sequentially)
+	 * @param threshold the minimum number of elements of a list for it to be validated in parallel
+	 * @return this context
+	 * @throws IllegalArgumentException if the threshold is smaller than 2
+	 */
+	public JsonValidationContext validateListsInParallel(ExecutorService executor, int threshold) {
+		if (threshold < 2) {
+			throw new IllegalArgumentException("Parallel validation threshold must be at least 2, got " + threshold);
+		}
+		this.parallelExecutor = executor;
+		this.parallelThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Reports the time taken by the validators of nested objects and lists, the errors added and
+	 * the number of list elements validated to the specified monitor. The monitor must be
+	 * thread-safe if lists are validated in parallel.
+	 *
+	 * @param monitor the monitor to notify
+	 * @return this context
+	 * @throws IllegalArgumentException if the monitor is null
+	 */
+	public JsonValidationContext monitorWith(IValidationMonitor monitor) {
+		if (monitor == null) {
+			throw new IllegalArgumentException("Monitor cannot be null");
+		}
+		this.monitor = monitor;
+		return this;
 	}
 
 	@Override
 	public IValidationContext addError(String location, IErrorLocationType type, IErrorCode code, String message, Object... messageArgs) {
-		collector.addError(new ApiError(String.format(message, messageArgs), code, type, location(location)));
+		final String absoluteLocation = location(location);
+
+		// errors discarded because an error limit is reached are not reported
+		if (monitor.isEnabled() && !collector.isErrorLimitReached(absoluteLocation)) {
+			monitor.errorAdded(code);
+		}
+
+		collector.addError(new ApiError(code, type, absoluteLocation, message, messageArgs));
 		return this;
 	}
 
@@ -74,6 +261,24 @@ public class JsonValidationContext implements IValidationContext {
 		return collector.hasErrors(code);
 	}
 
+	/**
+	 * Indicates whether this context has errors at or under the specified location, relative to
+	 * the current location. This is the same as <tt>hasErrors(location(relativeLocation))</tt>
+	 * but does not build the location string.
+	 *
+	 * @param relativeLocation a JSON Pointer relative to the current location (the root pointer
+	 * being the current location)
+	 * @return true if at least one error with the specified location was added to this context
+	 */
+	public boolean hasErrorsAtRelativeLocation(IJsonPointer relativeLocation) {
+		return collector.hasErrors(relativeLocation.isRoot() ? currentLocation : new ResolvedJsonPointer(currentLocation, relativeLocation));
+	}
+
+	@Override
+	public boolean isErrorLimitReached() {
+		return collector.isErrorLimitReached(currentLocation.toString());
+	}
+
 	@Override
 	public String location(String pathFragments) {
 		if (pathFragments == null) {
@@ -92,7 +297,7 @@ public class JsonValidationContext implements IValidationContext {
 	public <T> IValidationContext validateObject(T object, String relativeLocation, IValidator<T> validator) {
 
 		final int numberOfPathFragments = "".equals(relativeLocation) ? 0 : currentLocation.add(relativeLocation);
-		validator.collectErrors(object, this);
+		collectErrors(object, validator);
 		currentLocation.pop(numberOfPathFragments);
 
 		return this;
@@ -106,10 +311,21 @@ public class JsonValidationContext implements IValidationContext {
 
 		final int numberOfPathFragments = "".equals(relativeLocation) ? 0 : currentLocation.add(relativeLocation);
 
+		if (monitor.isEnabled()) {
+			monitor.elementsValidated(objects.size());
+		}
+
+		if (parallelExecutor != null && objects.size() >= parallelThreshold) {
+			validateObjectsInParallel(objects, validator);
+			currentLocation.pop(numberOfPathFragments);
+			return this;
+		}
+
+		// stop validating elements once the error collector no longer accepts errors for the list
 		final int n = objects.size();
-		for (int i = 0; i < n; i++) {
+		for (int i = 0; i < n && !isErrorLimitReached(); i++) {
 			currentLocation.path(i);
-			validator.collectErrors(objects.get(i), this);
+			collectErrors(objects.get(i), validator);
 			currentLocation.pop();
 		}
 
@@ -118,6 +334,75 @@ public class JsonValidationContext implements IValidationContext {
 		return this;
 	}
 
+	/**
+	 * Validates an object at the current location and reports the time it took to the monitor, if
+	 * enabled.
+	 */
+	private <T> void collectErrors(T object, IValidator<T> validator) {
+		if (!monitor.isEnabled()) {
+			validator.collectErrors(object, this);
+			return;
+		}
+
+		final long start = System.nanoTime();
+		validator.collectErrors(object, this);
+		monitor.validatorCompleted(validator, System.nanoTime() - start);
+	}
+
+	/**
+	 * Validates the elements of a list at the current location in parallel chunks, then adds the
+	 * errors of each chunk to the collector in order.
+	 */
+	private <T> void validateObjectsInParallel(final List<T> objects, final IValidator<T> validator) {
+
+		final int n = objects.size();
+		final int parallelism = parallelExecutor instanceof ForkJoinPool ? ((ForkJoinPool) parallelExecutor).getParallelism() : Runtime.getRuntime().availableProcessors();
+		final int numberOfChunks = Math.max(1, Math.min(n, parallelism));
+
+		// chunks count their buffered errors together so that they all stop at the error limit
+		final AtomicInteger bufferedErrors = new AtomicInteger();
+		final List<ListChunkValidation<T>> chunks = new ArrayList<>(numberOfChunks);
+		for (int i = 0; i < numberOfChunks; i++) {
+			chunks.add(new ListChunkValidation<>(createChunkContext(new BufferingErrorCollector(collector, bufferedErrors)), objects, (int) ((long) n * i / numberOfChunks), (int) ((long) n * (i + 1) / numberOfChunks), validator));
+		}
+
+		final List<Future<Void>> futures = new ArrayList<>(numberOfChunks - 1);
+
+		try {
+
+			// the first chunk is validated by the calling thread once the others are submitted
+			for (int i = 1; i < numberOfChunks; i++) {
+				futures.add(parallelExecutor.submit(chunks.get(i)));
+			}
+
+			chunks.get(0).call();
+
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating list elements in parallel", ie);
+		} catch (ExecutionException ee) {
+			final Throwable cause = ee.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("List element validation failed", cause);
+		} finally {
+			// only has an effect if a chunk failed
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		for (ListChunkValidation<T> chunk : chunks) {
+			chunk.context.flushBufferedErrors();
+		}
+	}
+
 	@Override
 	public <T> IValidationContext validateObjectOrList(SingleObjectOrList<T> singleObjectOrList, String relativeLocation, IValidator<T> validator) {
 		if (singleObjectOrList.isSingleObject()) {
@@ -136,15 +421,21 @@ public class JsonValidationContext implements IValidationContext {
 	 * @param stateClass the class identifying the state
 	 * @return this context
 	 * @throws IllegalArgumentException if a state is already registered for that class
+	 * @throws IllegalStateException if this context is a buffered context
 	 */
 	public <T> JsonValidationContext addState(T state, Class<? extends T> stateClass) throws IllegalArgumentException {
+		if (parent != null) {
+			throw new IllegalStateException("State objects cannot be added to a buffered validation context; add them before validation starts");
+		}
+
+		final Map<Class, Object> currentStates = getStates();
 
 		// only accept one state of each class
-		if (this.states.containsKey(state.getClass())) {
+		if (currentStates.containsKey(state.getClass())) {
 			throw new IllegalArgumentException("A state object is already registered for class " + state.getClass().getName());
 		}
 
-		this.states.put(state.getClass(), state);
+		currentStates.put(state.getClass(), state);
 
 		return this;
 	}
@@ -158,6 +449,7 @@ public class JsonValidationContext implements IValidationContext {
 	 * @return this context
 	 * @throws IllegalArgumentException if a state is already registered for a class of one of the
 	 * specified states (or there are duplicates)
+	 * @throws IllegalStateException if this context is a buffered context
 	 */
 	public JsonValidationContext addStates(Object... states) throws IllegalArgumentException {
 
@@ -172,13 +464,213 @@ public class JsonValidationContext implements IValidationContext {
 	@SuppressWarnings("unchecked")
 	public <T> T getState(Class<? extends T> stateClass) throws IllegalArgumentException {
 
-		final Object state = states.get(stateClass);
+		final Object state = states != null ? states.get(stateClass) : null;
 		if (state == null) {
 			throw new IllegalArgumentException("No state object registered for class " + stateClass.getName());
 		}
 
 		return (T) state;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The current location is captured as an {@link ImmutableJsonPointer} which is not added
+	 * to the canonical pool. Lookups registered
+	 * while validating a list in parallel are added to this context in the order of the list.</p>
+	 */
+	@Override
+	public <K, V> IValidationContext deferLookup(IBatchResolver<K, V> resolver, K key, IDeferredCheck<K, V> check) {
+		if (resolver == null) {
+			throw new IllegalArgumentException("Resolver cannot be null");
+		} else if (check == null) {
+			throw new IllegalArgumentException("Check cannot be null");
+		}
+
+		getDeferredLookups().add(new DeferredLookup<>(resolver, key, check, ImmutableJsonPointer.snapshot(currentLocation)));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>Each check runs at the location where its lookup was registered. Once the error limit is
+	 * reached, the remaining checks are skipped and no more lookups are resolved. The current
+	 * location is restored once all lookups are resolved.</p>
+	 */
+	@Override
+	public IValidationContext resolveDeferredLookups() {
+		if (deferredLookups == null || deferredLookups.isEmpty()) {
+			return this;
+		}
+
+		final JsonPointer previousLocation = currentLocation;
+		currentLocation = new JsonPointer();
+
+		try {
+			while (deferredLookups != null && !deferredLookups.isEmpty()) {
+
+				// lookups registered by the checks are resolved in the next round
+				final List<DeferredLookup<?, ?>> lookups = deferredLookups;
+				deferredLookups = null;
+
+				currentLocation.root();
+				if (isErrorLimitReached()) {
+					break;
+				}
+
+				final Map<IBatchResolver<?, ?>, Map<?, ?>> values = resolve(lookups);
+
+				for (DeferredLookup<?, ?> lookup : lookups) {
+
+					// popped fragments shared with the previous location are restored, not parsed
+					currentLocation.root();
+					lookup.location.addTo(currentLocation);
+
+					if (isErrorLimitReached()) {
+						continue;
+					}
+
+					check(lookup, values.get(lookup.resolver));
+				}
+			}
+		} finally {
+			currentLocation = previousLocation;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Calls each resolver once with the keys of all its lookups.
+	 *
+	 * @return the resolved values by key, by resolver
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<IBatchResolver<?, ?>, Map<?, ?>> resolve(List<DeferredLookup<?, ?>> lookups) {
+
+		final Map<IBatchResolver<?, ?>, Set<Object>> keysByResolver = new LinkedHashMap<>();
+		for (DeferredLookup<?, ?> lookup : lookups) {
+			Set<Object> keys = keysByResolver.get(lookup.resolver);
+			if (keys == null) {
+				keys = new LinkedHashSet<>();
+				keysByResolver.put(lookup.resolver, keys);
+			}
+			keys.add(lookup.key);
+		}
+
+		final Map<IBatchResolver<?, ?>, Map<?, ?>> valuesByResolver = new HashMap<>();
+		for (Map.Entry<IBatchResolver<?, ?>, Set<Object>> entry : keysByResolver.entrySet()) {
+			final Map<?, ?> values = ((IBatchResolver<Object, ?>) entry.getKey()).resolve(Collections.unmodifiableSet(entry.getValue()));
+			valuesByResolver.put(entry.getKey(), values != null ? values : Collections.emptyMap());
+		}
+
+		return valuesByResolver;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <K, V> void check(DeferredLookup<K, V> lookup, Map<?, ?> values) {
+		lookup.check.check(lookup.key, (V) values.get(lookup.key), this);
+	}
+
+	private List<DeferredLookup<?, ?>> getDeferredLookups() {
+		if (deferredLookups == null) {
+			deferredLookups = new ArrayList<>();
+		}
+		return deferredLookups;
+	}
+
+	private Map<Class, Object> getStates() {
+		if (states == null) {
+			states = new HashMap<>();
+		}
+		return states;
+	}
+
+	/**
+	 * View of a pointer resolved against a base pointer (i.e. the path fragments of the base pointer
+	 * followed by those of the relative pointer).
+	 */
+	private static class ResolvedJsonPointer implements IJsonPointer {
+
+		private final IJsonPointer base;
+		private final IJsonPointer relative;
+
+		public ResolvedJsonPointer(IJsonPointer base, IJsonPointer relative) {
+			this.base = base;
+			this.relative = relative;
+		}
+
+		@Override
+		public int size() {
+			return base.size() + relative.size();
+		}
+
+		@Override
+		public String fragmentAt(int index) {
+			final int baseSize = base.size();
+			return index < baseSize ? base.fragmentAt(index) : relative.fragmentAt(index - baseSize);
+		}
+
+		@Override
+		public boolean isRoot() {
+			return base.isRoot() && relative.isRoot();
+		}
+
+		@Override
+		public String toString() {
+			return base.toString() + relative.toString();
+		}
+	}
+
+	/**
+	 * Lookup registered with <tt>deferLookup</tt>.
+	 */
+	private static class DeferredLookup<K, V> {
+
+		private final IBatchResolver<K, V> resolver;
+		private final K key;
+		private final IDeferredCheck<K, V> check;
+		private final ImmutableJsonPointer location;
+
+		public DeferredLookup(IBatchResolver<K, V> resolver, K key, IDeferredCheck<K, V> check, ImmutableJsonPointer location) {
+			this.resolver = resolver;
+			this.key = key;
+			this.check = check;
+			this.location = location;
+		}
+	}
+
+	/**
+	 * Validation of a range of list elements in a dedicated context.
+	 */
+	private static class ListChunkValidation<T> implements Callable<Void> {
+
+		private final JsonValidationContext context;
+		private final List<T> objects;
+		private final int start;
+		private final int end;
+		private final IValidator<T> validator;
+
+		public ListChunkValidation(JsonValidationContext context, List<T> objects, int start, int end, IValidator<T> validator) {
+			this.context = context;
+			this.objects = objects;
+			this.start = start;
+			this.end = end;
+			this.validator = validator;
+		}
+
+		@Override
+		public Void call() {
+			for (int i = start; i < end && !context.isErrorLimitReached(); i++) {
+				context.currentLocation.path(i);
+				context.collectErrors(objects.get(i), validator);
+				context.currentLocation.pop();
+			}
+			return null;
+		}
+	}
+
 	private static final IErrorLocationType JSON_LOCATION_TYPE = new IErrorLocationType() {
 		@Override
 		public String getLocationType() {
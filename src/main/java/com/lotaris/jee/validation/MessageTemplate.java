@@ -0,0 +1,41 @@
+package com.lotaris.jee.validation;
+
+import java.util.IllegalFormatException;
+
+/**
+ * Message template and arguments to be formatted later with
+ * {@link String#format(java.lang.String, java.lang.Object[])}. Instances are immutable so they can
+ * be safely shared between threads.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+final class MessageTemplate {
+
+	private final String template;
+	private final Object[] args;
+
+	/**
+	 * Constructs a message template.
+	 *
+	 * @param template the message template
+	 * @param args the arguments to be interpolated into the template
+	 */
+	MessageTemplate(String template, Object[] args) {
+		this.template = template;
+		this.args = args;
+	}
+
+	/**
+	 * Formats the message. If the template is not valid for the arguments, the template itself is
+	 * returned, so that an invalid template does not prevent the error from being serialized.
+	 *
+	 * @return the formatted message
+	 */
+	String format() {
+		try {
+			return String.format(template, args);
+		} catch (IllegalFormatException ife) {
+			return template;
+		}
+	}
+}
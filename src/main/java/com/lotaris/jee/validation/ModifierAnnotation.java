@@ -0,0 +1,31 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.jee.validation.preprocessing.modifier.Trim;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an annotation as a modifier annotation, i.e. an annotation implemented by an
+ * {@link IModifier}. Fields with modifier annotations are detected at compile time so that their
+ * classes need not be scanned at runtime (see
+ * {@link com.lotaris.jee.validation.preprocessing.ModifierPlanProcessor}).
+ *
+ * <p><pre>
+ *	&#64;ModifierAnnotation
+ *	&#64;Target(ElementType.FIELD)
+ *	&#64;Retention(RetentionPolicy.RUNTIME)
+ *	public &#64;interface Uppercase {
+ *	}
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see Trim
+ */
+@Target(ElementType.ANNOTATION_TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ModifierAnnotation {
+}
@@ -0,0 +1,32 @@
+package com.lotaris.jee.validation.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counter exported by a {@link JmxValidationMonitor}.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class Counter implements ICounterMXBean {
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Adds the specified amount to this counter.
+	 *
+	 * @param amount the amount to add
+	 */
+	public void add(long amount) {
+		count.addAndGet(amount);
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public void reset() {
+		count.set(0);
+	}
+}
@@ -0,0 +1,16 @@
+package com.lotaris.jee.validation.monitoring;
+
+/**
+ * Management interface of {@link Counter}.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public interface ICounterMXBean {
+
+	long getCount();
+
+	/**
+	 * Sets the count back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,27 @@
+package com.lotaris.jee.validation.monitoring;
+
+/**
+ * Management interface of {@link TimingStatistics}. All times are in nanoseconds; percentiles are
+ * approximate (see {@link TimingStatistics#getPercentileTimeNanos(double)}).
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public interface ITimingStatisticsMXBean {
+
+	long getCount();
+
+	long getTotalTimeNanos();
+
+	long getAverageTimeNanos();
+
+	long getMaxTimeNanos();
+
+	long getMedianTimeNanos();
+
+	long get99thPercentileTimeNanos();
+
+	/**
+	 * Clears all statistics.
+	 */
+	void reset();
+}
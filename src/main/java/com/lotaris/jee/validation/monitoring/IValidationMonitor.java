@@ -0,0 +1,75 @@
+package com.lotaris.jee.validation.monitoring;
+
+import com.lotaris.jee.validation.IAsyncValidator;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.JsonValidationContext;
+import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+
+/**
+ * Receives timings and counters from preprocessors and validators. A monitor is configured per
+ * preprocessing context with
+ * {@link ApiPreprocessingContext#monitorWith(com.lotaris.jee.validation.monitoring.IValidationMonitor)}
+ * (or per validation context with
+ * {@link JsonValidationContext#monitorWith(com.lotaris.jee.validation.monitoring.IValidationMonitor)}).
+ *
+ * <p>Hooks are called on the thread doing the work, possibly from multiple threads at the same
+ * time (e.g. when lists are validated in parallel), so implementations must be thread-safe and
+ * fast. When {@link #isEnabled()} returns false, no hook is called and nothing is measured.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see NoOpValidationMonitor
+ * @see JmxValidationMonitor
+ */
+public interface IValidationMonitor {
+
+	/**
+	 * Indicates whether this monitor should be notified. This is checked before taking any
+	 * measurement.
+	 *
+	 * @return true if the hooks of this monitor should be called
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Called after a preprocessor has processed an object.
+	 *
+	 * @param preprocessor the preprocessor
+	 * @param durationNanos the time it took, in nanoseconds
+	 */
+	void preprocessorCompleted(IPreprocessor preprocessor, long durationNanos);
+
+	/**
+	 * Called after a validator has validated an object (including objects validated by nested
+	 * validators).
+	 *
+	 * @param validator the validator
+	 * @param durationNanos the time it took, in nanoseconds
+	 */
+	void validatorCompleted(IValidator<?> validator, long durationNanos);
+
+	/**
+	 * Called after an asynchronous validator has notified its callback.
+	 *
+	 * @param validator the validator
+	 * @param durationNanos the time from the start of the validation to its completion, in
+	 * nanoseconds
+	 */
+	void asyncValidatorCompleted(IAsyncValidator<?> validator, long durationNanos);
+
+	/**
+	 * Called when an error is added to a validation context. Errors which are discarded because
+	 * an error limit is reached are not reported.
+	 *
+	 * @param code the code of the error (may be null)
+	 */
+	void errorAdded(IErrorCode code);
+
+	/**
+	 * Called when the elements of a list of the payload are validated.
+	 *
+	 * @param numberOfElements the number of elements in the list
+	 */
+	void elementsValidated(int numberOfElements);
+}
@@ -0,0 +1,227 @@
+package com.lotaris.jee.validation.monitoring;
+
+import com.lotaris.jee.validation.IAsyncValidator;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monitor which exports its statistics as MXBeans. The following beans are registered (timings
+ * and error codes the first time something is recorded for them):
+ *
+ * <ul>
+ * <li><tt>&lt;domain&gt;:type=Preprocessor,name=&lt;class&gt;</tt>: timings of each preprocessor
+ * class (see {@link ITimingStatisticsMXBean});</li>
+ * <li><tt>&lt;domain&gt;:type=Validator,name=&lt;class&gt;</tt>: timings of each validator
+ * class (synchronous or asynchronous);</li>
+ * <li><tt>&lt;domain&gt;:type=Errors,code=&lt;code&gt;</tt>: the number of errors added with each
+ * error code (<tt>none</tt> for errors with no code, see {@link ICounterMXBean}), excluding
+ * errors discarded because an error limit was reached;</li>
+ * <li><tt>&lt;domain&gt;:type=Payload,name=ValidatedElements</tt>: the number of list elements
+ * validated.</li>
+ * </ul>
+ *
+ * <p>A single monitor should be shared by all preprocessing contexts, e.g. through a CDI
+ * producer. Call {@link #unregister()} to remove its beans, e.g. when the application is
+ * undeployed.</p>
+ *
+ * <p><pre>
+ *	JmxValidationMonitor monitor = new JmxValidationMonitor();
+ *
+ *	new ApiPreprocessingContext(chain).monitorWith(monitor).validateWith(validator).process(object);
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class JmxValidationMonitor implements IValidationMonitor {
+
+	public static final String DEFAULT_DOMAIN = "com.lotaris.jee.validation";
+
+	private final MBeanServer server;
+	private final String domain;
+	private final ConcurrentMap<Class<?>, TimingStatistics> preprocessorStatistics;
+	private final ConcurrentMap<Class<?>, TimingStatistics> validatorStatistics;
+	private final ConcurrentMap<Integer, Counter> errorCounters;
+	private final Counter errorsWithNoCode;
+	private final Counter validatedElements;
+	private final Set<ObjectName> registeredNames;
+	private volatile boolean unregistered;
+
+	/**
+	 * Constructs a monitor which registers its beans in the platform MBean server under the
+	 * {@link #DEFAULT_DOMAIN default domain}.
+	 */
+	public JmxValidationMonitor() {
+		this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+	}
+
+	/**
+	 * Constructs a monitor which registers its beans in the specified server.
+	 *
+	 * @param server the MBean server
+	 * @param domain the domain of the object names of the beans
+	 * @throws IllegalArgumentException if the server or domain is null
+	 */
+	public JmxValidationMonitor(MBeanServer server, String domain) {
+		if (server == null) {
+			throw new IllegalArgumentException("MBean server cannot be null");
+		} else if (domain == null) {
+			throw new IllegalArgumentException("Domain cannot be null");
+		}
+
+		this.server = server;
+		this.domain = domain;
+		this.preprocessorStatistics = new ConcurrentHashMap<>();
+		this.validatorStatistics = new ConcurrentHashMap<>();
+		this.errorCounters = new ConcurrentHashMap<>();
+		this.errorsWithNoCode = new Counter();
+		this.validatedElements = new Counter();
+		this.registeredNames = Collections.newSetFromMap(new ConcurrentHashMap<ObjectName, Boolean>());
+
+		register("type=Errors,code=none", errorsWithNoCode);
+		register("type=Payload,name=ValidatedElements", validatedElements);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void preprocessorCompleted(IPreprocessor preprocessor, long durationNanos) {
+		getStatistics(preprocessorStatistics, "Preprocessor", preprocessor.getClass()).record(durationNanos);
+	}
+
+	@Override
+	public void validatorCompleted(IValidator<?> validator, long durationNanos) {
+		getStatistics(validatorStatistics, "Validator", validator.getClass()).record(durationNanos);
+	}
+
+	@Override
+	public void asyncValidatorCompleted(IAsyncValidator<?> validator, long durationNanos) {
+		getStatistics(validatorStatistics, "Validator", validator.getClass()).record(durationNanos);
+	}
+
+	@Override
+	public void errorAdded(IErrorCode code) {
+		(code != null ? getErrorCounter(code.getCode()) : errorsWithNoCode).add(1);
+	}
+
+	@Override
+	public void elementsValidated(int numberOfElements) {
+		validatedElements.add(numberOfElements);
+	}
+
+	/**
+	 * Returns the timings of the specified preprocessor class.
+	 *
+	 * @param type the preprocessor class
+	 * @return the statistics, or null if no preprocessor of that class has completed
+	 */
+	public TimingStatistics getPreprocessorStatistics(Class<? extends IPreprocessor> type) {
+		return preprocessorStatistics.get(type);
+	}
+
+	/**
+	 * Returns the timings of the specified validator class.
+	 *
+	 * @param type the validator class
+	 * @return the statistics, or null if no validator of that class has completed
+	 */
+	public TimingStatistics getValidatorStatistics(Class<?> type) {
+		return validatorStatistics.get(type);
+	}
+
+	/**
+	 * Returns the number of errors added with the specified code.
+	 *
+	 * @param code the numeric error code, or null for errors with no code
+	 * @return a number of errors
+	 */
+	public long getErrorCount(Integer code) {
+		final Counter counter = code != null ? errorCounters.get(code) : errorsWithNoCode;
+		return counter != null ? counter.getCount() : 0;
+	}
+
+	/**
+	 * Returns the number of list elements validated.
+	 *
+	 * @return a number of elements
+	 */
+	public long getValidatedElementCount() {
+		return validatedElements.getCount();
+	}
+
+	/**
+	 * Unregisters all beans registered by this monitor. Statistics are still recorded but new
+	 * beans are no longer registered.
+	 */
+	public void unregister() {
+		unregistered = true;
+		for (ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException jme) {
+				LoggerFactory.getLogger(JmxValidationMonitor.class).warn("Could not unregister validation MBean " + name, jme);
+			}
+			registeredNames.remove(name);
+		}
+	}
+
+	private TimingStatistics getStatistics(ConcurrentMap<Class<?>, TimingStatistics> statistics, String type, Class<?> key) {
+
+		final TimingStatistics existingStatistics = statistics.get(key);
+		if (existingStatistics != null) {
+			return existingStatistics;
+		}
+
+		final TimingStatistics newStatistics = new TimingStatistics();
+		final TimingStatistics previousStatistics = statistics.putIfAbsent(key, newStatistics);
+		if (previousStatistics != null) {
+			return previousStatistics;
+		}
+
+		register("type=" + type + ",name=" + key.getName(), newStatistics);
+		return newStatistics;
+	}
+
+	private Counter getErrorCounter(int code) {
+
+		final Counter existingCounter = errorCounters.get(code);
+		if (existingCounter != null) {
+			return existingCounter;
+		}
+
+		final Counter newCounter = new Counter();
+		final Counter previousCounter = errorCounters.putIfAbsent(code, newCounter);
+		if (previousCounter != null) {
+			return previousCounter;
+		}
+
+		register("type=Errors,code=" + code, newCounter);
+		return newCounter;
+	}
+
+	private void register(String properties, Object mbean) {
+		if (unregistered) {
+			return;
+		}
+
+		try {
+			final ObjectName name = new ObjectName(domain + ":" + properties);
+			server.registerMBean(mbean, name);
+			registeredNames.add(name);
+		} catch (JMException jme) {
+			LoggerFactory.getLogger(JmxValidationMonitor.class).warn("Could not register validation MBean " + properties + " in domain " + domain, jme);
+		}
+	}
+}
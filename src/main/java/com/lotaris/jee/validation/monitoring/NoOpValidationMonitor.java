@@ -0,0 +1,44 @@
+package com.lotaris.jee.validation.monitoring;
+
+import com.lotaris.jee.validation.IAsyncValidator;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+
+/**
+ * Monitor which is never notified. This is the default monitor of validation contexts.
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public final class NoOpValidationMonitor implements IValidationMonitor {
+
+	public static final NoOpValidationMonitor INSTANCE = new NoOpValidationMonitor();
+
+	private NoOpValidationMonitor() {
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	@Override
+	public void preprocessorCompleted(IPreprocessor preprocessor, long durationNanos) {
+	}
+
+	@Override
+	public void validatorCompleted(IValidator<?> validator, long durationNanos) {
+	}
+
+	@Override
+	public void asyncValidatorCompleted(IAsyncValidator<?> validator, long durationNanos) {
+	}
+
+	@Override
+	public void errorAdded(IErrorCode code) {
+	}
+
+	@Override
+	public void elementsValidated(int numberOfElements) {
+	}
+}
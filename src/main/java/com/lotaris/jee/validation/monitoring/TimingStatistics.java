@@ -0,0 +1,124 @@
+package com.lotaris.jee.validation.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe statistics of recorded durations. Recording a duration only updates a few atomic
+ * counters: durations are counted in buckets whose bounds are powers of two, so percentiles are
+ * approximated by the upper bound of a bucket (at most twice the actual value, and never more
+ * than the maximum).
+ *
+ * <p>Statistics are not updated atomically as a whole; they may be slightly inconsistent with
+ * each other while durations are being recorded.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class TimingStatistics implements ITimingStatisticsMXBean {
+
+	/**
+	 * Bucket <tt>i</tt> counts durations of <tt>i</tt> significant bits, i.e. from
+	 * <tt>2^(i-1)</tt> to <tt>2^i - 1</tt> nanoseconds (bucket 0 counts zero durations).
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalTimeNanos = new AtomicLong();
+	private final AtomicLong maxTimeNanos = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param durationNanos the duration in nanoseconds (negative durations are recorded as zero)
+	 */
+	public void record(long durationNanos) {
+
+		final long duration = Math.max(0, durationNanos);
+
+		buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(duration));
+		count.incrementAndGet();
+		totalTimeNanos.addAndGet(duration);
+
+		long max = maxTimeNanos.get();
+		while (duration > max && !maxTimeNanos.compareAndSet(max, duration)) {
+			max = maxTimeNanos.get();
+		}
+	}
+
+	/**
+	 * Returns an approximation of the specified percentile of the recorded durations.
+	 *
+	 * @param percentile the percentile, between 0 (exclusive) and 100 (inclusive)
+	 * @return a duration in nanoseconds (0 if nothing was recorded)
+	 * @throws IllegalArgumentException if the percentile is out of bounds
+	 */
+	public long getPercentileTimeNanos(double percentile) {
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be greater than 0 and at most 100, got " + percentile);
+		}
+
+		long total = 0;
+		final long[] counts = new long[Long.SIZE];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+
+		if (total == 0) {
+			return 0;
+		}
+
+		final long rank = (long) Math.ceil(total * percentile / 100);
+
+		long cumulated = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulated += counts[i];
+			if (cumulated >= rank) {
+				final long upperBound = i == 0 ? 0 : (i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+				return Math.min(upperBound, getMaxTimeNanos());
+			}
+		}
+
+		return getMaxTimeNanos();
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public long getTotalTimeNanos() {
+		return totalTimeNanos.get();
+	}
+
+	@Override
+	public long getAverageTimeNanos() {
+		final long currentCount = count.get();
+		return currentCount > 0 ? totalTimeNanos.get() / currentCount : 0;
+	}
+
+	@Override
+	public long getMaxTimeNanos() {
+		return maxTimeNanos.get();
+	}
+
+	@Override
+	public long getMedianTimeNanos() {
+		return getPercentileTimeNanos(50);
+	}
+
+	@Override
+	public long get99thPercentileTimeNanos() {
+		return getPercentileTimeNanos(99);
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		totalTimeNanos.set(0);
+		maxTimeNanos.set(0);
+	}
+}
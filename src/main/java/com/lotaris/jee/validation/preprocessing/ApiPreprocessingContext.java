@@ -4,12 +4,21 @@ import com.lotaris.jee.validation.AbstractPatchTransferObject;
 import com.lotaris.jee.validation.AbstractValidator;
 import com.lotaris.jee.validation.ApiErrorResponse;
 import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IAsyncValidator;
 import com.lotaris.jee.validation.IPatchObject;
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IValidator;
 import com.lotaris.jee.validation.JsonValidationContext;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.validation.groups.Default;
 
 /**
@@ -35,49 +44,253 @@ import javax.validation.groups.Default;
  *	new PreprocessingContext(chain).validateOnly(Default.class, ValidationGroups.Create.class).process(objectToProcess);
  * </p></pre>
  *
+ * <p>A context can only process one object. To avoid allocating a context for each request, it can
+ * be {@link #reset() reset} and reused by the same thread.</p>
+ *
+ * <p><pre>
+ *	private static final ThreadLocal&lt;ApiPreprocessingContext&gt; CONTEXT = ...;
+ *
+ *	CONTEXT.get().reset().validateOnly(ValidationGroups.Create.class).process(objectToProcess);
+ * </p></pre>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public class ApiPreprocessingContext implements IPreprocessingConfig {
 	public static final int UNPROCESSABLE_ENTITY = 422;
+
+	private static final Class[] NO_VALIDATION_GROUPS = new Class[]{};
 	
 	private IPreprocessor preprocessor;
 	private ApiErrorResponse apiErrorResponse;
 	private JsonValidationContext validationContext;
 	private Class[] validationGroups;
+	/**
+	 * The API validators (null until one is added).
+	 */
 	private List<IValidator> validators;
+	/**
+	 * The asynchronous validators (null until one is added).
+	 */
+	private List<IAsyncValidator<?>> asyncValidators;
+	/**
+	 * How long <tt>process</tt> waits for asynchronous validators, in nanoseconds (0 to wait until
+	 * they complete).
+	 */
+	private long asyncTimeout;
 	private boolean failOnErrors;
 	private boolean patchValidation;
+	private boolean recursiveModification;
+	private boolean stopOnErrors;
+	private boolean validatorCostOrdering;
+	private IValidationMonitor monitor;
 	private Boolean result;
+	/**
+	 * The pending asynchronous processing, if any.
+	 */
+	private AsyncPreprocessing asyncPreprocessing;
 
 	public ApiPreprocessingContext(IPreprocessor preprocessor) {
 		this.preprocessor = preprocessor;
 		this.apiErrorResponse = new ApiErrorResponse(UNPROCESSABLE_ENTITY);
 		this.validationContext = new JsonValidationContext(apiErrorResponse);
-		this.validationGroups = new Class[]{};
-		this.validators = new ArrayList<>();
+		this.validationGroups = NO_VALIDATION_GROUPS;
+		this.validators = null;
+		this.asyncValidators = null;
+		this.asyncTimeout = 0;
 		this.failOnErrors = true;
 		this.patchValidation = false;
+		this.recursiveModification = false;
+		this.stopOnErrors = false;
+		this.validatorCostOrdering = false;
+		this.monitor = NoOpValidationMonitor.INSTANCE;
 	}
 
 	/**
 	 * Runs preprocessing on the specified object.
 	 *
+	 * <p>If asynchronous validators were added, they are started as with
+	 * {@link #processAsync(java.lang.Object, com.lotaris.jee.validation.preprocessing.IPreprocessingCallback)}
+	 * and this method blocks until they are all done, or until the
+	 * {@link #asyncTimeout(long, java.util.concurrent.TimeUnit) asynchronous timeout} elapses.</p>
+	 *
 	 * @param object the object to preprocess
 	 * @return a result object indicating whether the preprocessing chain completed successfully and
 	 * containing the errors collected during preprocessing (note that a successful chain may
 	 * produce errors such as validation errors)
 	 * @throws ApiErrorsException if any of the preprocessors adds errors to the error collector
+	 * @throws IllegalStateException if the asynchronous validators did not complete in time or the
+	 * thread was interrupted while waiting for them
 	 */
 	public ApiPreprocessingContext process(Object object) throws ApiErrorsException {
-		if (result != null) {
-			throw new IllegalStateException("This preprocessing context has already been used; create another one.");
+		if (asyncValidators != null && !asyncValidators.isEmpty()) {
+			return await(processAsync(object, null), asyncTimeout);
+		}
+
+		checkUnused();
+		complete(PreprocessingChain.process(preprocessor, object, this, monitor));
+
+		return this;
+	}
+
+	/**
+	 * Runs preprocessing on the specified object, then starts all asynchronous validators at the
+	 * same time (see {@link #validateAsyncWith(com.lotaris.jee.validation.IAsyncValidator[])}).
+	 * The preprocessor runs on the calling thread; this method returns as soon as the asynchronous
+	 * validators are started. Asynchronous validators are not started if the preprocessor
+	 * indicated failure, if the error limit is reached or if preprocessing
+	 * {@link #stopOnErrors() stops on errors} and errors were collected.
+	 *
+	 * <p>Once all asynchronous validators are done, their errors are added to the error response
+	 * in the order the validators were added (so the result does not depend on timing), and the
+	 * returned future and the callback are completed. The callback is notified on the thread of
+	 * the last validator to complete (or on the calling thread if there are none).</p>
+	 *
+	 * <p>The returned future and callback fail with an {@link ApiErrorsException} if errors were
+	 * collected and the context fails on errors, or with the exception thrown by the preprocessor
+	 * or reported by a validator. Cancelling the future does not stop the validators, but their
+	 * errors are then discarded; it fails once their errors are being added to the error
+	 * response.</p>
+	 *
+	 * <p>The context must not be used or reset until preprocessing is done.</p>
+	 *
+	 * @param object the object to preprocess
+	 * @param callback the callback to notify when preprocessing is done (may be null)
+	 * @return a future completed with this context when preprocessing is done
+	 * @throws IllegalStateException if this context was already used
+	 */
+	public Future<ApiPreprocessingContext> processAsync(Object object, IPreprocessingCallback callback) {
+		checkUnused();
+
+		final AsyncPreprocessing processing = new AsyncPreprocessing(this, callback);
+		asyncPreprocessing = processing;
+
+		final boolean successful;
+		try {
+			successful = PreprocessingChain.process(preprocessor, object, this, monitor);
+		} catch (RuntimeException | Error e) {
+			processing.fail(e);
+			return processing;
 		}
 
-		result = preprocessor.process(object, this);
-		
+		if (asyncValidators == null || asyncValidators.isEmpty()) {
+			processing.complete(successful);
+		} else if (!successful || isStopped()) {
+			processing.complete(false);
+		} else {
+			processing.start(object, asyncValidators, validationContext, monitor);
+		}
+
+		return processing;
+	}
+
+	/**
+	 * Records the result of preprocessing.
+	 *
+	 * @param successful whether preprocessing was successful
+	 * @throws ApiErrorsException if errors were collected and this context fails on errors
+	 */
+	void complete(boolean successful) throws ApiErrorsException {
+		result = successful;
+
 		if (failOnErrors && apiErrorResponse.hasErrors()) {
 			throw new ApiErrorsException(apiErrorResponse);
 		}
+	}
+
+	/**
+	 * Indicates whether validation must stop because the error limit is reached, or because errors
+	 * were collected and this context stops on errors.
+	 *
+	 * @return true if validation must stop
+	 */
+	boolean isStopped() {
+		return validationContext.isErrorLimitReached() || (stopOnErrors && validationContext.hasErrors());
+	}
+
+	private void checkUnused() {
+		if (result != null || asyncPreprocessing != null) {
+			throw new IllegalStateException("This preprocessing context has already been used; create another one or reset it.");
+		}
+	}
+
+	private static ApiPreprocessingContext await(Future<ApiPreprocessingContext> future, long timeout) throws ApiErrorsException {
+		try {
+			if (timeout <= 0) {
+				return future.get();
+			}
+
+			try {
+				return future.get(timeout, TimeUnit.NANOSECONDS);
+			} catch (TimeoutException te) {
+				// if the errors of the validators are already being merged, wait for them
+				if (future.cancel(false)) {
+					throw new IllegalStateException("Asynchronous validators did not complete within " + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms", te);
+				}
+				return future.get();
+			}
+		} catch (InterruptedException ie) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for asynchronous validators", ie);
+		} catch (ExecutionException ee) {
+			final Throwable cause = ee.getCause();
+			if (cause instanceof ApiErrorsException) {
+				throw (ApiErrorsException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Asynchronous validation failed", cause);
+		}
+	}
+
+	/**
+	 * Resets this context to its initial configuration so that it can process another object.
+	 * Validation groups, validators, states and error limits are removed and all options are set
+	 * back to their defaults. The preprocessor is kept.
+	 *
+	 * <p>The error response and validation context are cleared and reused if no errors were
+	 * collected. Otherwise, new ones are created, since the previous error response may have been
+	 * thrown in an {@link ApiErrorsException} and still be in use. New ones are also created if
+	 * asynchronous processing was cancelled (e.g. when <tt>process</tt> timed out) while validators
+	 * were still running, since they still read the error response and states.</p>
+	 *
+	 * <p>A context is not thread-safe; it must not be reset while another thread uses it.</p>
+	 *
+	 * @return this context
+	 * @throws IllegalStateException if asynchronous processing is not done
+	 */
+	public ApiPreprocessingContext reset() {
+
+		if (asyncPreprocessing != null && !asyncPreprocessing.isDone()) {
+			throw new IllegalStateException("Asynchronous preprocessing is not done; wait for it or cancel it before resetting this context.");
+		}
+
+		if (apiErrorResponse.hasErrors() || apiErrorResponse.isTruncated() || (asyncPreprocessing != null && asyncPreprocessing.hasRunningValidators())) {
+			apiErrorResponse = new ApiErrorResponse(UNPROCESSABLE_ENTITY);
+			validationContext = new JsonValidationContext(apiErrorResponse);
+		} else {
+			apiErrorResponse.reset();
+			validationContext.reset();
+		}
+
+		validationGroups = NO_VALIDATION_GROUPS;
+		if (validators != null) {
+			validators.clear();
+		}
+		if (asyncValidators != null) {
+			asyncValidators.clear();
+		}
+		asyncTimeout = 0;
+		failOnErrors = true;
+		patchValidation = false;
+		recursiveModification = false;
+		stopOnErrors = false;
+		validatorCostOrdering = false;
+		monitor = NoOpValidationMonitor.INSTANCE;
+		result = null;
+		asyncPreprocessing = null;
 
 		return this;
 	}
@@ -127,11 +340,57 @@ public class ApiPreprocessingContext implements IPreprocessingConfig {
 			if (apiValidator == null) {
 				throw new IllegalArgumentException("Validator cannot be null");
 			}
-			this.validators.add(apiValidator);
+			if (validators == null) {
+				validators = new ArrayList<>();
+			}
+			validators.add(apiValidator);
 		}
 		return this;
 	}
 
+	/**
+	 * Adds the specified asynchronous validators to be run on the preprocessed object after the
+	 * preprocessor. They are all started at the same time by
+	 * {@link #processAsync(java.lang.Object, com.lotaris.jee.validation.preprocessing.IPreprocessingCallback)}
+	 * (or by <tt>process</tt>, which then waits for them), so they must not depend on each other.
+	 *
+	 * @param apiValidators the validators to run
+	 * @return this updated context
+	 */
+	public ApiPreprocessingContext validateAsyncWith(IAsyncValidator<?>... apiValidators) {
+		for (IAsyncValidator<?> apiValidator : apiValidators) {
+			if (apiValidator == null) {
+				throw new IllegalArgumentException("Validator cannot be null");
+			}
+			if (asyncValidators == null) {
+				asyncValidators = new ArrayList<>();
+			}
+			asyncValidators.add(apiValidator);
+		}
+		return this;
+	}
+
+	/**
+	 * Limits how long <tt>process</tt> waits for asynchronous validators. If they are not all done
+	 * in time, processing is cancelled (their errors are discarded when they complete) and
+	 * <tt>process</tt> throws an {@link IllegalStateException}. This does not apply to
+	 * <tt>processAsync</tt>, whose caller decides how long to wait on the returned future.
+	 *
+	 * <p>By default, <tt>process</tt> waits until all asynchronous validators are done.</p>
+	 *
+	 * @param timeout the maximum time to wait (0 to wait until the validators are done)
+	 * @param unit the unit of the timeout
+	 * @return this updated context
+	 * @throws IllegalArgumentException if the timeout is negative
+	 */
+	public ApiPreprocessingContext asyncTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("Timeout cannot be negative");
+		}
+		this.asyncTimeout = unit.toNanos(timeout);
+		return this;
+	}
+
 	/**
 	 * Enable patch validation. With patch validation, the validated object must be an
 	 * {@link IPatchObject} that defines which of its properties were explicitly set. Only those
@@ -155,6 +414,82 @@ public class ApiPreprocessingContext implements IPreprocessingConfig {
 		return patchValidation;
 	}
 
+	/**
+	 * Enable recursive modification. Modifiers such as <tt>@Trim</tt> are then also applied to
+	 * nested objects, to the elements of collections and arrays, and to the values of maps.
+	 *
+	 * @return this updated context
+	 * @see ModifiersPreprocessor
+	 */
+	public ApiPreprocessingContext modifyRecursively() {
+		recursiveModification = true;
+		return this;
+	}
+
+	@Override
+	public boolean isRecursiveModificationEnabled() {
+		return recursiveModification;
+	}
+
+	/**
+	 * Stop preprocessing as soon as errors have been collected: the remaining preprocessors of the
+	 * chain and the remaining validators are not run. Clearly invalid objects are then rejected
+	 * with the errors of the first failing stage only (e.g. without bean validations if a cheaper
+	 * preprocessor before them failed).
+	 *
+	 * @return this updated context
+	 * @see PreprocessingChain
+	 * @see ValidationPreprocessor
+	 */
+	public ApiPreprocessingContext stopOnErrors() {
+		stopOnErrors = true;
+		return this;
+	}
+
+	@Override
+	public boolean isStopOnErrorsEnabled() {
+		return stopOnErrors;
+	}
+
+	/**
+	 * Run validators by increasing average cost, as measured by previous runs of the validation
+	 * preprocessor, rather than in the order they were added. Combined with
+	 * {@link #stopOnErrors()}, expensive validators (e.g. database lookups) are skipped when a
+	 * cheaper one fails. Only use this if the validators do not depend on each other's errors.
+	 *
+	 * @return this updated context
+	 * @see ValidationPreprocessor
+	 */
+	public ApiPreprocessingContext orderValidatorsByCost() {
+		validatorCostOrdering = true;
+		return this;
+	}
+
+	@Override
+	public boolean isValidatorCostOrderingEnabled() {
+		return validatorCostOrdering;
+	}
+
+	/**
+	 * Reports the time taken by preprocessors and validators, the errors added and the number of
+	 * list elements validated to the specified monitor.
+	 *
+	 * @param monitor the monitor to notify
+	 * @return this updated context
+	 * @throws IllegalArgumentException if the monitor is null
+	 * @see com.lotaris.jee.validation.monitoring.JmxValidationMonitor
+	 */
+	public ApiPreprocessingContext monitorWith(IValidationMonitor monitor) {
+		validationContext.monitorWith(monitor);
+		this.monitor = monitor;
+		return this;
+	}
+
+	@Override
+	public IValidationMonitor getMonitor() {
+		return monitor;
+	}
+
 	/**
 	 * Adds the specified state object to the validation context. It can be retrieved by passing
 	 * the identifying class to {@link #getState(java.lang.Class)}.
@@ -201,6 +536,51 @@ public class ApiPreprocessingContext implements IPreprocessingConfig {
 		return this;
 	}
 
+	/**
+	 * Enables parallel validation of large lists by validators (see
+	 * {@link JsonValidationContext#validateListsInParallel(java.util.concurrent.ExecutorService, int)}).
+	 * Validators and state objects must then be thread-safe.
+	 *
+	 * @param executor the executor to run validations with
+	 * @param threshold the minimum number of elements of a list for it to be validated in parallel
+	 * @return this updated context
+	 */
+	public ApiPreprocessingContext validateListsInParallel(ExecutorService executor, int threshold) {
+		validationContext.validateListsInParallel(executor, threshold);
+		return this;
+	}
+
+	/**
+	 * Limits the number of errors collected during preprocessing. Once the limit is reached,
+	 * further errors are discarded, the remaining validators are not run and list elements are no
+	 * longer validated. The {@link ApiErrorResponse} is marked as truncated if an error is
+	 * discarded.
+	 *
+	 * @param maxErrors the maximum number of errors (0 for no limit)
+	 * @return this updated context
+	 * @see ApiErrorResponse#setMaxErrors(int)
+	 */
+	public ApiPreprocessingContext maxErrors(int maxErrors) {
+		apiErrorResponse.setMaxErrors(maxErrors);
+		return this;
+	}
+
+	/**
+	 * Limits the number of errors collected at or under the specified location during
+	 * preprocessing. For example, limiting errors under <tt>/items</tt> stops the validation of
+	 * further elements of that list once the limit is reached, but other properties are still
+	 * validated.
+	 *
+	 * @param location an absolute JSON Pointer (see http://tools.ietf.org/html/rfc6901)
+	 * @param maxErrors the maximum number of errors at or under the location
+	 * @return this updated context
+	 * @see ApiErrorResponse#setMaxErrors(java.lang.String, int)
+	 */
+	public ApiPreprocessingContext maxErrors(String location, int maxErrors) {
+		apiErrorResponse.setMaxErrors(location, maxErrors);
+		return this;
+	}
+
 	/**
 	 * Indicates whether errors were collected during preprocessing.
 	 *
@@ -217,7 +597,16 @@ public class ApiPreprocessingContext implements IPreprocessingConfig {
 
 	@Override
 	public List<IValidator> getValidators() {
-		return validators;
+		return validators != null ? validators : Collections.<IValidator>emptyList();
+	}
+
+	/**
+	 * Returns the asynchronous validators added with <tt>validateAsyncWith</tt>.
+	 *
+	 * @return a list of asynchronous validators
+	 */
+	public List<IAsyncValidator<?>> getAsyncValidators() {
+		return asyncValidators != null ? asyncValidators : Collections.<IAsyncValidator<?>>emptyList();
 	}
 
 	@Override
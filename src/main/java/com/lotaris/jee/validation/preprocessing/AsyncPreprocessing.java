@@ -0,0 +1,312 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IAsyncValidator;
+import com.lotaris.jee.validation.IValidationCallback;
+import com.lotaris.jee.validation.JsonValidationContext;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asynchronous processing of an {@link ApiPreprocessingContext}. Asynchronous validators are all
+ * started at once, each with its own buffered validation context. Once all of them have notified
+ * their callback, their errors are added to the error response in the order the validators were
+ * registered, whatever the order in which they completed, the lookups they deferred are resolved
+ * and the preprocessing callback is notified.
+ *
+ * <p>If any validator fails, preprocessing fails with the first reported failure once all
+ * validators are done, and their errors are discarded.</p>
+ *
+ * <p>Cancelling processing does not stop the validators, but their errors are discarded when they
+ * complete. Processing can no longer be cancelled once the errors of the validators are being
+ * added to the error response.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+class AsyncPreprocessing implements Future<ApiPreprocessingContext> {
+
+	private static final int PENDING = 0;
+	private static final int COMPLETING = 1;
+	private static final int COMPLETED = 2;
+	private static final int FAILED = 3;
+	private static final int CANCELLED = 4;
+
+	private final ApiPreprocessingContext context;
+	private final IPreprocessingCallback callback;
+	private final AtomicReference<Throwable> failure;
+	/**
+	 * The state of processing; only the thread which moves it away from {@link #PENDING} may
+	 * complete, fail or cancel processing.
+	 */
+	private final AtomicInteger state;
+	/**
+	 * Released once the outcome of processing is recorded.
+	 */
+	private final CountDownLatch done;
+	/**
+	 * The cause of the failure or cancellation (written before the latch is released).
+	 */
+	private volatile Throwable cause;
+	private JsonValidationContext[] validationContexts;
+	private AtomicInteger remainingValidators;
+
+	/**
+	 * Constructs an asynchronous processing.
+	 *
+	 * @param context the processing context
+	 * @param callback the callback to notify once processing is done (may be null)
+	 */
+	AsyncPreprocessing(ApiPreprocessingContext context, IPreprocessingCallback callback) {
+		this.context = context;
+		this.callback = callback;
+		this.failure = new AtomicReference<>();
+		this.state = new AtomicInteger(PENDING);
+		this.done = new CountDownLatch(1);
+	}
+
+	/**
+	 * Starts the specified validators. This must be called at most once.
+	 *
+	 * @param object the object to validate
+	 * @param validators the validators to start
+	 * @param validationContext the validation context to create buffered contexts from
+	 * @param monitor the monitor to notify when validators complete
+	 */
+	void start(Object object, List<IAsyncValidator<?>> validators, JsonValidationContext validationContext, IValidationMonitor monitor) {
+
+		// all contexts are created before any validator is started since they refer to the errors
+		// of the validation context, which must not change until all validators are done
+		final int n = validators.size();
+		validationContexts = new JsonValidationContext[n];
+		for (int i = 0; i < n; i++) {
+			validationContexts[i] = validationContext.createBufferedContext();
+		}
+
+		remainingValidators = new AtomicInteger(n);
+
+		for (int i = 0; i < n; i++) {
+			final IAsyncValidator<Object> validator = uncheckedValidator(validators.get(i));
+			final ValidatorCallback validatorCallback = new ValidatorCallback(validator, monitor);
+			try {
+				validator.collectErrors(object, validationContexts[i], validatorCallback);
+			} catch (RuntimeException | Error e) {
+				// ignored if the validator notified its callback before throwing
+				validatorCallback.done(e);
+			}
+		}
+	}
+
+	/**
+	 * Completes processing with the specified result, or fails with an {@link ApiErrorsException}
+	 * if errors were collected and the context fails on errors.
+	 *
+	 * @param successful whether preprocessing was successful
+	 */
+	void complete(boolean successful) {
+		if (state.compareAndSet(PENDING, COMPLETING)) {
+			succeed(successful);
+		}
+	}
+
+	/**
+	 * Fails processing with the specified cause.
+	 *
+	 * @param throwable the cause of the failure
+	 */
+	void fail(Throwable throwable) {
+		if (state.compareAndSet(PENDING, COMPLETING)) {
+			settle(FAILED, throwable);
+		}
+	}
+
+	/**
+	 * Cancels processing if it is not yet done or completing. The validators are not stopped, but
+	 * their errors will be discarded. The callback is notified with a
+	 * {@link CancellationException}.
+	 *
+	 * @param mayInterruptIfRunning ignored, since validators run on threads of their own
+	 * @return true if processing was cancelled
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!state.compareAndSet(PENDING, COMPLETING)) {
+			return false;
+		}
+
+		settle(CANCELLED, new CancellationException("Asynchronous preprocessing was cancelled"));
+		return true;
+	}
+
+	/**
+	 * Indicates whether validators started by this processing may still be running. This is the
+	 * case when processing was cancelled before all of them notified their callback.
+	 *
+	 * @return true if validators may still use the validation context of the processing context
+	 */
+	boolean hasRunningValidators() {
+		return remainingValidators != null && remainingValidators.get() > 0;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return state.get() == CANCELLED;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public ApiPreprocessingContext get() throws InterruptedException, ExecutionException {
+		done.await();
+		return outcome();
+	}
+
+	@Override
+	public ApiPreprocessingContext get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException("Asynchronous validators did not complete in time");
+		}
+		return outcome();
+	}
+
+	private ApiPreprocessingContext outcome() throws ExecutionException {
+		switch (state.get()) {
+			case COMPLETED:
+				return context;
+			case CANCELLED:
+				throw new CancellationException(cause.getMessage());
+			default:
+				throw new ExecutionException(cause);
+		}
+	}
+
+	/**
+	 * Records the result of the context and completes processing, or fails with an
+	 * {@link ApiErrorsException}. Must only be called by the thread which moved the state to
+	 * {@link #COMPLETING}.
+	 */
+	private void succeed(boolean successful) {
+		try {
+			context.complete(successful);
+		} catch (ApiErrorsException aee) {
+			settle(FAILED, aee);
+			return;
+		}
+
+		settle(COMPLETED, null);
+	}
+
+	/**
+	 * Records the outcome of processing, releases waiting threads and notifies the callback. Must
+	 * only be called by the thread which moved the state to {@link #COMPLETING}.
+	 */
+	private void settle(int outcome, Throwable throwable) {
+		cause = throwable;
+		state.set(outcome);
+		done.countDown();
+
+		if (callback == null) {
+			return;
+		} else if (outcome == COMPLETED) {
+			callback.completed(context);
+		} else {
+			callback.failed(throwable);
+		}
+	}
+
+	private void validatorDone(Throwable validatorFailure) {
+		if (validatorFailure != null) {
+			failure.compareAndSet(null, validatorFailure);
+		}
+
+		// errors are discarded if processing was cancelled
+		if (remainingValidators.decrementAndGet() > 0 || !state.compareAndSet(PENDING, COMPLETING)) {
+			return;
+		}
+
+		final Throwable firstFailure = failure.get();
+		if (firstFailure != null) {
+			settle(FAILED, firstFailure);
+			return;
+		}
+
+		for (JsonValidationContext validationContext : validationContexts) {
+			validationContext.flushBufferedErrors();
+		}
+
+		if (!context.isStopped()) {
+			try {
+				context.getValidationContext().resolveDeferredLookups();
+			} catch (RuntimeException | Error e) {
+				settle(FAILED, e);
+				return;
+			}
+		}
+
+		succeed(!context.isStopped());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static IAsyncValidator<Object> uncheckedValidator(IAsyncValidator<?> validator) {
+		// validators are registered without checking the type of the processed object
+		return (IAsyncValidator<Object>) validator;
+	}
+
+	/**
+	 * Callback of one validator which ensures that it is only notified once.
+	 */
+	private class ValidatorCallback implements IValidationCallback {
+
+		private final IAsyncValidator<?> validator;
+		private final IValidationMonitor monitor;
+		private final long start;
+		private final AtomicBoolean notified;
+
+		public ValidatorCallback(IAsyncValidator<?> validator, IValidationMonitor monitor) {
+			this.validator = validator;
+			this.monitor = monitor;
+			this.start = monitor.isEnabled() ? System.nanoTime() : 0;
+			this.notified = new AtomicBoolean();
+		}
+
+		@Override
+		public void completed() {
+			if (!done(null)) {
+				throw new IllegalStateException("Validation callback was already notified");
+			}
+		}
+
+		@Override
+		public void failed(Throwable throwable) {
+			if (throwable == null) {
+				throw new IllegalArgumentException("Throwable cannot be null");
+			} else if (!done(throwable)) {
+				throw new IllegalStateException("Validation callback was already notified");
+			}
+		}
+
+		private boolean done(Throwable throwable) {
+			if (!notified.compareAndSet(false, true)) {
+				return false;
+			}
+
+			if (monitor.isEnabled()) {
+				monitor.asyncValidatorCompleted(validator, System.nanoTime() - start);
+			}
+
+			validatorDone(throwable);
+			return true;
+		}
+	}
+}
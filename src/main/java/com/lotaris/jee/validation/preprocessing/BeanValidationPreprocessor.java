@@ -10,9 +10,15 @@ import com.lotaris.jee.validation.IPatchObject;
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.JsonPointer;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.inject.Inject;
 import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.TraversableResolver;
+import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 
 /**
@@ -49,7 +55,9 @@ import javax.validation.ValidatorFactory;
  * {@link IPatchObject} or an illegal argument exception will be thrown.</p>
  *
  * <p>The patch object indicates which of its properties were explicitly set. Only those properties
- * will be validated. See {@link AbstractPatchTransferObject} for a patch object implementation.</p>
+ * will be validated; the other properties are not traversed at all, so the values of unset
+ * sub-objects and lists are never validated. See {@link AbstractPatchTransferObject} for a patch
+ * object implementation.</p>
  *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  * @author Laurent Prevost, laurent.prevost@lotaris.com
@@ -58,8 +66,17 @@ public class BeanValidationPreprocessor implements IPreprocessor {
 
 	@Inject
 	private ValidatorFactory validatorFactory;
+	/**
+	 * The validator obtained from the factory (validators are thread-safe).
+	 */
+	private volatile Validator validator;
 
 	private IConstraintConverter constraintConverter;
+	/**
+	 * The error code and location type of each constraint annotation type, as returned by the
+	 * constraint converter.
+	 */
+	private final ConcurrentMap<Class<? extends Annotation>, ConvertedConstraint> convertedConstraints = new ConcurrentHashMap<>();
 	
 	@Override
 	public boolean process(Object object, IPreprocessingConfig config) {
@@ -89,8 +106,10 @@ public class BeanValidationPreprocessor implements IPreprocessor {
 
 		// Validate the object. This may be a wrapped object (see JsonRootWrapper).
 		// In that case, the first fragment of the location path will be removed below.
+		// Unset properties of a patch object are not traversed at all.
+		final Validator currentValidator = patch != null ? getPatchValidator(patch) : getValidator();
 		final Set<ConstraintViolation<Object>> violations =
-				validatorFactory.getValidator().validate(object, config.getValidationGroups());
+				currentValidator.validate(object, config.getValidationGroups());
 
 		// No violations.
 		if (violations.isEmpty()) {
@@ -116,17 +135,20 @@ public class BeanValidationPreprocessor implements IPreprocessor {
 			}
 
 			// If patch validation is enabled and the patch object doesn't indicate the property as
-			// set, don't validate it.
-			if (patch != null && !patch.isPropertySet(pointer.fragmentAt(0))) {
+			// set, don't validate it. Errors of class-level constraints of the patch object (at the
+			// root) are always kept.
+			if (patch != null && pointer.size() > 0 && !patch.isPropertySet(pointer.fragmentAt(0))) {
 
 				/*
 				 * Note: this doesn't support deep patch validation. Only the properties of the
 				 * top-level object can use it.
 				 *
-				 * Implementation Note: all validations are run and then errors omitted here. Bean
-				 * validations provide a #validateProperty method that could be used instead, but it
-				 * doesn't honor the @Valid annotation for sub-objects or sub-lists, so the solution
-				 * would be incomplete.
+				 * Implementation Note: unset properties are not validated nor traversed (see
+				 * PatchTraversableResolver), so this only omits errors reported under an unset
+				 * property by a constraint declared elsewhere (e.g. a class-level constraint adding
+				 * its error to a property node). Bean validations provide a #validateProperty method
+				 * that could be used instead, but it doesn't honor the @Valid annotation for
+				 * sub-objects or sub-lists, so the solution would be incomplete.
 				 */
 				continue;
 			}
@@ -149,6 +171,47 @@ public class BeanValidationPreprocessor implements IPreprocessor {
 	 */
 	public void setConstraintConverter(IConstraintConverter constraintConverter) {
 		this.constraintConverter = constraintConverter;
+		this.convertedConstraints.clear();
+	}
+
+	private Validator getValidator() {
+		Validator currentValidator = validator;
+		if (currentValidator == null) {
+			currentValidator = validatorFactory.getValidator();
+			validator = currentValidator;
+		}
+		return currentValidator;
+	}
+
+	/**
+	 * Returns a validator which does not traverse the properties that the specified patch object
+	 * does not indicate as set.
+	 *
+	 * @param patch the patch object to validate
+	 * @return a validator for the patch object
+	 */
+	private Validator getPatchValidator(IPatchObject patch) {
+		final TraversableResolver defaultResolver = validatorFactory.getTraversableResolver();
+		return validatorFactory.usingContext().traversableResolver(new PatchTraversableResolver(patch, defaultResolver)).getValidator();
+	}
+
+	/**
+	 * Returns the error code and location type of the specified constraint annotation type. The
+	 * constraint converter is called once per annotation type.
+	 *
+	 * @param annotationType a constraint annotation type
+	 * @return the converted constraint
+	 */
+	private ConvertedConstraint convertConstraint(Class<? extends Annotation> annotationType) {
+
+		final ConvertedConstraint convertedConstraint = convertedConstraints.get(annotationType);
+		if (convertedConstraint != null) {
+			return convertedConstraint;
+		}
+
+		final ConvertedConstraint newConvertedConstraint = new ConvertedConstraint(constraintConverter.getErrorCode(annotationType), constraintConverter.getErrorLocationType(annotationType));
+		final ConvertedConstraint existingConvertedConstraint = convertedConstraints.putIfAbsent(annotationType, newConvertedConstraint);
+		return existingConvertedConstraint != null ? existingConvertedConstraint : newConvertedConstraint;
 	}
 	
 	/**
@@ -163,10 +226,65 @@ public class BeanValidationPreprocessor implements IPreprocessor {
 
 		// extract the error code, if any
 		final Class<? extends Annotation> annotationType = violation.getConstraintDescriptor().getAnnotation().annotationType();
-		final IErrorCode validationCode = constraintConverter.getErrorCode(annotationType);
-		final IErrorLocationType validationType = constraintConverter.getErrorLocationType(annotationType);
+		final ConvertedConstraint convertedConstraint = convertConstraint(annotationType);
 
 		// add the error to the validation context
-		context.addError(pointer.toString(), validationType, validationCode, violation.getMessage());
+		context.addError(pointer.toString(), convertedConstraint.locationType, convertedConstraint.code, violation.getMessage());
+	}
+
+	/**
+	 * Traversable resolver which prevents the validation of the unset properties of a patch object,
+	 * including cascaded validation of their values. Other properties are resolved by the default
+	 * resolver of the validator factory.
+	 */
+	private static class PatchTraversableResolver implements TraversableResolver {
+
+		private final IPatchObject patch;
+		private final TraversableResolver delegate;
+
+		public PatchTraversableResolver(IPatchObject patch, TraversableResolver delegate) {
+			this.patch = patch;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean isReachable(Object traversableObject, Path.Node traversableProperty, Class<?> rootBeanType, Path pathToTraversableObject, ElementType elementType) {
+			return !isUnsetPatchProperty(traversableObject, traversableProperty, pathToTraversableObject)
+					&& delegate.isReachable(traversableObject, traversableProperty, rootBeanType, pathToTraversableObject, elementType);
+		}
+
+		@Override
+		public boolean isCascadable(Object traversableObject, Path.Node traversableProperty, Class<?> rootBeanType, Path pathToTraversableObject, ElementType elementType) {
+			return !isUnsetPatchProperty(traversableObject, traversableProperty, pathToTraversableObject)
+					&& delegate.isCascadable(traversableObject, traversableProperty, rootBeanType, pathToTraversableObject, elementType);
+		}
+
+		private boolean isUnsetPatchProperty(Object traversableObject, Path.Node traversableProperty, Path pathToTraversableObject) {
+			return traversableObject == patch && isRootPath(pathToTraversableObject) && traversableProperty.getName() != null
+					&& !patch.isPropertySet(traversableProperty.getName());
+		}
+
+		private static boolean isRootPath(Path path) {
+			for (Path.Node node : path) {
+				if (node.getName() != null || node.getIndex() != null || node.getKey() != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The error code and location type of a constraint annotation type (either may be null).
+	 */
+	private static class ConvertedConstraint {
+
+		private final IErrorCode code;
+		private final IErrorLocationType locationType;
+
+		public ConvertedConstraint(IErrorCode code, IErrorLocationType locationType) {
+			this.code = code;
+			this.locationType = locationType;
+		}
 	}
 }
@@ -0,0 +1,49 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Lists the fields with modifier annotations of a class, so that the class need not be scanned
+ * when it is first processed by the {@link ModifiersPreprocessor}.
+ *
+ * <p>Plans are generated at compile time by the {@link ModifierPlanProcessor}. The plan of a class
+ * is named after the binary name of the class followed by <tt>$$Modifiers</tt> (e.g.
+ * <tt>com.example.UserTO$$Modifiers</tt>), must have a public no-argument constructor, and must
+ * list inherited fields as well as declared fields.</p>
+ *
+ * <p>Generated plans only list annotations marked with
+ * {@link com.lotaris.jee.validation.ModifierAnnotation}. A preprocessor with a modifier whose
+ * annotation is not marked ignores plans and scans classes instead.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public interface IModifierPlan {
+
+	/**
+	 * The suffix appended to the binary name of a class to obtain the name of its plan.
+	 */
+	String SUFFIX = "$$Modifiers";
+
+	/**
+	 * Registers each modifier annotation of each field of the class.
+	 *
+	 * @param registry the registry to add fields to
+	 */
+	void registerModifiedFields(IModifiedFieldRegistry registry);
+
+	/**
+	 * Receives the fields with modifier annotations of a class.
+	 */
+	interface IModifiedFieldRegistry {
+
+		/**
+		 * Registers a modifier annotation on a field. Annotations are applied in the order they
+		 * are registered.
+		 *
+		 * @param declaringClass the class declaring the field
+		 * @param fieldName the name of the field
+		 * @param annotationType the type of the modifier annotation
+		 */
+		void register(Class<?> declaringClass, String fieldName, Class<? extends Annotation> annotationType);
+	}
+}
@@ -0,0 +1,41 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.ApiErrorsException;
+
+/**
+ * Notified when asynchronous preprocessing is done. This is typically used to resume an
+ * asynchronous JAX-RS response:
+ *
+ * <p><pre>
+ *	preprocessing().validateAsyncWith(uniqueNameValidator).processAsync(user, new IPreprocessingCallback() {
+ *		public void completed(ApiPreprocessingContext context) {
+ *			asyncResponse.resume(createUser(user));
+ *		}
+ *		public void failed(Throwable throwable) {
+ *			asyncResponse.resume(throwable);
+ *		}
+ *	});
+ * </pre></p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ * @see ApiPreprocessingContext#processAsync(java.lang.Object, com.lotaris.jee.validation.preprocessing.IPreprocessingCallback)
+ */
+public interface IPreprocessingCallback {
+
+	/**
+	 * Called once preprocessing is complete. If the context does not fail on errors, it may have
+	 * errors.
+	 *
+	 * @param context the preprocessing context
+	 */
+	void completed(ApiPreprocessingContext context);
+
+	/**
+	 * Called if preprocessing failed: with an {@link ApiErrorsException} if errors were collected
+	 * and the context fails on errors, or with the exception thrown by a preprocessor or reported
+	 * by an asynchronous validator.
+	 *
+	 * @param throwable the cause of the failure
+	 */
+	void failed(Throwable throwable);
+}
@@ -3,6 +3,8 @@ package com.lotaris.jee.validation.preprocessing;
 import com.lotaris.jee.validation.IPatchObject;
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import java.util.List;
 import javax.validation.groups.Default;
 
@@ -46,4 +48,46 @@ public interface IPreprocessingConfig {
 	 * @see BeanValidationPreprocessor
 	 */
 	boolean isPatchValidationEnabled();
+
+	/**
+	 * Whether modifiers should also be applied to nested objects, including the elements of
+	 * collections and arrays and the values of maps. Otherwise, only the fields of the processed
+	 * object itself are modified.
+	 *
+	 * @return true if recursive modification is enabled
+	 * @see ModifiersPreprocessor
+	 */
+	boolean isRecursiveModificationEnabled();
+
+	/**
+	 * Whether preprocessing should stop as soon as errors have been collected. The preprocessing
+	 * chain then does not run the preprocessors following the one which produced the first errors
+	 * (e.g. bean validations are skipped if a cheaper preprocessor before them failed), and the
+	 * validation preprocessor does not run the validators following the one which produced the
+	 * first errors. Otherwise, all preprocessors and validators are run (up to the error limit).
+	 *
+	 * @return true if preprocessing should stop on errors
+	 * @see PreprocessingChain
+	 * @see ValidationPreprocessor
+	 */
+	boolean isStopOnErrorsEnabled();
+
+	/**
+	 * Whether validators should be run by increasing average cost, as measured by previous runs,
+	 * rather than in the order they were registered. This should only be enabled if validators
+	 * are independent from each other.
+	 *
+	 * @return true if validators should be ordered by cost
+	 * @see ValidationPreprocessor
+	 */
+	boolean isValidatorCostOrderingEnabled();
+
+	/**
+	 * Returns the monitor to notify of the time taken by preprocessors and validators.
+	 *
+	 * @return a monitor (must not be null; see {@link NoOpValidationMonitor})
+	 * @see PreprocessingChain
+	 * @see ValidationPreprocessor
+	 */
+	IValidationMonitor getMonitor();
 }
@@ -0,0 +1,205 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.ModifierAnnotation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an {@link IModifierPlan} for each class with fields annotated with modifier annotations
+ * (annotations marked with {@link ModifierAnnotation}, such as <tt>@Trim</tt>). The
+ * {@link ModifiersPreprocessor} uses these plans instead of scanning classes at runtime.
+ *
+ * <p>The processor is not registered by the library jar, so it only runs when requested. It is
+ * registered as a service by the <tt>processor</tt> artifact of the library (classifier), which
+ * can be added to the annotation processor path. No plan is generated for classes which the
+ * generated code cannot access (e.g. private nested classes); these classes are scanned at
+ * runtime.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@SupportedAnnotationTypes("*")
+public class ModifierPlanProcessor extends AbstractProcessor {
+
+	private final Set<String> generatedPlans = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			processType(type);
+		}
+
+		// other processors may handle the same annotations
+		return false;
+	}
+
+	private void processType(TypeElement type) {
+
+		// nested classes may also have modifier annotations
+		for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+			processType(memberType);
+		}
+
+		// plans are only used for the runtime class of processed objects
+		if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return;
+		}
+
+		final List<ModifiedField> fields = getModifiedFields(type);
+		if (fields.isEmpty()) {
+			return;
+		}
+
+		final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+		if (!isAccessible(type, packageElement)) {
+			return;
+		}
+
+		for (ModifiedField field : fields) {
+			if (!isAccessible(field.declaringClass, packageElement) || !isAccessible(field.annotationType, packageElement)) {
+				return;
+			}
+		}
+
+		final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		final String planName = binaryName + IModifierPlan.SUFFIX;
+		if (!generatedPlans.add(planName)) {
+			return;
+		}
+
+		try {
+			writePlan(type, packageElement, planName, fields);
+		} catch (IOException ioe) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not generate modifier plan " + planName + ": " + ioe.getMessage(), type);
+		}
+	}
+
+	/**
+	 * Returns the modifier annotations of the declared and inherited instance fields of the
+	 * specified class.
+	 */
+	private List<ModifiedField> getModifiedFields(TypeElement type) {
+
+		final List<ModifiedField> fields = new ArrayList<>();
+
+		for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+			for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+
+				if (field.getModifiers().contains(Modifier.STATIC)) {
+					continue;
+				}
+
+				for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+					final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+					if (annotationType.getAnnotation(ModifierAnnotation.class) != null) {
+						fields.add(new ModifiedField(current, field.getSimpleName().toString(), annotationType));
+					}
+				}
+			}
+		}
+
+		return fields;
+	}
+
+	private static TypeElement getSuperclass(TypeElement type) {
+		final TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return (TypeElement) ((DeclaredType) superclass).asElement();
+	}
+
+	/**
+	 * Indicates whether the specified type can be referenced by a class of the specified package.
+	 */
+	private boolean isAccessible(TypeElement type, PackageElement fromPackage) {
+
+		final boolean samePackage = processingEnv.getElementUtils().getPackageOf(type).equals(fromPackage);
+
+		for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+
+			final TypeElement currentType = (TypeElement) current;
+			if (currentType.getNestingKind() != NestingKind.TOP_LEVEL && currentType.getNestingKind() != NestingKind.MEMBER) {
+				return false;
+			}
+
+			final Set<Modifier> modifiers = currentType.getModifiers();
+			if (modifiers.contains(Modifier.PRIVATE) || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void writePlan(TypeElement type, PackageElement packageElement, String planName, List<ModifiedField> fields) throws IOException {
+
+		final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		final String simpleName = packageName.isEmpty() ? planName : planName.substring(packageName.length() + 1);
+
+		try (Writer writer = processingEnv.getFiler().createSourceFile(planName, type).openWriter()) {
+
+			if (!packageName.isEmpty()) {
+				writer.write("package " + packageName + ";\n\n");
+			}
+
+			writer.write("/**\n");
+			writer.write(" * Modifier plan of {@link " + type.getQualifiedName() + "}.\n");
+			writer.write(" * Generated by " + ModifierPlanProcessor.class.getName() + ".\n");
+			writer.write(" */\n");
+			writer.write("public final class " + simpleName + " implements " + IModifierPlan.class.getName() + " {\n\n");
+			writer.write("\t@Override\n");
+			writer.write("\tpublic void registerModifiedFields(" + IModifierPlan.IModifiedFieldRegistry.class.getCanonicalName() + " registry) {\n");
+
+			for (ModifiedField field : fields) {
+				writer.write("\t\tregistry.register(" + field.declaringClass.getQualifiedName() + ".class, \"" + field.name + "\", "
+						+ field.annotationType.getQualifiedName() + ".class);\n");
+			}
+
+			writer.write("\t}\n");
+			writer.write("}\n");
+		}
+	}
+
+	/**
+	 * A modifier annotation on a field.
+	 */
+	private static class ModifiedField {
+
+		private final TypeElement declaringClass;
+		private final String name;
+		private final TypeElement annotationType;
+
+		public ModifiedField(TypeElement declaringClass, String name, TypeElement annotationType) {
+			this.declaringClass = declaringClass;
+			this.name = name;
+			this.annotationType = annotationType;
+		}
+	}
+}
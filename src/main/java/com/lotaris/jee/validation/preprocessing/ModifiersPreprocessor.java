@@ -1,16 +1,28 @@
 package com.lotaris.jee.validation.preprocessing;
 
 import com.lotaris.jee.validation.preprocessing.modifier.TrimModifier;
+import com.lotaris.jee.validation.AbstractModifier;
+import com.lotaris.jee.validation.FieldAccessor;
 import com.lotaris.jee.validation.IModifier;
+import com.lotaris.jee.validation.ModifierAnnotation;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import org.slf4j.LoggerFactory;
@@ -18,55 +30,172 @@ import org.slf4j.LoggerFactory;
 /**
  * Applies all modifier annotations to the processed object. See {@link IModifier}.
  *
+ * <p>By default, only the fields of the processed object itself are modified. If recursive
+ * modification is enabled (see {@link IPreprocessingConfig#isRecursiveModificationEnabled()}),
+ * nested objects are also modified, including the elements of collections and arrays and the
+ * values of maps. Cycles are detected and each object is modified once. Fields are only followed
+ * if their declared type can lead to modifier annotations; for example, a <tt>List&lt;String&gt;</tt>
+ * or a nested object without modifier annotations is skipped entirely.</p>
+ *
+ * <p>Classes are scanned for modifier annotations when first processed, unless a plan was
+ * generated for them at compile time by the {@link ModifierPlanProcessor} (see
+ * {@link IModifierPlan}), in which case only the fields it lists are looked up (the fields and
+ * their annotations are still read through reflection, once per class). Plans only list
+ * annotations marked with {@link ModifierAnnotation}, so they are not used by a preprocessor
+ * with a modifier whose annotation is not marked; such a preprocessor scans classes.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public class ModifiersPreprocessor implements IPreprocessor {
 
 	/**
-	 * Cache of preprocessing annotations for each class and their fields.
+	 * Whether each annotation type is the annotation type of a modifier registered by a
+	 * preprocessor. Only fields with these annotations are cached.
+	 *
+	 * <p>The flag is associated to the annotation type itself rather than kept in a set, so that
+	 * registered annotation types (and their class loader) can still be unloaded.</p>
+	 */
+	private static final ClassValue<AtomicBoolean> MODIFIER_ANNOTATION_TYPES = new ClassValue<AtomicBoolean>() {
+		@Override
+		protected AtomicBoolean computeValue(Class<?> type) {
+			return new AtomicBoolean();
+		}
+	};
+	/**
+	 * Incremented every time a new modifier annotation type is registered, which invalidates the
+	 * cache.
+	 */
+	private static final AtomicInteger MODIFIER_ANNOTATION_TYPES_VERSION = new AtomicInteger();
+
+	/**
+	 * Cache of the fields with modifier annotations for each class. Fields are accessible and their
+	 * annotations are resolved so that processing an object requires no reflection lookups.
+	 *
+	 * <p>Reads are lock-free and the cached metadata is associated to the class itself, so it does
+	 * not prevent classes from being unloaded (e.g. when an application is redeployed).</p>
 	 */
-	private static Map<Class, Map<Field, Set<Class<? extends Annotation>>>> cache;
+	private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata(type);
+		}
+	};
+
+	/**
+	 * Registers a modifier annotation type. Classes scanned before the registration of a new type
+	 * will be scanned again.
+	 *
+	 * @param annotationType the annotation type of a modifier
+	 */
+	private static void registerModifierAnnotationType(Class<? extends Annotation> annotationType) {
+		if (MODIFIER_ANNOTATION_TYPES.get(annotationType).compareAndSet(false, true)) {
+			MODIFIER_ANNOTATION_TYPES_VERSION.incrementAndGet();
+		}
+	}
 
-	static {
-		cache = new HashMap<>();
+	private static boolean isModifierAnnotationType(Class<? extends Annotation> annotationType) {
+		return MODIFIER_ANNOTATION_TYPES.get(annotationType).get();
 	}
 
 	/**
-	 * Fills the annotation cache for the specified class. This scans all fields of the class and
-	 * checks if they have modifier annotations. This information is saved in a synchronized static
-	 * cache.
+	 * Returns the metadata of the specified class. The class is scanned the first time it is
+	 * processed; the result is cached until a new modifier annotation type is registered.
 	 *
 	 * @param objectClass the class to scan for preprocessing annotations
-	 * @param processors the map of registered preprocessors (the map key is the annotation type)
+	 * @return the metadata of the class
 	 */
-	private synchronized static void fillCache(Class objectClass, Map<Class<? extends Annotation>, IModifier> processors) {
+	private static ClassMetadata getMetadata(Class<?> objectClass) {
 
-		if (cache.containsKey(objectClass)) {
-			return;
+		final ClassMetadata metadata = CACHE.get(objectClass);
+		if (metadata.version == MODIFIER_ANNOTATION_TYPES_VERSION.get()) {
+			return metadata;
 		}
 
-		final Map<Field, Set<Class<? extends Annotation>>> classCache = new HashMap<>();
-		cache.put(objectClass, classCache);
+		// a modifier annotation type was registered after the class was scanned
+		CACHE.remove(objectClass);
+		return CACHE.get(objectClass);
+	}
 
-		// for each field...
-		for (Field field : getAllFields(objectClass)) {
+	/**
+	 * Indicates whether values of the specified type can be (or contain) objects with modifier
+	 * annotations. Collections, maps and arrays are checked through their element type. Types
+	 * which cannot be fully determined (e.g. <tt>Object</tt>, interfaces or type variables) are
+	 * assumed to lead to modifier annotations.
+	 *
+	 * @param type the declared type of a field
+	 * @param visiting the classes being checked (to break cycles)
+	 * @return true if values of the type must be visited
+	 */
+	private static boolean canReachModifiers(Type type, Set<Class<?>> visiting) {
+
+		if (type instanceof GenericArrayType) {
+			return canReachModifiers(((GenericArrayType) type).getGenericComponentType(), visiting);
+		} else if (type instanceof ParameterizedType) {
 
-			final Set<Class<? extends Annotation>> fieldCache = new HashSet<>();
+			final ParameterizedType parameterizedType = (ParameterizedType) type;
+			final Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+			final Type[] arguments = parameterizedType.getActualTypeArguments();
 
-			// for each annotation on that field...
-			for (Annotation annotation : field.getAnnotations()) {
+			if (Iterable.class.isAssignableFrom(rawType) && arguments.length == 1) {
+				return canReachModifiers(arguments[0], visiting);
+			} else if (Map.class.isAssignableFrom(rawType) && arguments.length == 2) {
+				return canReachModifiers(arguments[1], visiting);
+			}
 
-				// cache the annotation type if there is a registered preprocessor for it
-				final Class<? extends Annotation> annotationType = annotation.annotationType();
-				if (processors.containsKey(annotationType)) {
-					fieldCache.add(annotationType);
+			return canReachModifiers(rawType, visiting);
+		} else if (!(type instanceof Class)) {
+			// type variable or wildcard
+			return true;
+		}
+
+		final Class<?> typeClass = (Class<?>) type;
+		if (typeClass.isArray()) {
+			return canReachModifiers(typeClass.getComponentType(), visiting);
+		} else if (typeClass == Object.class || typeClass.isInterface() || Modifier.isAbstract(typeClass.getModifiers())
+				|| Iterable.class.isAssignableFrom(typeClass) || Map.class.isAssignableFrom(typeClass)) {
+			// the actual type is only known at runtime
+			return !isLeaf(typeClass);
+		} else if (isLeaf(typeClass) || !visiting.add(typeClass)) {
+			// classes being checked are handled by the caller
+			return false;
+		}
+
+		try {
+			for (Field field : getAllFields(typeClass)) {
+				if (!Modifier.isStatic(field.getModifiers()) && (hasModifierAnnotations(field) || canReachModifiers(field.getGenericType(), visiting))) {
+					return true;
 				}
 			}
+			return false;
+		} finally {
+			visiting.remove(typeClass);
+		}
+	}
 
-			if (!fieldCache.isEmpty()) {
-				classCache.put(field, fieldCache);
+	private static boolean hasModifierAnnotations(Field field) {
+		for (Annotation annotation : field.getAnnotations()) {
+			if (isModifierAnnotationType(annotation.annotationType())) {
+				return true;
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Indicates whether the specified class is a value type which is not traversed during
+	 * recursive modification: primitives, enums and Java classes other than collections and maps
+	 * (e.g. strings, numbers and dates).
+	 *
+	 * @param type the class to check
+	 * @return true if values of the class are not traversed
+	 */
+	private static boolean isLeaf(Class<?> type) {
+		if (type.isPrimitive() || type.isEnum()) {
+			return true;
+		}
+
+		final String name = type.getName();
+		return (name.startsWith("java.") || name.startsWith("javax.")) && !Iterable.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type) && type != Object.class;
 	}
 
 	/**
@@ -86,6 +215,11 @@ public class ModifiersPreprocessor implements IPreprocessor {
 	 * The map of preprocessors by annotation type.
 	 */
 	private Map<Class<? extends Annotation>, IModifier> processorsCache;
+	/**
+	 * Whether generated modifier plans list all the annotations of the registered preprocessors,
+	 * i.e. whether all their annotations are marked with {@link ModifierAnnotation}.
+	 */
+	private boolean modifierPlansUsable = true;
 	//</editor-fold>
 	//<editor-fold defaultstate="collapsed" desc="Manual Injections">
 	@Inject
@@ -114,6 +248,8 @@ public class ModifiersPreprocessor implements IPreprocessor {
 					field.setAccessible(true);
 					final IModifier processor = (IModifier) field.get(this);
 					processorsCache.put(processor.getAnnotationType(), processor);
+					registerModifierAnnotationType(processor.getAnnotationType());
+					modifierPlansUsable &= processor.getAnnotationType().isAnnotationPresent(ModifierAnnotation.class);
 				} catch (IllegalArgumentException | IllegalAccessException ex) {
 					LoggerFactory.getLogger(ModifiersPreprocessor.class) .error("Could not register pre-processor for field " + field.getName());
 				}
@@ -130,31 +266,289 @@ public class ModifiersPreprocessor implements IPreprocessor {
 			return true;
 		}
 
-		fillCache(object.getClass(), processorsCache);
+		if (config.isRecursiveModificationEnabled()) {
+			processRecursively(object, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+			return true;
+		}
 
 		// for each field and their preprocessing annotations...
-		for (Map.Entry<Field, Set<Class<? extends Annotation>>> entry : cache.get(object.getClass()).entrySet()) {
-
-			try {
-				// process the field
-				processField(object, entry.getKey(), entry.getValue());
-			} catch (NoSuchFieldException ex) {
-				LoggerFactory.getLogger(ModifiersPreprocessor.class) .warn("Field " + entry.getKey() + " should have been cached", ex);
-			}
+		for (ModifiedField modifiedField : getMetadata(object.getClass()).getModifiedFields(modifierPlansUsable)) {
+			processField(object, modifiedField);
 		}
 
 		return true;
 	}
 
+	/**
+	 * Applies modifiers to the specified object and to the objects it references. Collections,
+	 * arrays and map values are traversed. Each object is processed only once.
+	 *
+	 * @param object the object to process
+	 * @param visited the objects already processed
+	 */
+	private void processRecursively(Object object, Set<Object> visited) {
+
+		if (object == null) {
+			return;
+		}
+
+		final Class<?> objectClass = object.getClass();
+		if (isLeaf(objectClass) || !visited.add(object)) {
+			return;
+		}
+
+		if (object instanceof Iterable) {
+			for (Object element : (Iterable<?>) object) {
+				processRecursively(element, visited);
+			}
+		} else if (object instanceof Map) {
+			for (Object value : ((Map<?, ?>) object).values()) {
+				processRecursively(value, visited);
+			}
+		} else if (object instanceof Object[]) {
+			for (Object element : (Object[]) object) {
+				processRecursively(element, visited);
+			}
+		} else if (!objectClass.isArray()) {
+
+			final ClassMetadata metadata = getMetadata(objectClass);
+			for (ModifiedField modifiedField : metadata.getModifiedFields(modifierPlansUsable)) {
+				processField(object, modifiedField);
+			}
+
+			// only follow the fields which can lead to other modifier annotations
+			for (FieldAccessor nestedField : metadata.getNestedFields()) {
+				processRecursively(nestedField.get(object), visited);
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
-	private void processField(Object object, Field field, Set<Class<? extends Annotation>> annotationTypes) throws NoSuchFieldException {
+	private void processField(Object object, ModifiedField modifiedField) {
+		for (int i = 0; i < modifiedField.annotations.length; i++) {
 
-		field.setAccessible(true);
-		for (Class<? extends Annotation> annotationType : annotationTypes) {
+			// run the preprocessor for the annotation (another preprocessor may have registered
+			// modifiers which this one does not have)
+			final IModifier processor = processorsCache.get(modifiedField.annotationTypes[i]);
+			if (processor instanceof AbstractModifier) {
+				((AbstractModifier) processor).process(object, modifiedField.accessor, modifiedField.annotations[i]);
+			} else if (processor != null) {
+				processor.process(object, modifiedField.field, modifiedField.annotations[i]);
+			}
+		}
+	}
+
+	/**
+	 * The fields with modifier annotations of a class.
+	 */
+	private static class ClassMetadata {
+
+		/**
+		 * The version of the registered modifier annotation types when the class was scanned.
+		 */
+		private final int version;
+		private final Class<?> type;
+		/**
+		 * The fields listed by the generated plan of the class, or null if it has none.
+		 */
+		private final ModifiedField[] plannedFields;
+		/**
+		 * The fields found by scanning the class. Computed when first needed if there is a plan.
+		 */
+		private volatile ModifiedField[] scannedFields;
+		/**
+		 * The fields to follow during recursive modification, i.e. fields whose values may be (or
+		 * contain) objects with modifier annotations. Computed when first needed.
+		 */
+		private volatile FieldAccessor[] nestedFields;
+
+		public ClassMetadata(Class<?> type) {
+
+			// read the version first so that a concurrent registration invalidates this metadata
+			this.version = MODIFIER_ANNOTATION_TYPES_VERSION.get();
+			this.type = type;
+
+			final IModifierPlan plan = loadPlan(type);
+			this.plannedFields = plan != null ? toModifiedFields(getModifiedFields(plan)) : null;
+			this.scannedFields = plan != null ? null : toModifiedFields(getModifiedFields(type));
+		}
+
+		/**
+		 * Returns the fields with modifier annotations of the class.
+		 *
+		 * @param usePlan whether the fields listed by the plan of the class, if any, can be used
+		 * @return the modified fields
+		 */
+		public ModifiedField[] getModifiedFields(boolean usePlan) {
+			if (usePlan && plannedFields != null) {
+				return plannedFields;
+			}
+
+			ModifiedField[] fields = scannedFields;
+			if (fields == null) {
+				fields = toModifiedFields(getModifiedFields(type));
+				scannedFields = fields;
+			}
+
+			return fields;
+		}
+
+		private static ModifiedField[] toModifiedFields(Map<Field, List<Annotation>> annotationsByField) {
+
+			final List<ModifiedField> fields = new ArrayList<>(annotationsByField.size());
+			for (Map.Entry<Field, List<Annotation>> entry : annotationsByField.entrySet()) {
+				entry.getKey().setAccessible(true);
+				fields.add(new ModifiedField(entry.getKey(), entry.getValue().toArray(new Annotation[entry.getValue().size()])));
+			}
+
+			return fields.toArray(new ModifiedField[fields.size()]);
+		}
+
+		public FieldAccessor[] getNestedFields() {
+
+			FieldAccessor[] fields = nestedFields;
+			if (fields == null) {
+
+				final List<FieldAccessor> nested = new ArrayList<>();
+				final Set<Class<?>> visiting = new HashSet<>();
+
+				for (Field field : getAllFields(type)) {
+					if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive() && canReachModifiers(field.getGenericType(), visiting)) {
+						nested.add(FieldAccessor.of(field));
+					}
+				}
+
+				fields = nested.toArray(new FieldAccessor[nested.size()]);
+				nestedFields = fields;
+			}
+
+			return fields;
+		}
+
+		/**
+		 * Scans the fields of the class for registered modifier annotations.
+		 */
+		private static Map<Field, List<Annotation>> getModifiedFields(Class<?> type) {
+
+			final Map<Field, List<Annotation>> annotationsByField = new LinkedHashMap<>();
+
+			// for each field...
+			for (Field field : getAllFields(type)) {
 
-			// run the preprocessor for the annotation
-			final Annotation annotation = field.getAnnotation(annotationType);
-			processorsCache.get(annotationType).process(object, field, annotation);
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+
+				// for each annotation on that field...
+				for (Annotation annotation : field.getAnnotations()) {
+
+					// cache the annotation if there is a registered modifier for it
+					if (isModifierAnnotationType(annotation.annotationType())) {
+						addAnnotation(annotationsByField, field, annotation);
+					}
+				}
+			}
+
+			return annotationsByField;
+		}
+
+		/**
+		 * Retrieves the fields listed by a generated plan and their registered modifier annotations.
+		 */
+		private static Map<Field, List<Annotation>> getModifiedFields(final IModifierPlan plan) {
+
+			final Map<Field, List<Annotation>> annotationsByField = new LinkedHashMap<>();
+
+			plan.registerModifiedFields(new IModifierPlan.IModifiedFieldRegistry() {
+				@Override
+				public void register(Class<?> declaringClass, String fieldName, Class<? extends Annotation> annotationType) {
+
+					if (!isModifierAnnotationType(annotationType)) {
+						return;
+					}
+
+					try {
+						final Field field = declaringClass.getDeclaredField(fieldName);
+						final Annotation annotation = field.getAnnotation(annotationType);
+						if (annotation != null) {
+							addAnnotation(annotationsByField, field, annotation);
+						}
+					} catch (NoSuchFieldException nsfe) {
+						LoggerFactory.getLogger(ModifiersPreprocessor.class).warn("Field " + fieldName + " of modifier plan " + plan.getClass().getName() + " does not exist", nsfe);
+					}
+				}
+			});
+
+			return annotationsByField;
+		}
+
+		private static void addAnnotation(Map<Field, List<Annotation>> annotationsByField, Field field, Annotation annotation) {
+			List<Annotation> annotations = annotationsByField.get(field);
+			if (annotations == null) {
+				annotations = new ArrayList<>(1);
+				annotationsByField.put(field, annotations);
+			}
+			annotations.add(annotation);
+		}
+
+		/**
+		 * Loads the plan generated for the specified class by the {@link ModifierPlanProcessor}.
+		 *
+		 * @return the plan, or null if there is none
+		 */
+		private static IModifierPlan loadPlan(Class<?> type) {
+
+			final ClassLoader classLoader = type.getClassLoader();
+			if (classLoader == null) {
+				return null;
+			}
+
+			try {
+				final Class<?> planClass = Class.forName(type.getName() + IModifierPlan.SUFFIX, true, classLoader);
+				if (IModifierPlan.class.isAssignableFrom(planClass)) {
+					return (IModifierPlan) planClass.getConstructor().newInstance();
+				}
+			} catch (ClassNotFoundException cnfe) {
+				// no plan was generated for this class
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+				LoggerFactory.getLogger(ModifiersPreprocessor.class).warn("Could not load modifier plan of " + type.getName() + "; its fields will be scanned", ex);
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * A field with modifier annotations.
+	 */
+	private static class ModifiedField {
+
+		/**
+		 * The field (made accessible).
+		 */
+		private final Field field;
+		/**
+		 * The accessor of the field, passed to modifiers extending {@link AbstractModifier}.
+		 */
+		private final FieldAccessor accessor;
+		/**
+		 * The modifier annotations of the field.
+		 */
+		private final Annotation[] annotations;
+		/**
+		 * The types of the annotations (resolved once as annotations are proxies).
+		 */
+		private final Class<? extends Annotation>[] annotationTypes;
+
+		@SuppressWarnings("unchecked")
+		public ModifiedField(Field field, Annotation[] annotations) {
+			this.field = field;
+			this.accessor = FieldAccessor.of(field);
+			this.annotations = annotations;
+			this.annotationTypes = new Class[annotations.length];
+			for (int i = 0; i < annotations.length; i++) {
+				this.annotationTypes[i] = annotations[i].annotationType();
+			}
 		}
 	}
 }
@@ -1,12 +1,17 @@
 package com.lotaris.jee.validation.preprocessing;
 
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Chain of {@link IPreprocessor} processes to apply to an object. You can add a preprocessor to the
  * chain with <tt>add</tt>. The chain runs all preprocessors in the order they were added. It stops
- * if any of the preprocessors indicates failure.
+ * if any of the preprocessors indicates failure, or if errors have been collected and the
+ * configuration requires to stop on errors (see {@link IPreprocessingConfig#isStopOnErrorsEnabled()}).
+ *
+ * <p>The time taken by each preprocessor is reported to the monitor of the preprocessing
+ * configuration (see {@link IPreprocessingConfig#getMonitor()}).</p>
  *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  * @see DefaultPreprocessingChain
@@ -33,12 +38,38 @@ public class PreprocessingChain implements IPreprocessor {
 	@Override
 	public boolean process(Object object, IPreprocessingConfig config) {
 
+		final IValidationMonitor monitor = config.getMonitor();
+		final boolean stopOnErrors = config.isStopOnErrorsEnabled();
+
 		for (IPreprocessor processor : processors) {
-			if (!processor.process(object, config)) {
+			if (!process(processor, object, config, monitor)) {
+				return false;
+			} else if (stopOnErrors && config.getValidationContext().hasErrors()) {
 				return false;
 			}
 		}
 
 		return true;
 	}
+
+	/**
+	 * Runs the specified preprocessor and reports the time it took to the monitor, if enabled.
+	 *
+	 * @param processor the preprocessor to run
+	 * @param object the object to preprocess
+	 * @param config the preprocessing configuration
+	 * @param monitor the monitor to notify
+	 * @return the result of the preprocessor
+	 */
+	static boolean process(IPreprocessor processor, Object object, IPreprocessingConfig config, IValidationMonitor monitor) {
+		if (!monitor.isEnabled()) {
+			return processor.process(object, config);
+		}
+
+		final long start = System.nanoTime();
+		final boolean result = processor.process(object, config);
+		monitor.preprocessorCompleted(processor, System.nanoTime() - start);
+
+		return result;
+	}
 }
@@ -2,30 +2,77 @@ package com.lotaris.jee.validation.preprocessing;
 
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import java.util.List;
 
 /**
  * Applies all validators returned by {@link IPreprocessingConfig#getValidators()} to the processed
  * object. If the object is invalid, errors are collected into the {@link ApiErrorResponse}
  * returned by {@link IPreprocessingConfig#getErrors()}.
  *
- * <p>Note that the validators are guaranteed to be executed in order.</p>
+ * <p>Note that the validators are guaranteed to be executed in order, unless ordering by cost is
+ * enabled (see {@link IPreprocessingConfig#isValidatorCostOrderingEnabled()}), in which case the
+ * validators which took the least time on average in previous runs are executed first. If the
+ * error limit of the validation context is reached, or if errors were collected and the
+ * configuration requires to stop on errors, the remaining validators are not run and
+ * preprocessing is considered to have failed.</p>
+ *
+ * <p>Once all validators have run, lookups they deferred with
+ * {@link IValidationContext#deferLookup(com.lotaris.jee.validation.IBatchResolver, java.lang.Object, com.lotaris.jee.validation.IDeferredCheck)}
+ * are resolved in batches (unless validation was stopped).</p>
+ *
+ * <p>The time taken by each validator is reported to the monitor of the preprocessing
+ * configuration (see {@link IPreprocessingConfig#getMonitor()}).</p>
  *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public class ValidationPreprocessor implements IPreprocessor {
 
+	private final ValidatorCosts costs = new ValidatorCosts();
+
 	@Override
-	@SuppressWarnings("unchecked")
+	@SuppressWarnings({"unchecked", "rawtypes"})
 	public boolean process(Object object, IPreprocessingConfig config) {
 
 		// build an initial validation context (its current location is the root of the JSON document)
 		final IValidationContext context = config.getValidationContext();
+		final IValidationMonitor monitor = config.getMonitor();
+		final boolean stopOnErrors = config.isStopOnErrorsEnabled();
+		final boolean orderByCost = config.isValidatorCostOrderingEnabled();
+		final List<IValidator> validators = orderByCost ? costs.order(config.getValidators()) : config.getValidators();
 
 		// collect errors for each validator
-		for (IValidator validator : config.getValidators()) {
-			validator.collectErrors(object, context);
+		for (IValidator validator : validators) {
+			if (isDone(context, stopOnErrors)) {
+				return false;
+			}
+			if (orderByCost || monitor.isEnabled()) {
+
+				final long start = System.nanoTime();
+				validator.collectErrors(object, context);
+				final long duration = System.nanoTime() - start;
+
+				if (orderByCost) {
+					costs.record(validator, duration);
+				}
+				if (monitor.isEnabled()) {
+					monitor.validatorCompleted(validator, duration);
+				}
+			} else {
+				validator.collectErrors(object, context);
+			}
 		}
 
-		return true;
+		if (isDone(context, stopOnErrors)) {
+			return false;
+		}
+
+		context.resolveDeferredLookups();
+
+		return !isDone(context, stopOnErrors);
+	}
+
+	private static boolean isDone(IValidationContext context, boolean stopOnErrors) {
+		return context.isErrorLimitReached() || (stopOnErrors && context.hasErrors());
 	}
 }
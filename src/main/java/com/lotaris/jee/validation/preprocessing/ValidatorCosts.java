@@ -0,0 +1,97 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.IValidator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Average time taken by validators, by validator class, used to run the cheapest validators first
+ * (see {@link IPreprocessingConfig#isValidatorCostOrderingEnabled()}).
+ *
+ * <p>Averages are exponential moving averages so that they follow changes in the cost of a
+ * validator (e.g. a database becoming slower). Concurrent updates may be lost; this is acceptable
+ * for an estimate.</p>
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+class ValidatorCosts {
+
+	/**
+	 * Each new duration accounts for 1/8th of the average.
+	 */
+	private static final int SMOOTHING_SHIFT = 3;
+
+	private final ConcurrentMap<Class<?>, AtomicLong> averageTimesNanos = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the average time taken by validators of the same class as the specified validator.
+	 *
+	 * @param validator the validator
+	 * @return a duration in nanoseconds (0 if no validator of that class was measured)
+	 */
+	long getCost(IValidator<?> validator) {
+		final AtomicLong averageTimeNanos = averageTimesNanos.get(validator.getClass());
+		return averageTimeNanos != null ? averageTimeNanos.get() : 0;
+	}
+
+	/**
+	 * Records the time taken by the specified validator.
+	 *
+	 * @param validator the validator
+	 * @param durationNanos the duration in nanoseconds
+	 */
+	void record(IValidator<?> validator, long durationNanos) {
+
+		final long duration = Math.max(0, durationNanos);
+
+		AtomicLong averageTimeNanos = averageTimesNanos.get(validator.getClass());
+		if (averageTimeNanos == null) {
+			averageTimeNanos = averageTimesNanos.putIfAbsent(validator.getClass(), new AtomicLong(duration));
+			if (averageTimeNanos == null) {
+				return;
+			}
+		}
+
+		final long average = averageTimeNanos.get();
+		averageTimeNanos.set(average + ((duration - average) >> SMOOTHING_SHIFT));
+	}
+
+	/**
+	 * Returns the specified validators ordered by increasing cost. Validators which were never
+	 * measured come first; validators of equal cost keep their relative order.
+	 *
+	 * @param validators the validators to order
+	 * @return a new list of validators
+	 */
+	<V extends IValidator<?>> List<V> order(List<V> validators) {
+
+		final int n = validators.size();
+		final List<V> ordered = new ArrayList<>(validators);
+		final long[] costs = new long[n];
+		for (int i = 0; i < n; i++) {
+			costs[i] = getCost(ordered.get(i));
+		}
+
+		// stable insertion sort; there are usually only a few validators
+		for (int i = 1; i < n; i++) {
+
+			final V validator = ordered.get(i);
+			final long cost = costs[i];
+
+			int j = i - 1;
+			while (j >= 0 && costs[j] > cost) {
+				ordered.set(j + 1, ordered.get(j));
+				costs[j + 1] = costs[j];
+				j--;
+			}
+
+			ordered.set(j + 1, validator);
+			costs[j + 1] = cost;
+		}
+
+		return ordered;
+	}
+}
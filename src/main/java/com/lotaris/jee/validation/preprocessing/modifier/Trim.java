@@ -1,5 +1,6 @@
 package com.lotaris.jee.validation.preprocessing.modifier;
 
+import com.lotaris.jee.validation.ModifierAnnotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -12,8 +13,13 @@ import java.lang.annotation.Target;
  * <p>Whitespace collapse replaces any sequence of whitespace (spaces, tabs, new lines, etc) with
  * one space. It can be disabled.</p>
  *
+ * <p>The annotated field can be a <tt>String</tt>, a <tt>char[]</tt> or another
+ * <tt>CharSequence</tt> (if the field cannot hold a string, only <tt>StringBuilder</tt> and
+ * <tt>StringBuffer</tt> values are supported and are modified in place).</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
+@ModifierAnnotation
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
@@ -25,4 +31,14 @@ public @interface Trim {
 	 * @return true to collapse whitespace, false otherwise
 	 */
 	boolean collapseWhitespace() default true;
+
+	/**
+	 * Determines whether Unicode whitespace such as the no-break space (U+00A0) or the ideographic
+	 * space (U+3000) is trimmed and collapsed. By default, only ASCII whitespace is: leading and
+	 * trailing control characters and spaces are removed like with {@link String#trim()}, and
+	 * sequences of spaces, tabs and line breaks are collapsed.
+	 *
+	 * @return true to also handle Unicode whitespace, false otherwise
+	 */
+	boolean unicodeWhitespace() default false;
 }
@@ -1,8 +1,10 @@
 package com.lotaris.jee.validation.preprocessing.modifier;
 
 import com.lotaris.jee.validation.AbstractModifier;
+import com.lotaris.jee.validation.FieldAccessor;
 import com.lotaris.jee.validation.IModifier;
 import java.lang.reflect.Field;
+import java.nio.CharBuffer;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -10,6 +12,9 @@ import org.slf4j.LoggerFactory;
  * Nothing is done if the value is null. Whitespace inside the string is collapsed only if the
  * corresponding switch is set on the annotation (true by default, see {@link Trim#collapseWhitespace()}).
  *
+ * <p>Values are trimmed and collapsed in a single pass. The field is not written and nothing is
+ * allocated if the value is already trimmed.</p>
+ *
  * @author Simon Oulevay (simon.oulevay@lotaris.com)
  */
 public class TrimModifier extends AbstractModifier<Trim> implements IModifier<Trim> {
@@ -19,31 +24,158 @@ public class TrimModifier extends AbstractModifier<Trim> implements IModifier<Tr
 
 	@Override
 	public void process(Object object, Field field, Trim annotation) {
+		process(object, FieldAccessor.of(field), annotation);
+	}
+
+	@Override
+	public void process(Object object, FieldAccessor accessor, Trim annotation) {
 		try {
-			trim(object, field, annotation);
-			LoggerFactory.getLogger(TrimModifier.class).trace("Trimmed field {}", field.getName());
-		} catch (IllegalArgumentException | IllegalAccessException ex) {
-			LoggerFactory.getLogger(TrimModifier.class).warn("Could not trim field " + field.getName(), ex);
+			trim(object, accessor, annotation);
+			LoggerFactory.getLogger(TrimModifier.class).trace("Trimmed field {}", accessor.getField().getName());
+		} catch (IllegalArgumentException | IllegalStateException ex) {
+			LoggerFactory.getLogger(TrimModifier.class).warn("Could not trim field " + accessor.getField().getName(), ex);
 		}
 	}
 
-	private void trim(Object object, Field field, Trim annotation) throws IllegalArgumentException, IllegalAccessException {
-		final Object value = field.get(object);
-		if (value != null) {
-			field.set(object, trimValue(value.toString(), annotation));
+	private void trim(Object object, FieldAccessor accessor, Trim annotation) {
+		final Object value = accessor.get(object);
+		if (value == null) {
+			return;
+		}
+
+		final boolean collapseWhitespace = annotation.collapseWhitespace();
+		final boolean unicodeWhitespace = annotation.unicodeWhitespace();
+
+		if (value instanceof String) {
+			final String trimmed = trimValue((String) value, collapseWhitespace, unicodeWhitespace);
+			if (trimmed != null) {
+				accessor.set(object, trimmed);
+			}
+		} else if (value instanceof char[]) {
+			final String trimmed = trimValue(CharBuffer.wrap((char[]) value), collapseWhitespace, unicodeWhitespace);
+			if (trimmed != null) {
+				accessor.set(object, trimmed.toCharArray());
+			}
+		} else if (value instanceof CharSequence) {
+			final String trimmed = trimValue((CharSequence) value, collapseWhitespace, unicodeWhitespace);
+			if (trimmed != null) {
+				setCharSequence(accessor, object, (CharSequence) value, trimmed);
+			}
+		} else {
+			throw new IllegalArgumentException("Only strings, character sequences and character arrays can be trimmed, got " + value.getClass().getName());
 		}
 	}
 
-	private String trimValue(String value, Trim annotation) {
+	private void setCharSequence(FieldAccessor accessor, Object object, CharSequence value, String trimmed) {
+		if (accessor.getField().getType().isAssignableFrom(String.class)) {
+			accessor.set(object, trimmed);
+		} else if (value instanceof StringBuilder) {
+			((StringBuilder) value).setLength(0);
+			((StringBuilder) value).append(trimmed);
+		} else if (value instanceof StringBuffer) {
+			((StringBuffer) value).setLength(0);
+			((StringBuffer) value).append(trimmed);
+		} else {
+			throw new IllegalArgumentException("Cannot store a trimmed value in a field of type " + accessor.getField().getType().getName());
+		}
+	}
+
+	/**
+	 * Removes leading and trailing whitespace from the specified value and optionally collapses
+	 * sequences of whitespace inside it into one space.
+	 *
+	 * <p>In ASCII mode, the result is the same as <tt>value.trim()</tt> followed by
+	 * <tt>replaceAll("\\s+", " ")</tt>. In Unicode mode, Unicode space and whitespace characters
+	 * are also trimmed and collapsed.</p>
+	 *
+	 * @param value the value to trim
+	 * @param collapseWhitespace whether to collapse whitespace inside the value
+	 * @param unicodeWhitespace whether to handle Unicode whitespace
+	 * @return the trimmed value, or null if the value is already trimmed
+	 */
+	static String trimValue(CharSequence value, boolean collapseWhitespace, boolean unicodeWhitespace) {
+
+		final int length = value.length();
+
+		// find the bounds of the trimmed value
+		int start = 0;
+		while (start < length && isTrimmed(value.charAt(start), unicodeWhitespace)) {
+			start++;
+		}
+
+		int end = length;
+		while (end > start && isTrimmed(value.charAt(end - 1), unicodeWhitespace)) {
+			end--;
+		}
 
-		// trim left and right
-		value = value.trim();
+		// find the first whitespace that must be replaced (any whitespace other than a single space)
+		int firstCollapse = end;
+		if (collapseWhitespace) {
+			for (int i = start; i < end; i++) {
+				final char c = value.charAt(i);
+				if (isCollapsed(c, unicodeWhitespace) && (c != ' ' || isCollapsed(value.charAt(i + 1), unicodeWhitespace))) {
+					firstCollapse = i;
+					break;
+				}
+			}
+		}
 
-		// replace all whitespace by one space
-		if (annotation.collapseWhitespace()) {
-			value = value.replaceAll("\\s+", " ");
+		if (firstCollapse == end) {
+			if (start == 0 && end == length) {
+				return null;
+			}
+			return value.subSequence(start, end).toString();
 		}
 
-		return value;
+		// copy the value up to the first whitespace to replace, then collapse the rest
+		final StringBuilder builder = new StringBuilder(end - start);
+		builder.append(value, start, firstCollapse);
+
+		boolean previousWhitespace = false;
+		for (int i = firstCollapse; i < end; i++) {
+			final char c = value.charAt(i);
+			if (isCollapsed(c, unicodeWhitespace)) {
+				if (!previousWhitespace) {
+					builder.append(' ');
+				}
+				previousWhitespace = true;
+			} else {
+				builder.append(c);
+				previousWhitespace = false;
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Indicates whether the specified character is removed from the start or end of a value.
+	 * Like {@link String#trim()}, all control characters and the space are removed.
+	 */
+	private static boolean isTrimmed(char c, boolean unicodeWhitespace) {
+		return c <= ' ' || (unicodeWhitespace && isUnicodeWhitespace(c));
+	}
+
+	/**
+	 * Indicates whether the specified character is collapsed inside a value. Like the
+	 * <tt>\s</tt> regular expression class, only spaces, tabs, line breaks and form feeds are
+	 * collapsed in ASCII mode.
+	 */
+	private static boolean isCollapsed(char c, boolean unicodeWhitespace) {
+		switch (c) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\u000B':
+			case '\f':
+			case '\r':
+				return true;
+			default:
+				return unicodeWhitespace && isUnicodeWhitespace(c);
+		}
+	}
+
+	private static boolean isUnicodeWhitespace(char c) {
+		return Character.isWhitespace(c) || Character.isSpaceChar(c);
 	}
 }
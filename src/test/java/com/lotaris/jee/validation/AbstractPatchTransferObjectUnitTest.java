@@ -44,7 +44,143 @@ public class AbstractPatchTransferObjectUnitTest {
 		assertFalse("Last name was not in JSON document; should not have been marked as set", transferObject.isPropertySet(PatchTO.LAST_NAME));
 	}
 
+	@Test
+	@RoxableTest(key = "679931ca8c51")
+	public void abstractPatchTransferObjectShouldMarkKeysAsSetByIndex() {
+
+		final int firstNameIndex = AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.FIRST_NAME);
+		assertEquals(firstNameIndex, AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.FIRST_NAME));
+
+		final PatchTO transferObject = new PatchTO();
+		assertFalse(transferObject.isPropertySet(firstNameIndex));
+
+		assertEquals("Bob", transferObject.markPropertyAsSet(firstNameIndex, "Bob"));
+		assertTrue(transferObject.isPropertySet(firstNameIndex));
+		assertTrue(transferObject.isPropertySet(PatchTO.FIRST_NAME));
+
+		transferObject.setMiddleName("Bill");
+		assertTrue(transferObject.isPropertySet(AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.MIDDLE_NAME)));
+		assertFalse(transferObject.isPropertySet(AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.LAST_NAME)));
+	}
+
+	@Test
+	@RoxableTest(key = "a37443074eac")
+	public void abstractPatchTransferObjectShouldTrackMoreThanSixtyFourProperties() {
+
+		final ManyPropertiesTO transferObject = new ManyPropertiesTO();
+		for (int i = 0; i < 200; i += 3) {
+			transferObject.markPropertyAsSet("property" + i, null);
+		}
+
+		for (int i = 0; i < 200; i++) {
+			assertEquals("Property " + i, i % 3 == 0, transferObject.isPropertySet("property" + i));
+		}
+
+		// the instance tracking is independent from the per-class indexes
+		final ManyPropertiesTO otherTransferObject = new ManyPropertiesTO();
+		otherTransferObject.markPropertyAsSet("property199", null);
+		assertTrue(otherTransferObject.isPropertySet("property199"));
+		assertFalse(otherTransferObject.isPropertySet("property0"));
+		assertFalse(transferObject.isPropertySet("property199"));
+	}
+
+	@Test
+	@RoxableTest(key = "b3da0b44f8a6")
+	public void abstractPatchTransferObjectShouldShareIndexesWithSubclasses() {
+
+		// the subclass registers its own property first
+		final int departmentIndex = AbstractPatchTransferObject.getPropertyIndex(EmployeeTO.class, EmployeeTO.DEPARTMENT);
+		final int lastNameIndex = AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.LAST_NAME);
+		assertFalse(departmentIndex == lastNameIndex);
+		assertEquals(lastNameIndex, AbstractPatchTransferObject.getPropertyIndex(EmployeeTO.class, PatchTO.LAST_NAME));
+		assertEquals(departmentIndex, AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, EmployeeTO.DEPARTMENT));
+
+		// an index obtained for the superclass is valid for subclass instances
+		final EmployeeTO employee = new EmployeeTO();
+		employee.markPropertyAsSet(lastNameIndex, "Smith");
+		assertTrue(employee.isPropertySet(PatchTO.LAST_NAME));
+		assertFalse(employee.isPropertySet(EmployeeTO.DEPARTMENT));
+
+		employee.setDepartment("R&D");
+		employee.setFirstName("Bob");
+		assertTrue(employee.isPropertySet(departmentIndex));
+		assertTrue(employee.isPropertySet(AbstractPatchTransferObject.getPropertyIndex(PatchTO.class, PatchTO.FIRST_NAME)));
+		assertFalse(employee.isPropertySet(PatchTO.MIDDLE_NAME));
+	}
+
+	@Test
+	@RoxableTest(key = "e42a4f248c3b")
+	public void abstractPatchTransferObjectShouldNotIndexMorePropertiesThanTheLimit() {
+
+		final int n = 2 * (AbstractPatchTransferObject.MAX_INDEXED_PROPERTIES + 100);
+
+		final UnboundedPropertiesTO transferObject = new UnboundedPropertiesTO();
+		for (int i = 0; i < n; i += 2) {
+			transferObject.markPropertyAsSet("property" + i, null);
+		}
+
+		for (int i = 0; i < n; i++) {
+			assertEquals("Property " + i, i % 2 == 0, transferObject.isPropertySet("property" + i));
+		}
+
+		// names marked as set beyond the limit are only tracked by the instance
+		final UnboundedPropertiesTO otherTransferObject = new UnboundedPropertiesTO();
+		otherTransferObject.markPropertyAsSet("property" + (n + 1), null);
+		assertTrue(otherTransferObject.isPropertySet("property" + (n + 1)));
+		assertFalse(otherTransferObject.isPropertySet("property" + (n - 2)));
+		assertFalse(transferObject.isPropertySet("property" + (n + 1)));
+
+		// indexes can still be requested explicitly
+		final int index = AbstractPatchTransferObject.getPropertyIndex(UnboundedPropertiesTO.class, "explicit");
+		assertTrue(index >= AbstractPatchTransferObject.MAX_INDEXED_PROPERTIES);
+		transferObject.markPropertyAsSet(index, null);
+		assertTrue(transferObject.isPropertySet("explicit"));
+	}
+
+	@Test
+	@RoxableTest(key = "23b38e060b68")
+	public void abstractPatchTransferObjectShouldNotConsiderUnknownPropertiesAsSet() {
+
+		final PatchTO transferObject = new PatchTO();
+		transferObject.setFirstName("Bob");
+
+		assertFalse(transferObject.isPropertySet("unknown"));
+		assertFalse(transferObject.isPropertySet((String) null));
+		assertFalse(transferObject.isPropertySet(-1));
+		assertFalse(transferObject.isPropertySet(1000));
+
+		try {
+			transferObject.markPropertyAsSet((String) null, "foo");
+			fail("Marking a null property as set should have failed");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			transferObject.markPropertyAsSet(-1, "foo");
+			fail("Marking a negative property index as set should have failed");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
 	//<editor-fold defaultstate="collapsed" desc="Test Transfer Object Class">
+	private static class ManyPropertiesTO extends AbstractPatchTransferObject {
+	}
+
+	private static class UnboundedPropertiesTO extends AbstractPatchTransferObject {
+	}
+
+	private static class EmployeeTO extends PatchTO {
+
+		private static final String DEPARTMENT = "department";
+		private String department;
+
+		public void setDepartment(String department) {
+			this.department = markPropertyAsSet(DEPARTMENT, department);
+		}
+	}
+
 	private static class PatchTO extends AbstractPatchTransferObject {
 
 		private static final String FIRST_NAME = "firstName";
@@ -255,6 +255,92 @@ public class AbstractValidatorUnitTest {
 		assertSetContains(checkedLocations, "/sub/foo", "/sub/bar/baz");
 	}
 
+	@Test
+	@RoxableTest(key = "a86b98a1cb44")
+	public void abstractValidatorShouldSkipValidationDueToPreviousErrorsInAJsonValidationContext() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext context = new JsonValidationContext(response);
+		response.addError(new ApiError("foo", null, null, "/sub/bar/baz/qux"));
+
+		// the locations of the annotation are relative to /sub
+		final TestValidator annotatedValidator = new AnnotatedTestValidator();
+		context.validateObject(new Object(), "/sub", annotatedValidator);
+		context.validateObject(new Object(), "/other", annotatedValidator);
+		assertEquals(1, annotatedValidator.numberOfCallsToValidate);
+
+		final TestValidator currentLocationValidator = new CurrentLocationAnnotatedTestValidator();
+		context.validateObject(new Object(), "/sub/bar", currentLocationValidator);
+		context.validateObject(new Object(), "/sub/foo", currentLocationValidator);
+		context.validateObject(new Object(), "", currentLocationValidator);
+		assertEquals(2, currentLocationValidator.numberOfCallsToValidate);
+	}
+
+	@Test
+	@RoxableTest(key = "ed778393f1c0")
+	public void abstractValidatorShouldSkipValidationDueToPreviousErrorsAddedManuallyInAJsonValidationContext() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext context = new JsonValidationContext(response);
+		response.addError(new ApiError("foo", null, null, "/sub/a~1b/0"));
+
+		final TestValidator validator = new TestValidator();
+		context.validateObject(new Object(), "/sub", validator);
+		assertEquals(1, validator.numberOfCallsToValidate);
+
+		validator.skipOnPreviousErrors("/a~1b");
+		context.validateObject(new Object(), "/sub", validator);
+		assertEquals(1, validator.numberOfCallsToValidate);
+	}
+
+	@Test
+	@RoxableTest(key = "7188e2d6e457")
+	public void abstractValidatorShouldSkipValidationDueToPreviousErrorsWithNoLocationInAJsonValidationContext() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext context = new JsonValidationContext(response);
+		response.addError(new ApiError("foo", null, null, "/sub/foo"));
+
+		// a null location only matches errors with no location, as with hasErrors(null)
+		final TestValidator validator = new TestValidator();
+		validator.skipOnPreviousErrors((String) null);
+		context.validateObject(new Object(), "/sub", validator);
+		assertEquals(1, validator.numberOfCallsToValidate);
+
+		response.addError(new ApiError("bar", null));
+		context.validateObject(new Object(), "/sub", validator);
+		assertEquals(1, validator.numberOfCallsToValidate);
+	}
+
+	@Test
+	@RoxableTest(key = "2d5b1f79f00f")
+	public void abstractValidatorShouldHonorModificationsOfThePreviousErrorLocationsInAJsonValidationContext() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext context = new JsonValidationContext(response);
+		response.addError(new ApiError("foo", null, null, "/foo"));
+
+		final TestValidator validator = new TestValidator();
+		validator.getPreviousErrorLocations(context).add("/foo");
+		context.validateObject(new Object(), "", validator);
+		assertEquals(0, validator.numberOfCallsToValidate);
+
+		final TestValidator overrideValidator = new OverrideTestValidator();
+		context.validateObject(new Object(), "", overrideValidator);
+		assertEquals(0, overrideValidator.numberOfCallsToValidate);
+	}
+
+	@Test
+	@RoxableTest(key = "ddc774a61459")
+	public void abstractValidatorShouldNotShareManuallyAddedLocationsBetweenInstances() {
+
+		final TestValidator validator = new AnnotatedTestValidator();
+		validator.skipOnPreviousErrors("/baz");
+
+		assertSetContains(validator.getPreviousErrorLocations(contextMock), "/foo", "/bar/baz", "/baz");
+		assertSetContains(new AnnotatedTestValidator().getPreviousErrorLocations(contextMock), "/foo", "/bar/baz");
+	}
+
 	private void assertSetContains(Set<String> set, String... elements) {
 
 		final int n = elements.length;
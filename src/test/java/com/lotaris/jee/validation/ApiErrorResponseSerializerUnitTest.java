@@ -0,0 +1,201 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.codehaus.jackson.map.introspect.Annotated;
+import org.codehaus.jackson.map.introspect.JacksonAnnotationIntrospector;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see ApiErrorResponseSerializer
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"api", "apiErrorResponseSerializer"})
+public class ApiErrorResponseSerializerUnitTest {
+
+	@Test
+	@RoxableTest(key = "c2ba363c3153")
+	public void apiErrorResponseSerializerShouldWriteErrorResponses() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(422);
+		assertEquals("{\"errors\":[]}", new ObjectMapper().writeValueAsString(res));
+
+		res.setMaxErrors(3);
+		res.addError(new ApiError("a \"quoted\"\nmessage", code(7), locationType("json"), "/x/0"));
+		res.addError(new ApiError("b", null));
+		res.addError(new ApiError(code(8), null, "/y", "%d items", 5));
+		res.addError(new ApiError("d", code(9)));
+
+		assertEquals("{\"errors\":["
+				+ "{\"message\":\"a \\\"quoted\\\"\\nmessage\",\"location\":\"/x/0\",\"code\":7,\"locationType\":\"json\"},"
+				+ "{\"message\":\"b\",\"location\":null,\"code\":null,\"locationType\":null},"
+				+ "{\"message\":\"5 items\",\"location\":\"/y\",\"code\":8,\"locationType\":null}"
+				+ "],\"truncated\":true}", new ObjectMapper().writeValueAsString(res));
+	}
+
+	@Test
+	@RoxableTest(key = "4cccb76b7ac4")
+	public void apiErrorResponseSerializerShouldProduceTheSameOutputAsBeanSerialization() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(400);
+		for (int i = 0; i < 100; i++) {
+			res.addError(new ApiError(i % 3 == 0 ? code(i) : null, i % 2 == 0 ? locationType("json") : null, i % 5 == 0 ? null : "/items/" + i, "Error %d", i));
+		}
+
+		// bean serialization of the response, as without the serializer
+		final ObjectMapper beanMapper = beanMapper();
+
+		// the order of bean properties is not defined
+		final ObjectMapper mapper = new ObjectMapper();
+		assertEquals(mapper.readValue(beanMapper.writeValueAsString(res), Map.class), mapper.readValue(mapper.writeValueAsString(res), Map.class));
+	}
+
+	@Test
+	@RoxableTest(key = "2981a7a4bb35")
+	public void apiErrorResponseSerializerShouldOmitNullPropertiesIfConfigured() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(422);
+		res.addError(new ApiError("b", null));
+
+		final ObjectMapper mapper = new ObjectMapper();
+		mapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
+		assertEquals("{\"errors\":[{\"message\":\"b\"}]}", mapper.writeValueAsString(res));
+
+		mapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_EMPTY);
+		res.addError(new ApiError("", code(3), null, ""));
+		assertEquals("{\"errors\":[{\"message\":\"b\"},{\"code\":3}]}", mapper.writeValueAsString(res));
+	}
+
+	@Test
+	@RoxableTest(key = "7f42a04bceec")
+	public void apiErrorResponseSerializerShouldProduceTheSameOutputAsBeanSerializationWithInclusionSettings() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(400);
+		for (int i = 0; i < 100; i++) {
+			res.addError(new ApiError(i % 3 == 0 ? code(i) : null, i % 2 == 0 ? locationType("json") : null, i % 5 == 0 ? null : (i % 7 == 0 ? "" : "/items/" + i), "Error %d", i));
+		}
+
+		for (JsonSerialize.Inclusion inclusion : new JsonSerialize.Inclusion[]{ JsonSerialize.Inclusion.ALWAYS, JsonSerialize.Inclusion.NON_NULL, JsonSerialize.Inclusion.NON_EMPTY }) {
+
+			final ObjectMapper beanMapper = beanMapper();
+			beanMapper.setSerializationInclusion(inclusion);
+
+			final ObjectMapper mapper = new ObjectMapper();
+			mapper.setSerializationInclusion(inclusion);
+
+			assertEquals(inclusion.toString(), mapper.readValue(beanMapper.writeValueAsString(res), Map.class), mapper.readValue(mapper.writeValueAsString(res), Map.class));
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "222302e7ca60")
+	public void apiErrorResponseSerializerShouldFlushPeriodically() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(400);
+		for (int i = 0; i < 2500; i++) {
+			res.addError(new ApiError("error", code(i), null, "/items/" + i));
+		}
+
+		final FlushCountingWriter writer = new FlushCountingWriter();
+		new ObjectMapper().writeValue(writer, res);
+
+		// flushed after 1000 and 2000 errors
+		assertTrue(writer.flushes >= 2);
+		assertEquals(2500, ((List<?>) new ObjectMapper().readValue(writer.toString(), Map.class).get("errors")).size());
+	}
+
+	@Test
+	@RoxableTest(key = "d553a6609d39")
+	public void apiErrorResponseSerializerShouldSerializeApiErrorSubclassesAsBeans() throws IOException {
+
+		final ApiErrorResponse res = new ApiErrorResponse(400);
+		res.addError(new DetailedApiError("foo", code(1), "bar"));
+
+		final ObjectMapper mapper = new ObjectMapper();
+		final Map<?, ?> json = mapper.readValue(mapper.writeValueAsString(res), Map.class);
+		assertEquals(mapper.readValue("{\"errors\":[{\"message\":\"foo\",\"location\":null,\"code\":1,\"locationType\":null,\"detail\":\"bar\"}]}", Map.class), json);
+	}
+
+	@Test
+	@RoxableTest(key = "306667556084")
+	public void apiErrorResponseSerializerShouldNotAcceptANegativeFlushInterval() {
+		try {
+			new ApiErrorResponseSerializer(-1);
+			fail("Expected an illegal argument exception for a negative flush interval");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	/**
+	 * Returns an object mapper which serializes responses as beans, as without the serializer.
+	 */
+	private static ObjectMapper beanMapper() {
+		final ObjectMapper beanMapper = new ObjectMapper();
+		beanMapper.setSerializationConfig(beanMapper.getSerializationConfig().withAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+			@Override
+			public Object findSerializer(Annotated am) {
+				return am.getRawType() == ApiErrorResponse.class ? null : super.findSerializer(am);
+			}
+		}));
+		return beanMapper;
+	}
+
+	private static IErrorCode code(final int code) {
+		return new IErrorCode() {
+
+			@Override
+			public int getCode() {
+				return code;
+			}
+
+			@Override
+			public int getDefaultHttpStatusCode() {
+				return 422;
+			}
+		};
+	}
+
+	private static IErrorLocationType locationType(final String locationType) {
+		return new IErrorLocationType() {
+
+			@Override
+			public String getLocationType() {
+				return locationType;
+			}
+		};
+	}
+
+	private static class FlushCountingWriter extends StringWriter {
+
+		private int flushes;
+
+		@Override
+		public void flush() {
+			flushes++;
+			super.flush();
+		}
+	}
+
+	public static class DetailedApiError extends ApiError {
+
+		private final String detail;
+
+		public DetailedApiError(String message, IErrorCode code, String detail) {
+			super(message, code);
+			this.detail = detail;
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+	}
+}
@@ -7,6 +7,8 @@ import com.lotaris.jee.validation.ApiErrorResponse;
 import com.lotaris.jee.validation.ApiError;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.Map;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.Test;
@@ -123,6 +125,168 @@ public class ApiErrorResponseUnitTest {
 		assertFalse(res.hasErrors("/person/children/0/nam"));
 	}
 
+	@Test
+	@RoxableTest(key = "6cb3f0d668e7")
+	public void apiErrorResponseShouldCheckWhetherItHasErrorsByJsonPointer() {
+
+		final ApiErrorResponse res = badRequest();
+		res.addError(new ApiError("foo", code(1), locationType("locationType"), "/person/children/0/name"));
+
+		assertTrue(res.hasErrors(ImmutableJsonPointer.parse("/person")));
+		assertTrue(res.hasErrors(ImmutableJsonPointer.parse("/person/children/0/name")));
+		assertTrue(res.hasErrors(new JsonPointer().path("person").path("children").path(0)));
+		assertFalse(res.hasErrors(ImmutableJsonPointer.parse("/person/children/1")));
+		assertFalse(res.hasErrors(ImmutableJsonPointer.root()));
+		assertFalse(res.hasErrors((IJsonPointer) null));
+	}
+
+	@Test
+	@RoxableTest(key = "df1f4608fa47")
+	public void apiErrorResponseShouldNotConsiderTheDocumentRootToHaveErrors() {
+
+		final ApiErrorResponse res = badRequest();
+		res.addError(new ApiError("foo", code(1), locationType("locationType"), "/person/name"))
+				.addError(new ApiError("bar", code(2), locationType("locationType"), ""));
+
+		assertFalse(res.hasErrors(""));
+		assertTrue(res.hasErrors("/person"));
+	}
+
+	@Test
+	@RoxableTest(key = "722ef7daea98")
+	public void apiErrorResponseShouldCountAndListErrorsByLocation() {
+
+		final ApiErrorResponse res = badRequest();
+		res.addError(new ApiError("foo", code(1), locationType("locationType"), "/person/name"))
+				.addError(new ApiError("bar", code(2), locationType("locationType"), "/person/children/0/name"))
+				.addError(new ApiError("baz", code(3)));
+
+		assertEquals(2, res.countErrors("/person"));
+		assertEquals(1, res.countErrors("/person/children"));
+		assertEquals(0, res.countErrors("/person/children/1"));
+		assertEquals(2, res.countErrors(""));
+		assertEquals(1, res.countErrors(null));
+
+		assertThat(res.getErrors("/person").size(), equalTo(2));
+		assertThat(res.getErrors("/person"), hasItem(isAnApiErrorWith("foo", "/person/name", "locationType", 1)));
+		assertThat(res.getErrors("/person"), hasItem(isAnApiErrorWith("bar", "/person/children/0/name", "locationType", 2)));
+		assertThat(res.getErrors(null), hasItem(isAnApiErrorWith("baz", null, null, 3)));
+		assertTrue(res.getErrors("/unknown").isEmpty());
+	}
+
+	@Test
+	@RoxableTest(key = "287922e7868b")
+	public void apiErrorResponseShouldDiscardErrorsOverTheLimit() {
+
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors(2);
+		assertFalse(res.isErrorLimitReached("/foo"));
+
+		res.addError(new ApiError("1", code(1), locationType("locationType"), "/1"));
+		assertFalse(res.isTruncated());
+		res.addError(new ApiError("2", code(2)));
+		assertFalse(res.isTruncated());
+		assertTrue(res.isErrorLimitReached("/foo"));
+		assertTrue(res.isErrorLimitReached(null));
+
+		res.addError(new ApiError("3", code(3), locationType("locationType"), "/3"));
+		assertTrue(res.isTruncated());
+		assertThat(res.getErrors().size(), equalTo(2));
+		assertFalse(res.hasErrors("/3"));
+		assertFalse(res.hasErrors(code(3)));
+	}
+
+	@Test
+	@RoxableTest(key = "1b6728956467")
+	public void apiErrorResponseShouldDiscardErrorsOverTheLimitOfALocation() {
+
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors("/items", 2);
+
+		res.addError(new ApiError("1", code(1), locationType("locationType"), "/items/0/name"));
+		assertFalse(res.isErrorLimitReached("/items"));
+		res.addError(new ApiError("2", code(1), locationType("locationType"), "/items/1"));
+		assertFalse(res.isTruncated());
+		assertTrue(res.isErrorLimitReached("/items"));
+		assertTrue(res.isErrorLimitReached("/items/2/name"));
+		assertFalse(res.isErrorLimitReached("/itemsCount"));
+		assertFalse(res.isErrorLimitReached(""));
+		assertFalse(res.isErrorLimitReached(null));
+
+		res.addError(new ApiError("3", code(1), locationType("locationType"), "/items/2"))
+				.addError(new ApiError("4", code(1), locationType("locationType"), "/name"))
+				.addError(new ApiError("5", code(1)));
+
+		assertTrue(res.isTruncated());
+		assertThat(res.getErrors().size(), equalTo(4));
+		assertFalse(res.hasErrors("/items/2"));
+		assertTrue(res.hasErrors("/name"));
+	}
+
+	@Test
+	@RoxableTest(key = "e5fac678a5d0")
+	public void apiErrorResponseShouldNotAcceptInvalidErrorLimits() {
+
+		final ApiErrorResponse res = badRequest();
+
+		try {
+			res.setMaxErrors(-1);
+			fail("Expected an exception to be thrown with a negative maximum number of errors");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			res.setMaxErrors("/foo", 0);
+			fail("Expected an exception to be thrown with a maximum number of errors of 0 for a location");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			res.setMaxErrors(null, 1);
+			fail("Expected an exception to be thrown with a null location");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "04d742f7fca6")
+	public void apiErrorResponseShouldNotBeTruncatedWithExactlyTheMaximumNumberOfErrors() throws Exception {
+
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors(2);
+		res.addError(new ApiError("1", code(1)));
+		res.addError(new ApiError("2", code(2)));
+
+		assertTrue(res.isErrorLimitReached(null));
+		assertFalse(res.isTruncated());
+
+		final ObjectMapper mapper = new ObjectMapper();
+		final Map<?, ?> json = mapper.readValue(mapper.writeValueAsString(res), Map.class);
+		assertFalse(json.containsKey("truncated"));
+	}
+
+	@Test
+	@RoxableTest(key = "4d9779fcb0a6")
+	public void apiErrorResponseShouldOnlySerializeTheTruncatedPropertyWhenTruncated() throws Exception {
+
+		final ObjectMapper mapper = new ObjectMapper();
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors(1);
+
+		Map<?, ?> json = mapper.readValue(mapper.writeValueAsString(res), Map.class);
+		assertFalse(json.containsKey("truncated"));
+		assertThat(json.size(), equalTo(1));
+
+		res.addError(new ApiError("1", code(1)));
+		res.addError(new ApiError("2", code(2)));
+		json = mapper.readValue(mapper.writeValueAsString(res), Map.class);
+		assertEquals(Boolean.TRUE, json.get("truncated"));
+		assertThat(json.size(), equalTo(2));
+	}
+
 	@Test
 	@RoxableTest(key = "b811721b482b")
 	public void apiErrorResponseShouldCheckWhetherItHasErrorsByCode() {
@@ -149,6 +313,60 @@ public class ApiErrorResponseUnitTest {
 		assertTrue(res.hasErrors((IErrorCode) null));
 	}
 
+	@Test
+	@RoxableTest(key = "41022a8b42af")
+	public void apiErrorResponseShouldRemoveErrorsAndLimitsWhenReset() {
+
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors(1);
+		res.setMaxErrors("/foo", 1);
+		res.addError(new ApiError("1", code(1), null, "/foo"));
+		res.addError(new ApiError("2", code(2), null, "/bar"));
+		assertTrue(res.isTruncated());
+
+		assertSame(res, res.reset());
+		assertFalse(res.hasErrors());
+		assertFalse(res.hasErrors("/foo"));
+		assertFalse(res.hasErrors(code(1)));
+		assertFalse(res.isTruncated());
+		assertEquals(0, res.countErrors(""));
+		assertEquals(400, res.getHttpStatusCode());
+
+		// limits were removed
+		res.addError(new ApiError("3", code(3), null, "/foo"));
+		res.addError(new ApiError("4", code(4), null, "/foo/0"));
+		assertEquals(2, res.getErrors().size());
+		assertEquals(2, res.countErrors("/foo"));
+		assertTrue(res.hasErrors(code(4)));
+		assertFalse(res.isTruncated());
+	}
+
+	@Test
+	@RoxableTest(key = "33d24eb3c9f4")
+	public void apiErrorResponseShouldAnswerQueriesWithoutErrors() {
+
+		final ApiErrorResponse res = badRequest();
+		res.setMaxErrors(1);
+		res.setMaxErrors("/foo", 1);
+
+		assertFalse(res.hasErrors());
+		assertFalse(res.hasErrors("/foo"));
+		assertFalse(res.hasErrors((String) null));
+		assertFalse(res.hasErrors(new JsonPointer().path("foo")));
+		assertFalse(res.hasErrors(code(1)));
+		assertFalse(res.hasErrors((IErrorCode) null));
+		assertFalse(res.isErrorLimitReached("/foo"));
+		assertEquals(0, res.countErrors(""));
+		assertTrue(res.getErrors("/foo").isEmpty());
+		assertTrue(res.getErrors().isEmpty());
+		assertFalse(res.isTruncated());
+
+		res.addError(new ApiError("1", code(1), null, "/foo"));
+		assertTrue(res.hasErrors("/foo"));
+		assertTrue(res.hasErrors(code(1)));
+		assertTrue(res.isErrorLimitReached("/bar"));
+	}
+
 	private static BaseMatcher<ApiError> isAnApiErrorWith(final String message, final String location, final String locationType, final Integer code) {
 		return new BaseMatcher<ApiError>() {
 			@Override
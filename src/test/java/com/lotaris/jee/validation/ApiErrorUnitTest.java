@@ -0,0 +1,123 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see ApiError
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"api", "apiError"})
+public class ApiErrorUnitTest {
+
+	@Test
+	@RoxableTest(key = "2561bbf6c13c")
+	public void apiErrorShouldFormatItsMessageWhenItIsFirstRequested() {
+
+		final StringBuilder arg = new StringBuilder("foo");
+		final ApiError error = new ApiError(null, null, "/bar", "%s is invalid", arg);
+
+		// the argument is only rendered when the message is requested
+		arg.append("baz");
+		final String message = error.getMessage();
+		assertEquals("foobaz is invalid", message);
+
+		// the formatted message is cached
+		arg.append("qux");
+		assertSame(message, error.getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "1b9db3a1eafd")
+	public void apiErrorShouldNotFormatMessagesWithNoArgumentsOrFormatSpecifiers() {
+		final String template = "nothing to format";
+		assertSame(template, new ApiError(null, null, null, template, new Object[0]).getMessage());
+		assertEquals("100%", new ApiError(null, null, null, "100%%", new Object[0]).getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "7c480fdce67f")
+	public void apiErrorShouldReplaceTheMessageTemplateWhenTheMessageIsSet() {
+		final ApiError error = new ApiError(null, null, null, "%s", "template");
+		error.setMessage("message");
+		assertEquals("message", error.getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "a0cbc2263afe")
+	public void apiErrorShouldSerializeItsFormattedMessage() throws Exception {
+		final ApiError error = new ApiError(null, null, "/foo", "%s must be at most %d characters long", "name", 5);
+		final ObjectMapper mapper = new ObjectMapper();
+		final Map<?, ?> json = mapper.readValue(mapper.writeValueAsString(error), Map.class);
+		assertEquals("name must be at most 5 characters long", json.get("message"));
+		assertEquals("/foo", json.get("location"));
+		assertEquals(4, json.size());
+	}
+
+	@Test
+	@RoxableTest(key = "da90616252b7")
+	public void apiErrorShouldUseInvalidMessageTemplatesAsTheirMessage() {
+		assertEquals("%q is invalid", new ApiError(null, null, null, "%q is invalid", "foo").getMessage());
+		assertEquals("%s must be at most %d characters long", new ApiError(null, null, null, "%s must be at most %d characters long", "name").getMessage());
+		assertEquals("%s must be at most %d characters long", new ApiError(null, null, null, "%s must be at most %d characters long", "name", "five").getMessage());
+		assertEquals("100%", new ApiError(null, null, null, "100%", new Object[0]).getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "a5c18fdd16db")
+	public void apiErrorShouldAcceptTheSameMessageTemplatesAsStringFormat() {
+
+		final Date date = new Date(0);
+		final Object[] args = new Object[]{ "foo", 42, new BigDecimal("1.5"), 'c', date, null };
+		final String[] templates = new String[]{
+			"%s %<S %2$05d %2$x %3$.2f %4$c %5$tY %6$d %%%n",
+			"%1$s %s %s %-10s|",
+			"%2$(,d %b %3$e",
+			"%h %6$c %5$tF %<tT"
+		};
+
+		for (String template : templates) {
+			assertEquals(String.format(template, args), new ApiError(null, null, null, template, args).getMessage());
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "0666492fee79")
+	public void apiErrorShouldFormatItsMessageOnceForAllThreads() throws Exception {
+
+		final ApiError error = new ApiError(null, null, "/foo", "%s is invalid", new StringBuilder("foo"));
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			final List<Future<String>> messages = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				messages.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() {
+						return error.getMessage();
+					}
+				}));
+			}
+
+			for (Future<String> message : messages) {
+				assertEquals("foo is invalid", message.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertSame(error.getMessage(), error.getMessage());
+	}
+}
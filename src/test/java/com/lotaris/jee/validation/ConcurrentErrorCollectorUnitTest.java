@@ -0,0 +1,216 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see ConcurrentErrorCollector
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"api", "concurrentErrorCollector"})
+public class ConcurrentErrorCollectorUnitTest {
+
+	private ConcurrentErrorCollector collector;
+
+	@Before
+	public void setUp() {
+		collector = new ConcurrentErrorCollector();
+	}
+
+	@Test
+	@RoxableTest(key = "eb101b35b7ee")
+	public void concurrentErrorCollectorShouldCheckWhetherItHasErrorsByLocationIncludingSubLocations() {
+
+		assertFalse(collector.hasErrors());
+
+		collector.addError(new ApiError("foo", code(1), null, "/person/children/0/name"));
+
+		assertTrue(collector.hasErrors());
+		assertTrue(collector.hasErrors("/person"));
+		assertTrue(collector.hasErrors("/person/children/0"));
+		assertTrue(collector.hasErrors(new JsonPointer().path("person").path("children")));
+		assertFalse(collector.hasErrors("/person/child"));
+		assertFalse(collector.hasErrors(""));
+		assertFalse(collector.hasErrors((String) null));
+
+		collector.addError(new ApiError("bar", code(2)));
+		assertTrue(collector.hasErrors((String) null));
+		assertTrue(collector.hasErrors((IJsonPointer) null));
+	}
+
+	@Test
+	@RoxableTest(key = "356b7e03eb22")
+	public void concurrentErrorCollectorShouldCheckWhetherItHasErrorsByCode() {
+
+		collector.addError(new ApiError("foo", code(1)));
+		assertTrue(collector.hasErrors(code(1)));
+		assertFalse(collector.hasErrors(code(2)));
+		assertFalse(collector.hasErrors((IErrorCode) null));
+
+		collector.addError(new ApiError("bar", null));
+		assertTrue(collector.hasErrors((IErrorCode) null));
+	}
+
+	@Test
+	@RoxableTest(key = "c355f170a9f6")
+	public void concurrentErrorCollectorShouldReturnErrorsInTheOrderTheyWereAdded() {
+
+		collector.addError(new ApiError("1", code(1))).addError(new ApiError("2", code(2)));
+		final List<IError> snapshot = collector.getErrors();
+		collector.addError(new ApiError("3", code(3)));
+
+		assertEquals(2, snapshot.size());
+		assertEquals("1", snapshot.get(0).getMessage());
+		assertEquals("2", snapshot.get(1).getMessage());
+		assertEquals(3, collector.getErrors().size());
+		assertEquals("3", collector.getErrors().get(2).getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "17206ec037ba")
+	public void concurrentErrorCollectorShouldDiscardErrorsOverTheLimit() {
+
+		collector = new ConcurrentErrorCollector(2);
+		collector.addError(new ApiError("1", code(1))).addError(new ApiError("2", code(2)));
+		assertFalse(collector.isTruncated());
+		assertTrue(collector.isErrorLimitReached("/foo"));
+
+		collector.addError(new ApiError("3", code(3), null, "/3"));
+		assertTrue(collector.isTruncated());
+		assertEquals(2, collector.getErrors().size());
+		assertFalse(collector.hasErrors("/3"));
+		assertFalse(collector.hasErrors(code(3)));
+
+		final ApiErrorResponse response = collector.toApiErrorResponse(422);
+		assertEquals(2, response.getErrors().size());
+		assertTrue(response.isTruncated());
+	}
+
+	@Test
+	@RoxableTest(key = "99645f8c912c")
+	public void concurrentErrorCollectorShouldBuildAnApiErrorResponse() {
+
+		collector.addError(new ApiError("foo", code(1), null, "/foo")).addError(new ApiError("bar", code(2)));
+
+		final ApiErrorResponse response = collector.toApiErrorResponse(400);
+		assertEquals(400, response.getHttpStatusCode());
+		assertEquals(2, response.getErrors().size());
+		assertEquals("foo", response.getErrors().get(0).getMessage());
+		assertEquals("bar", response.getErrors().get(1).getMessage());
+		assertTrue(response.hasErrors("/foo"));
+		assertFalse(response.isTruncated());
+	}
+
+	@Test
+	@RoxableTest(key = "2774284d3bcd")
+	public void concurrentErrorCollectorShouldAcceptErrorsFromMultipleThreads() throws Exception {
+
+		final int numberOfThreads = 8;
+		final int errorsPerThread = 1000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+
+		try {
+			final List<Future<Boolean>> futures = new ArrayList<>();
+			for (int t = 0; t < numberOfThreads; t++) {
+				final int thread = t;
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						start.await();
+
+						boolean consistent = true;
+						for (int i = 0; i < errorsPerThread; i++) {
+							final String location = "/threads/" + thread + "/" + i;
+							collector.addError(new ApiError(location, code(thread), null, location));
+
+							// errors are visible to the thread which added them right away
+							consistent &= collector.hasErrors(location) && collector.hasErrors("/threads/" + thread) && collector.hasErrors(code(thread));
+						}
+						return consistent;
+					}
+				}));
+			}
+
+			start.countDown();
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		final List<IError> errors = collector.getErrors();
+		assertEquals(numberOfThreads * errorsPerThread, errors.size());
+
+		// errors of each thread are in the order that thread added them
+		final int[] lastIndex = new int[numberOfThreads];
+		final Set<String> locations = new HashSet<>();
+		for (IError error : errors) {
+			final String[] fragments = error.getLocation().split("/");
+			final int thread = Integer.parseInt(fragments[2]);
+			final int index = Integer.parseInt(fragments[3]);
+			assertEquals(lastIndex[thread], index);
+			lastIndex[thread]++;
+			locations.add(error.getLocation());
+		}
+		assertEquals(numberOfThreads * errorsPerThread, locations.size());
+	}
+
+	@Test
+	@RoxableTest(key = "f1d3334812fd")
+	public void concurrentErrorCollectorShouldNotExceedItsLimitWithMultipleThreads() throws Exception {
+
+		collector = new ConcurrentErrorCollector(100);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < 1000; i++) {
+							collector.addError(new ApiError("foo", code(1)));
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(100, collector.getErrors().size());
+		assertTrue(collector.isTruncated());
+	}
+
+	private static IErrorCode code(final int code) {
+		return new IErrorCode() {
+
+			@Override
+			public int getCode() {
+				return code;
+			}
+
+			@Override
+			public int getDefaultHttpStatusCode() {
+				return 422;
+			}
+		};
+	}
+}
@@ -0,0 +1,145 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see ErrorLocationIndex
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"api", "errorLocationIndex"})
+public class ErrorLocationIndexUnitTest {
+
+	private ErrorLocationIndex<String> index;
+
+	@Before
+	public void setUp() {
+		index = new ErrorLocationIndex<>();
+	}
+
+	@Test
+	@RoxableTest(key = "959905712351")
+	public void errorLocationIndexShouldFindErrorsAtAndUnderLocations() {
+
+		index.add("/person/children/0/name", "a");
+
+		assertTrue(index.contains(""));
+		assertTrue(index.contains("/person"));
+		assertTrue(index.contains("/person/children"));
+		assertTrue(index.contains("/person/children/0"));
+		assertTrue(index.contains("/person/children/0/name"));
+		assertTrue(index.contains("person/children"));
+		assertFalse(index.contains("/person/children/0/name/first"));
+		assertFalse(index.contains("/person/children/1"));
+	}
+
+	@Test
+	@RoxableTest(key = "4c75312e7fd7")
+	public void errorLocationIndexShouldNotMatchPartialFragments() {
+
+		index.add("/person/name", "a");
+
+		assertFalse(index.contains("/pers"));
+		assertFalse(index.contains("/person/nam"));
+		assertFalse(index.contains("/person/names"));
+		assertFalse(index.contains("/person/"));
+	}
+
+	@Test
+	@RoxableTest(key = "e66c43a4ba0a")
+	public void errorLocationIndexShouldTrackErrorsWithNoLocationSeparately() {
+
+		index.add("/foo", "a");
+		assertFalse(index.contains((String) null));
+		assertFalse(index.contains((IJsonPointer) null));
+
+		index.add(null, "b");
+		assertTrue(index.contains((String) null));
+		assertEquals(1, index.count((String) null));
+		assertEquals(Arrays.asList("b"), index.list((String) null));
+		assertEquals(1, index.count(""));
+	}
+
+	@Test
+	@RoxableTest(key = "0d34c01ab558")
+	public void errorLocationIndexShouldCountErrorsUnderLocations() {
+
+		index.add("/person/name", "a");
+		index.add("/person/name", "b");
+		index.add("/person/children/0/name", "c");
+		index.add("/person/children/1/name", "d");
+		index.add("/other", "e");
+
+		assertEquals(5, index.count(""));
+		assertEquals(4, index.count("/person"));
+		assertEquals(2, index.count("/person/name"));
+		assertEquals(2, index.count("/person/children"));
+		assertEquals(1, index.count("/person/children/1"));
+		assertEquals(0, index.count("/person/children/2"));
+	}
+
+	@Test
+	@RoxableTest(key = "5a0f020dffa3")
+	public void errorLocationIndexShouldListErrorsUnderLocationsGroupedByLocation() {
+
+		index.add("/person/children/0/name", "a");
+		index.add("/person/name", "b");
+		index.add("/person", "c");
+		index.add("/person/children/0/name", "d");
+		index.add("/other", "e");
+
+		assertEquals(Arrays.asList("c", "a", "d", "b"), index.list("/person"));
+		assertEquals(Arrays.asList("a", "d"), index.list("/person/children"));
+		assertEquals(Arrays.asList("c", "a", "d", "b", "e"), index.list(""));
+		assertEquals(Collections.emptyList(), index.list("/unknown"));
+	}
+
+	@Test
+	@RoxableTest(key = "3c19bb8933b7")
+	public void errorLocationIndexShouldLookUpLocationsByJsonPointer() {
+
+		index.add("/items/3/a~1b", "a");
+
+		assertTrue(index.contains(new JsonPointer().path("items").path(3).path("a/b")));
+		assertTrue(index.contains(ImmutableJsonPointer.parse("/items/3")));
+		assertFalse(index.contains(ImmutableJsonPointer.parse("/items/4")));
+		assertEquals(1, index.count(ImmutableJsonPointer.root()));
+		assertEquals(Arrays.asList("a"), index.list(ImmutableJsonPointer.parse("/items")));
+	}
+
+	@Test
+	@RoxableTest(key = "918d260a0627")
+	public void errorLocationIndexShouldHandleLocationsWithManyChildren() {
+
+		for (int i = 0; i < 1000; i++) {
+			index.add("/items/" + i + "/name", "error" + i);
+		}
+
+		assertEquals(1000, index.count("/items"));
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(1, index.count("/items/" + i));
+			assertTrue(index.contains(new JsonPointer().path("items").path(i).path("name")));
+		}
+		assertFalse(index.contains("/items/1000"));
+		assertEquals("error0", index.list("/items").get(0));
+		assertEquals("error999", index.list("/items").get(999));
+	}
+
+	@Test
+	@RoxableTest(key = "01cfa9f754a2")
+	public void errorLocationIndexShouldIndexEmptyPathFragments() {
+
+		index.add("/", "a");
+		index.add("/foo//bar", "b");
+
+		assertTrue(index.contains("/"));
+		assertTrue(index.contains("/foo/"));
+		assertTrue(index.contains("/foo//bar"));
+		assertFalse(index.contains("/foo/bar"));
+	}
+}
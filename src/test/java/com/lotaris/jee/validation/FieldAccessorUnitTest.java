@@ -0,0 +1,106 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.lang.reflect.Field;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see FieldAccessor
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"modifiers", "fieldAccessor"})
+public class FieldAccessorUnitTest {
+
+	@Test
+	@RoxableTest(key = "90cdbe3f9853")
+	public void fieldAccessorShouldReadAndWritePrivateFields() throws Exception {
+
+		final Field field = TestObject.class.getDeclaredField("value");
+		final FieldAccessor accessor = FieldAccessor.of(field);
+		final TestObject object = new TestObject("foo", 2);
+
+		assertEquals("foo", accessor.get(object));
+		accessor.set(object, "bar");
+		assertEquals("bar", object.value);
+		accessor.set(object, null);
+		assertNull(object.value);
+
+		// the original field is left untouched
+		assertFalse(field.isAccessible());
+	}
+
+	@Test
+	@RoxableTest(key = "abc19e11203f")
+	public void fieldAccessorShouldBoxAndUnboxPrimitiveValues() throws Exception {
+
+		final FieldAccessor accessor = FieldAccessor.of(TestObject.class.getDeclaredField("count"));
+		final TestObject object = new TestObject("foo", 2);
+
+		assertEquals(2, accessor.get(object));
+		accessor.set(object, 3);
+		assertEquals(3, object.count);
+	}
+
+	@Test
+	@RoxableTest(key = "b7b35ddc3f2b")
+	public void fieldAccessorShouldWriteFinalFields() throws Exception {
+
+		final FieldAccessor accessor = FieldAccessor.of(TestObject.class.getDeclaredField("name"));
+		final TestObject object = new TestObject("foo", 2);
+
+		accessor.set(object, "bar");
+		assertEquals("bar", accessor.get(object));
+	}
+
+	@Test
+	@RoxableTest(key = "6056bc3398e0")
+	public void fieldAccessorShouldBeCachedPerField() throws Exception {
+		assertSame(FieldAccessor.of(TestObject.class.getDeclaredField("value")), FieldAccessor.of(TestObject.class.getDeclaredField("value")));
+		assertNotSame(FieldAccessor.of(TestObject.class.getDeclaredField("value")), FieldAccessor.of(TestObject.class.getDeclaredField("count")));
+	}
+
+	@Test
+	@RoxableTest(key = "f140950fe0ff")
+	public void fieldAccessorShouldNotAcceptInvalidObjectsOrValues() throws Exception {
+
+		final FieldAccessor accessor = FieldAccessor.of(TestObject.class.getDeclaredField("value"));
+
+		try {
+			accessor.get(new Object());
+			fail("Reading the field of an object of another class should fail");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			accessor.set(new TestObject("foo", 2), 42);
+			fail("Setting a string field to an integer should fail");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			FieldAccessor.of(TestObject.class.getDeclaredField("INSTANCES"));
+			fail("Static fields should not be accepted");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	private static class TestObject {
+
+		private static int INSTANCES;
+		private String value;
+		private int count;
+		private final String name;
+
+		public TestObject(String value, int count) {
+			this.value = value;
+			this.count = count;
+			this.name = value;
+			INSTANCES++;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.lotaris.jee.validation;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see ImmutableJsonPointer
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"api", "jsonPointer", "immutableJsonPointer"})
+public class ImmutableJsonPointerUnitTest {
+
+	@Test
+	@RoxableTest(key = "5c7daa13e698")
+	public void immutableJsonPointerShouldPointToDocumentRoot() {
+		final ImmutableJsonPointer root = ImmutableJsonPointer.root();
+		assertTrue(root.isRoot());
+		assertEquals(0, root.size());
+		assertEquals("", root.toString());
+		assertNull(root.parent());
+		assertNull(root.fragment());
+	}
+
+	@Test
+	@RoxableTest(key = "c774283e6cbd")
+	public void immutableJsonPointerShouldBuildChildPointersWithoutModifyingItself() {
+
+		final ImmutableJsonPointer items = ImmutableJsonPointer.root().child("items");
+		final ImmutableJsonPointer name = items.child(0).child("name");
+
+		assertEquals("/items", items.toString());
+		assertEquals("/items/0/name", name.toString());
+		assertEquals(3, name.size());
+		assertEquals("name", name.fragment());
+		assertSame(items, name.parent().parent());
+	}
+
+	@Test
+	@RoxableTest(key = "97e22c7b684d")
+	public void immutableJsonPointerShouldEscapeChildPathFragments() {
+		final ImmutableJsonPointer pointer = ImmutableJsonPointer.root().child("a/b").child("~");
+		assertEquals("/a~1b/~0", pointer.toString());
+		assertEquals("a~1b", pointer.fragmentAt(0));
+	}
+
+	@Test
+	@RoxableTest(key = "f50251a3efd1")
+	public void immutableJsonPointerShouldInternPointers() {
+
+		final ImmutableJsonPointer pointer = ImmutableJsonPointer.root().child("items").child(0).child("name");
+
+		assertSame(pointer, ImmutableJsonPointer.root().child("items").child(0).child("name"));
+		assertSame(pointer, ImmutableJsonPointer.parse("/items/0/name"));
+		assertSame(pointer, ImmutableJsonPointer.parse("items/0/name"));
+		assertSame(pointer, ImmutableJsonPointer.root().child("items").resolve("/0/name"));
+		assertSame(pointer, ImmutableJsonPointer.of(new JsonPointer().path("items").path(0).path("name")));
+		assertSame(pointer.parent(), ImmutableJsonPointer.parse("/items/0/other").parent());
+	}
+
+	@Test
+	@RoxableTest(key = "9eb265daa0ee")
+	public void immutableJsonPointerShouldParseTheRoot() {
+		assertSame(ImmutableJsonPointer.root(), ImmutableJsonPointer.parse(""));
+		assertSame(ImmutableJsonPointer.root(), ImmutableJsonPointer.of(new JsonPointer()));
+	}
+
+	@Test
+	@RoxableTest(key = "93e48615ba12")
+	public void immutableJsonPointerShouldResolveRelativePointers() {
+		final ImmutableJsonPointer pointer = ImmutableJsonPointer.parse("/foo");
+		assertSame(pointer, pointer.resolve(""));
+		assertEquals("/foo/bar/baz", pointer.resolve("/bar/baz").toString());
+		assertEquals("/foo/", pointer.resolve("/").toString());
+	}
+
+	@Test
+	@RoxableTest(key = "d045384240d0")
+	public void immutableJsonPointerShouldReturnIndividualPathFragments() {
+
+		final ImmutableJsonPointer pointer = ImmutableJsonPointer.parse("/one/2/three");
+		assertEquals("one", pointer.fragmentAt(0));
+		assertEquals("2", pointer.fragmentAt(1));
+		assertEquals("three", pointer.fragmentAt(2));
+
+		try {
+			pointer.fragmentAt(3);
+			fail("IndexOutOfBoundsException should have been thrown trying to access path fragment at index 3 in a pointer with three fragments");
+		} catch (IndexOutOfBoundsException ioobe) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "02314f93eee4")
+	public void immutableJsonPointerShouldIndicateWhetherItIsAPrefixOfAnotherPointer() {
+		final ImmutableJsonPointer person = ImmutableJsonPointer.parse("/person");
+		assertTrue(person.isPrefixOf(ImmutableJsonPointer.parse("/person/name")));
+		assertTrue(person.isPrefixOf(person));
+		assertTrue(ImmutableJsonPointer.root().isPrefixOf(person));
+		assertFalse(person.isPrefixOf(ImmutableJsonPointer.parse("/persons/name")));
+		assertFalse(person.isPrefixOf(ImmutableJsonPointer.root()));
+	}
+
+	@Test
+	@RoxableTest(key = "28045291956c")
+	public void immutableJsonPointerShouldBeUsableAsASetElement() {
+
+		final Set<ImmutableJsonPointer> set = new HashSet<>();
+		set.add(ImmutableJsonPointer.parse("/a/b"));
+		set.add(ImmutableJsonPointer.root().child("a").child("b"));
+		set.add(ImmutableJsonPointer.parse("/a"));
+
+		assertEquals(2, set.size());
+		assertTrue(set.contains(ImmutableJsonPointer.parse("a/b")));
+		assertFalse(set.contains(ImmutableJsonPointer.parse("/b")));
+	}
+
+	@Test
+	@RoxableTest(key = "2c17c2a4b58f")
+	public void immutableJsonPointerShouldParsePointersWithoutInterningThem() {
+
+		final ImmutableJsonPointer first = ImmutableJsonPointer.parseUninterned("/uninterned/0/name");
+		final ImmutableJsonPointer second = ImmutableJsonPointer.parseUninterned("/uninterned/0/name");
+		assertEquals("/uninterned/0/name", first.toString());
+		assertEquals(first, second);
+		assertNotSame(first, second);
+
+		// the parsed pointers were not added to the pool
+		final ImmutableJsonPointer interned = ImmutableJsonPointer.parse("/uninterned/0/name");
+		assertEquals(first, interned);
+		assertNotSame(first, interned);
+		assertNotSame(first.parent(), interned.parent());
+
+		// interned pointers are reused once they exist
+		assertSame(interned, ImmutableJsonPointer.parseUninterned("/uninterned/0/name"));
+		assertSame(interned.parent(), ImmutableJsonPointer.parseUninterned("/uninterned/0/foo").parent());
+	}
+
+	@Test
+	@RoxableTest(key = "85674bb5e9d6")
+	public void immutableJsonPointerShouldSnapshotMutablePointersWithoutInterningThem() {
+
+		final JsonPointer mutable = new JsonPointer();
+		mutable.add("snapshot/1");
+
+		final ImmutableJsonPointer snapshot = ImmutableJsonPointer.snapshot(mutable);
+		assertEquals("/snapshot/1", snapshot.toString());
+		assertNotSame(snapshot, ImmutableJsonPointer.snapshot(mutable));
+
+		final ImmutableJsonPointer interned = ImmutableJsonPointer.of(mutable);
+		assertEquals(snapshot, interned);
+		assertNotSame(snapshot, interned);
+		assertSame(interned, ImmutableJsonPointer.snapshot(mutable));
+		assertSame(interned, ImmutableJsonPointer.snapshot(interned));
+	}
+}
@@ -155,4 +155,144 @@ public class JsonPointerUnitTest {
 		assertEquals(3, pointer.root().add(pointerString));
 		assertEquals("/one/2/three", pointer.toString());
 	}
+
+	@Test
+	@RoxableTest(key = "20440128ddf2")
+	public void jsonPointerShouldAddPathFragmentsWithoutLeadingSeparatorOrWithEmptyFragments() {
+		assertEquals(2, pointer.add("one/two"));
+		assertEquals(3, pointer.add("//three/"));
+		assertEquals("/one/two//three/", pointer.toString());
+		assertEquals("", pointer.fragmentAt(2));
+		assertEquals("three", pointer.fragmentAt(3));
+		assertEquals("", pointer.fragmentAt(4));
+	}
+
+	@Test
+	@RoxableTest(key = "eef1707467fb")
+	public void jsonPointerShouldReturnTheSameStringWhenThereIsNothingToEscapeOrUnescape() {
+		final String fragment = "nothing to escape";
+		assertSame(fragment, JsonPointer.escapeFragment(fragment));
+		assertSame(fragment, JsonPointer.unescapeFragment(fragment));
+	}
+
+	@Test
+	@RoxableTest(key = "19372bccd8c8")
+	public void jsonPointerShouldUnescapePathFragments() {
+		assertEquals("a/b", JsonPointer.unescapeFragment("a~1b"));
+		assertEquals("m~n", JsonPointer.unescapeFragment("m~0n"));
+		assertEquals("~1", JsonPointer.unescapeFragment("~01"));
+		assertEquals("/~/", JsonPointer.unescapeFragment("~1~0~1"));
+	}
+
+	@Test
+	@RoxableTest(key = "c0ddaf0bfabf")
+	public void jsonPointerShouldRoundTripEscapedPathFragments() {
+
+		final String pointerString = pointer.path("a/b").path("~1").path("c").toString();
+		assertEquals("/a~1b/~01/c", pointerString);
+
+		final JsonPointer parsed = new JsonPointer();
+		assertEquals(3, parsed.add(pointerString));
+		assertEquals(pointerString, parsed.toString());
+		assertEquals("a/b", parsed.unescapedFragmentAt(0));
+		assertEquals("~1", parsed.unescapedFragmentAt(1));
+		assertEquals("c", parsed.unescapedFragmentAt(2));
+	}
+
+	@Test
+	@RoxableTest(key = "93de72e2ea29")
+	public void jsonPointerShouldNotUnescapeInvalidEscapeSequences() {
+		for (String invalid : new String[]{"~", "a~", "~2", "a~b"}) {
+			try {
+				JsonPointer.unescapeFragment(invalid);
+				fail("IllegalArgumentException should have been thrown trying to unescape \"" + invalid + "\"");
+			} catch (IllegalArgumentException iae) {
+				// success
+			}
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "7329d993acd4")
+	public void jsonPointerShouldReturnItsNumberOfPathFragments() {
+		assertEquals(0, pointer.size());
+		assertEquals(3, pointer.path("one").path(2).path("three").size());
+		assertEquals(1, pointer.pop(2).size());
+	}
+
+	@Test
+	@RoxableTest(key = "17018bba67fa")
+	public void jsonPointerShouldReuseItsRenderedStringUntilModified() {
+		pointer.path("one").path("two");
+		final String rendered = pointer.toString();
+		assertSame(rendered, pointer.toString());
+
+		assertEquals("/one/two/three", pointer.path("three").toString());
+		assertSame(rendered, pointer.pop().toString());
+
+		assertEquals("/one/four", pointer.pop().path("four").toString());
+		assertNotSame(rendered, pointer.pop().path("two").toString());
+		assertEquals(rendered, pointer.toString());
+	}
+
+	@Test
+	@RoxableTest(key = "3f01b4bd9063")
+	public void jsonPointerShouldGrowBeyondItsInitialCapacity() {
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			pointer.path(i);
+			expected.append("/").append(i);
+		}
+
+		assertEquals(100, pointer.size());
+		assertEquals("42", pointer.fragmentAt(42));
+		assertEquals(expected.toString(), pointer.toString());
+		assertEquals("/0/1", pointer.pop(98).toString());
+	}
+
+	@Test
+	@RoxableTest(key = "73b3759169dc")
+	public void jsonPointerShouldShiftPathFragments() {
+		pointer.path("one").path("two").path("three");
+		assertEquals("/one/two/three", pointer.toString());
+		assertEquals("/two/three", pointer.shift().toString());
+		assertEquals("three", pointer.fragmentAt(1));
+		assertEquals("/two/three/four", pointer.path("four").toString());
+		assertEquals("/two", pointer.pop(2).toString());
+		assertEquals("", pointer.shift().toString());
+		assertTrue(pointer.shift().isRoot());
+	}
+
+	@Test
+	@RoxableTest(key = "5135a26ee092")
+	public void jsonPointerShouldReuseRenderedStringsWhenTheSameFragmentsAreAddedAgain() {
+
+		pointer.path("items").path(3).add("name/first");
+		final String rendered = pointer.toString();
+		assertEquals("/items/3/name/first", rendered);
+
+		pointer.pop(3).path(3).add("/name/first");
+		assertSame(rendered, pointer.toString());
+
+		pointer.pop(2);
+		assertSame(rendered, pointer.path("name").path("first").toString());
+	}
+
+	@Test
+	@RoxableTest(key = "3e4d7d806cf2")
+	public void jsonPointerShouldNotReusePoppedFragmentsAfterADifferentFragment() {
+
+		assertEquals("/a/b/c", pointer.path("a").path("b").path("c").toString());
+		assertEquals("/x/b/c", pointer.root().path("x").path("b").path("c").toString());
+		assertEquals("/x/b", pointer.pop().toString());
+		assertEquals("/a/b", pointer.root().path("a").path("b").toString());
+		assertEquals("/a/b/c", pointer.path("c").toString());
+
+		// shifting discards popped fragments
+		pointer.pop(2).shift();
+		assertEquals("/b", pointer.path("b").toString());
+		assertEquals("/b/c", pointer.path("c").toString());
+		assertEquals("c", pointer.fragmentAt(1));
+	}
 }
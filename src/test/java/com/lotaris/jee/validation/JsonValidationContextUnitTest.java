@@ -7,11 +7,18 @@ import com.lotaris.jee.validation.IErrorCollector;
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IErrorLocationType;
 import com.lotaris.jee.validation.JsonValidationContext;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.Before;
@@ -196,6 +203,158 @@ public class JsonValidationContextUnitTest {
 		verify(collector, times(3)).addError(any(IError.class));
 	}
 
+	@Test
+	@RoxableTest(key = "70070b365581")
+	public void validationContextShouldStopValidatingObjectListsWhenTheErrorLimitIsReached() {
+
+		final IValidator<String> validator = new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+				context.addError("/name", locationType("locationType1"), code(22), "broken");
+			}
+		};
+
+		when(collector.isErrorLimitReached("/foo")).thenReturn(false, false, true);
+
+		final List<String> strings = Arrays.asList("bar1", "bar2", "bar3");
+		context.validateObjects(strings, "foo", validator);
+
+		final InOrder inOrder = inOrder(collector);
+		inOrder.verify(collector).addError(argThat(isAnErrorWith("broken", "/foo/0/name", "locationType1", 22)));
+		inOrder.verify(collector).addError(argThat(isAnErrorWith("broken", "/foo/1/name", "locationType1", 22)));
+		verify(collector, times(2)).addError(any(IError.class));
+	}
+
+	@Test
+	@RoxableTest(key = "6d5892afa1e5")
+	public void validationContextShouldCheckTheErrorLimitAtTheCurrentLocation() {
+
+		when(collector.isErrorLimitReached("/foo")).thenReturn(true);
+		assertFalse(context.isErrorLimitReached());
+
+		context.validateObject("bar", "/foo", new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+				assertTrue(context.isErrorLimitReached());
+			}
+		});
+	}
+
+	@Test
+	@RoxableTest(key = "e1819f8304e5")
+	public void validationContextShouldValidateLargeListsInParallelAndCollectErrorsInOrder() {
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final ApiErrorResponse sequentialResponse = new ApiErrorResponse(422);
+			new JsonValidationContext(sequentialResponse).validateObjects(numbers(500), "/numbers", evenNumberValidator());
+
+			final ApiErrorResponse parallelResponse = new ApiErrorResponse(422);
+			new JsonValidationContext(parallelResponse).validateListsInParallel(executor, 10).validateObjects(numbers(500), "/numbers", evenNumberValidator());
+
+			assertEquals(250, parallelResponse.getErrors().size());
+			for (int i = 0; i < 250; i++) {
+				assertEquals(sequentialResponse.getErrors().get(i).getLocation(), parallelResponse.getErrors().get(i).getLocation());
+				assertEquals(sequentialResponse.getErrors().get(i).getMessage(), parallelResponse.getErrors().get(i).getMessage());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "6837b988ad6c")
+	public void validationContextShouldStopValidatingListsInParallelOnceTheErrorLimitIsReached() {
+
+		final AtomicInteger validated = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final ApiErrorResponse response = new ApiErrorResponse(422);
+			response.setMaxErrors(10);
+
+			new JsonValidationContext(response).validateListsInParallel(executor, 10).validateObjects(numbers(100000), "/numbers", new IValidator<Integer>() {
+				@Override
+				public void collectErrors(Integer object, IValidationContext context) {
+					validated.incrementAndGet();
+					context.addErrorAtCurrentLocation(code(1), "invalid");
+				}
+			});
+
+			assertEquals(10, response.getErrors().size());
+			assertTrue("Chunks should stop once they have buffered as many errors as the limit", validated.get() < 100);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "ca6d4907e038")
+	public void validationContextShouldValidateSmallListsSequentially() {
+
+		final ExecutorService executor = mock(ExecutorService.class);
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		new JsonValidationContext(response).validateListsInParallel(executor, 10).validateObjects(numbers(9), "/numbers", evenNumberValidator());
+
+		assertEquals(5, response.getErrors().size());
+		verifyZeroInteractions(executor);
+	}
+
+	@Test
+	@RoxableTest(key = "2675657b59d8")
+	public void validationContextShouldRethrowExceptionsThrownByParallelValidators() {
+
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			new JsonValidationContext(new ApiErrorResponse(422)).validateListsInParallel(executor, 2).validateObjects(numbers(10), "", new IValidator<Integer>() {
+				@Override
+				public void collectErrors(Integer object, IValidationContext context) {
+					if (object == 7) {
+						throw new IllegalStateException("bug");
+					}
+				}
+			});
+			fail("Expected the exception thrown by the validator to be rethrown");
+		} catch (IllegalStateException ise) {
+			assertEquals("bug", ise.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "6f6dd25e53b8")
+	public void validationContextShouldNotAcceptParallelValidationThresholdsSmallerThanTwo() {
+		try {
+			context.validateListsInParallel(mock(ExecutorService.class), 1);
+			fail("Expected an IllegalArgumentException to be thrown with a threshold of 1");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "356dc45d6031")
+	public void validationContextShouldCheckForErrorsAtRelativeLocations() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		response.addError(new ApiError("foo", null, null, "/foo/bar/baz"));
+		final JsonValidationContext jsonContext = new JsonValidationContext(response);
+
+		assertTrue(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.parse("/foo/bar")));
+		assertFalse(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.parse("/bar")));
+		assertFalse(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.root()));
+
+		jsonContext.validateObject("foo", "/foo", new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+				final JsonValidationContext jsonContext = (JsonValidationContext) context;
+				assertTrue(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.root()));
+				assertTrue(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.parse("/bar/baz")));
+				assertFalse(jsonContext.hasErrorsAtRelativeLocation(ImmutableJsonPointer.parse("/baz")));
+			}
+		});
+	}
+
 	@Test
 	@RoxableTest(key = "28234124dc55")
 	public void validationContextShouldValidateDeeplyNestedObjects() {
@@ -371,6 +530,341 @@ public class JsonValidationContextUnitTest {
 		assertSame(state, context.getState(Object.class));
 	}
 
+	@Test
+	@RoxableTest(key = "fb64a24de2e6")
+	public void validationContextShouldRemoveStatesAndReturnToTheRootWhenReset() {
+
+		context.addStates("foo", 42);
+
+		context.validateObject(new Object(), "/foo", new IValidator<Object>() {
+			@Override
+			public void collectErrors(Object object, IValidationContext validationContext) {
+				assertSame(context, context.reset());
+			}
+		});
+
+		assertEquals("", context.location(""));
+		assertEquals("/bar", context.location("bar"));
+
+		try {
+			context.getState(String.class);
+			fail("States should have been removed when the context was reset");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		// states can be added again
+		context.addState("bar", String.class);
+		assertEquals("bar", context.getState(String.class));
+	}
+
+	@Test
+	@RoxableTest(key = "cf95c6f96abe")
+	public void validationContextShouldReportNestedValidationsAndErrorsToItsMonitor() {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		when(monitor.isEnabled()).thenReturn(true);
+		assertSame(context, context.monitorWith(monitor));
+
+		final IValidator<Integer> validator = new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				if (object % 2 == 0) {
+					context.addErrorAtCurrentLocation(code(1), "%d is even", object);
+				}
+			}
+		};
+
+		context.validateObjects(numbers(5), "/numbers", validator);
+		context.validateObject(2, "/number", validator);
+
+		verify(monitor).elementsValidated(5);
+		verify(monitor, times(6)).validatorCompleted(same(validator), anyLong());
+		verify(monitor, times(4)).errorAdded(argThat(isCode(1)));
+
+		// the monitor is removed on reset
+		context.reset();
+		context.validateObject(2, "/number", validator);
+		verify(monitor, times(6)).validatorCompleted(same(validator), anyLong());
+	}
+
+	@Test
+	@RoxableTest(key = "1cae0b6562f6")
+	public void validationContextShouldNotAcceptANullMonitor() {
+		try {
+			context.monitorWith(null);
+			fail("Expected an illegal argument exception for a null monitor");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "206d40ef3c7d")
+	public void validationContextShouldNotReportErrorsDiscardedByTheErrorLimitToItsMonitor() {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		when(monitor.isEnabled()).thenReturn(true);
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		response.setMaxErrors(1);
+
+		final JsonValidationContext limitedContext = new JsonValidationContext(response).monitorWith(monitor);
+		limitedContext.addError("/foo", locationType("json"), code(1), "foo");
+		limitedContext.addError("/bar", locationType("json"), code(2), "bar");
+
+		verify(monitor).errorAdded(argThat(isCode(1)));
+		verify(monitor, never()).errorAdded(argThat(isCode(2)));
+		assertTrue(response.isTruncated());
+	}
+
+	@Test
+	@RoxableTest(key = "cc2f94df5775")
+	public void validationContextShouldBufferErrorsOfBufferedContextsUntilFlushed() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext parent = new JsonValidationContext(response);
+		parent.addError("/foo", locationType("json"), code(1), "foo");
+		parent.addState("state", String.class);
+
+		final JsonValidationContext first = parent.createBufferedContext();
+		final JsonValidationContext second = parent.createBufferedContext();
+		second.addError("/bar", locationType("json"), code(2), "bar");
+		first.addError("/baz", locationType("json"), code(3), "baz");
+
+		// buffered contexts see the errors of their parent and their own errors
+		assertTrue(first.hasErrors("/foo"));
+		assertTrue(first.hasErrors("/baz"));
+		assertFalse(first.hasErrors("/bar"));
+		assertEquals("state", first.getState(String.class));
+		assertEquals(1, response.getErrors().size());
+
+		first.flushBufferedErrors();
+		second.flushBufferedErrors();
+		assertEquals(3, response.getErrors().size());
+		assertEquals("baz", response.getErrors().get(1).getMessage());
+		assertEquals("bar", response.getErrors().get(2).getMessage());
+
+		try {
+			parent.flushBufferedErrors();
+			fail("Expected an illegal state exception when flushing a context which is not buffered");
+		} catch (IllegalStateException ise) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "e769b5d56a31")
+	public void validationContextShouldNotAddStatesToBufferedContexts() {
+
+		final JsonValidationContext parent = new JsonValidationContext(new ApiErrorResponse(422));
+		final JsonValidationContext buffered = parent.createBufferedContext();
+
+		try {
+			buffered.addState("state", String.class);
+			fail("Expected an illegal state exception when adding a state to a buffered context");
+		} catch (IllegalStateException ise) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "9313676f1558")
+	public void validationContextShouldOnlySeeErrorsAcceptedByItsParentOnceFlushed() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		response.setMaxErrors(1);
+
+		final JsonValidationContext buffered = new JsonValidationContext(response).createBufferedContext();
+		buffered.addError("/bar", locationType("json"), code(2), "bar");
+		assertTrue("The limit should count buffered errors", buffered.isErrorLimitReached());
+		buffered.addError("/baz", locationType("json"), code(3), "baz");
+		assertTrue(buffered.hasErrors("/baz"));
+
+		buffered.flushBufferedErrors();
+		assertEquals(1, response.getErrors().size());
+		assertTrue(buffered.hasErrors("/bar"));
+		assertFalse(buffered.hasErrors("/baz"));
+		assertFalse(buffered.hasErrors(code(3)));
+	}
+
+	@Test
+	@RoxableTest(key = "0d29540ed590")
+	public void validationContextShouldResolveDeferredLookupsInBatchesAtTheirOriginalLocation() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext validationContext = new JsonValidationContext(response);
+		final EvenNumberResolver resolver = new EvenNumberResolver();
+
+		validationContext.validateObjects(numbers(10), "/numbers", new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				context.deferLookup(resolver, object % 5, new OddNumberCheck());
+			}
+		});
+
+		assertEquals(0, resolver.calls);
+		assertFalse(response.hasErrors());
+
+		assertSame(validationContext, validationContext.resolveDeferredLookups());
+
+		// one call with each distinct key
+		assertEquals(1, resolver.calls);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), new ArrayList<>(resolver.lastKeys));
+
+		// errors are added in the order lookups were registered, at their original location
+		assertEquals(4, response.getErrors().size());
+		assertEquals("/numbers/1/value", response.getErrors().get(0).getLocation());
+		assertEquals("1 is odd", response.getErrors().get(0).getMessage());
+		assertEquals("/numbers/3/value", response.getErrors().get(1).getLocation());
+		assertEquals("/numbers/6/value", response.getErrors().get(2).getLocation());
+		assertEquals("/numbers/8/value", response.getErrors().get(3).getLocation());
+
+		// the current location is restored and lookups are only resolved once
+		assertEquals("", validationContext.location(""));
+		validationContext.resolveDeferredLookups();
+		assertEquals(1, resolver.calls);
+	}
+
+	@Test
+	@RoxableTest(key = "305baedda215")
+	public void validationContextShouldResolveLookupsDeferredByChecksInAnotherBatch() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext validationContext = new JsonValidationContext(response);
+		final EvenNumberResolver resolver = new EvenNumberResolver();
+
+		validationContext.validateObject(3, "/number", new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				context.deferLookup(resolver, object, new IDeferredCheck<Integer, Boolean>() {
+					@Override
+					public void check(Integer key, Boolean even, IValidationContext context) {
+						// look up the next number if this one is odd
+						if (!even) {
+							context.deferLookup(resolver, key + 1, new OddNumberCheck());
+						}
+					}
+				});
+			}
+		});
+
+		validationContext.resolveDeferredLookups();
+
+		assertEquals(2, resolver.calls);
+		assertEquals(Collections.singleton(4), resolver.lastKeys);
+		assertFalse(response.hasErrors());
+	}
+
+	@Test
+	@RoxableTest(key = "ef47e913fb45")
+	public void validationContextShouldStopRunningDeferredChecksOnceTheErrorLimitIsReached() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		response.setMaxErrors(3);
+
+		final JsonValidationContext validationContext = new JsonValidationContext(response);
+		final EvenNumberResolver resolver = new EvenNumberResolver();
+		final List<Integer> checkedKeys = new ArrayList<>();
+
+		validationContext.validateObjects(numbers(1000), "/numbers", new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				context.deferLookup(resolver, object, new IDeferredCheck<Integer, Boolean>() {
+					@Override
+					public void check(Integer key, Boolean even, IValidationContext context) {
+						checkedKeys.add(key);
+						context.deferLookup(resolver, key + 1000, new OddNumberCheck());
+						new OddNumberCheck().check(key, even, context);
+					}
+				});
+			}
+		});
+
+		validationContext.resolveDeferredLookups();
+
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), checkedKeys);
+		assertEquals(3, response.getErrors().size());
+		assertFalse(response.isTruncated());
+
+		// lookups deferred by the checks are not resolved once the limit is reached
+		assertEquals(1, resolver.calls);
+	}
+
+	@Test
+	@RoxableTest(key = "152a51cdf378")
+	public void validationContextShouldRunDeferredChecksAtTheirEscapedOriginalLocation() {
+
+		final ApiErrorResponse response = new ApiErrorResponse(422);
+		final JsonValidationContext validationContext = new JsonValidationContext(response);
+		final EvenNumberResolver resolver = new EvenNumberResolver();
+		final IValidator<Integer> validator = new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				context.deferLookup(resolver, object, new OddNumberCheck());
+			}
+		};
+
+		validationContext.validateObject(1, "/a~1b/0/c", validator);
+		validationContext.validateObject(3, "/a~1b/1", validator);
+		validationContext.validateObject(5, "", validator);
+		validationContext.resolveDeferredLookups();
+
+		assertEquals(3, response.getErrors().size());
+		assertEquals("/a~1b/0/c/value", response.getErrors().get(0).getLocation());
+		assertEquals("/a~1b/1/value", response.getErrors().get(1).getLocation());
+		assertEquals("/value", response.getErrors().get(2).getLocation());
+	}
+
+	@Test
+	@RoxableTest(key = "5e0f81f57517")
+	public void validationContextShouldCollectLookupsDeferredInParallelInTheOrderOfTheList() throws InterruptedException {
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final ApiErrorResponse response = new ApiErrorResponse(422);
+			final JsonValidationContext validationContext = new JsonValidationContext(response).validateListsInParallel(executor, 10);
+			final EvenNumberResolver resolver = new EvenNumberResolver();
+
+			validationContext.validateObjects(numbers(500), "/numbers", new IValidator<Integer>() {
+				@Override
+				public void collectErrors(Integer object, IValidationContext context) {
+					context.deferLookup(resolver, object, new OddNumberCheck());
+				}
+			});
+
+			validationContext.resolveDeferredLookups();
+
+			assertEquals(1, resolver.calls);
+			assertEquals(500, resolver.lastKeys.size());
+			assertEquals(250, response.getErrors().size());
+			for (int i = 0; i < 250; i++) {
+				assertEquals("/numbers/" + (i * 2 + 1) + "/value", response.getErrors().get(i).getLocation());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "09f33ae5a7df")
+	public void validationContextShouldNotAcceptDeferredLookupsWithoutResolverOrCheck() {
+
+		try {
+			context.deferLookup(null, 1, new OddNumberCheck());
+			fail("Expected an illegal argument exception for a null resolver");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			context.deferLookup(new EvenNumberResolver(), 1, null);
+			fail("Expected an illegal argument exception for a null check");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
 	private IErrorCode code() {
 		return code(lastCode = RANDOM.nextInt());
 	}
@@ -404,6 +898,28 @@ public class JsonValidationContextUnitTest {
 		};
 	}
 	
+	private static List<Integer> numbers(int n) {
+		final List<Integer> numbers = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			numbers.add(i);
+		}
+		return numbers;
+	}
+
+	private static IValidator<Integer> evenNumberValidator() {
+		return new IValidator<Integer>() {
+			@Override
+			public void collectErrors(Integer object, IValidationContext context) {
+				if (object % 2 == 0) {
+					context.addError("/value", locationType("locationType"), code(1), "%d is even", object);
+				}
+				if (context.hasErrors(context.location("/value")) != (object % 2 == 0)) {
+					throw new IllegalStateException("Error of element " + object + " should be visible to its own validator");
+				}
+			}
+		};
+	}
+
 	private static BaseMatcher<String> matches(final String pattern) {
 		return new BaseMatcher<String>() {
 			@Override
@@ -458,4 +974,32 @@ public class JsonValidationContextUnitTest {
 			}
 		};
 	}
+
+	private static class EvenNumberResolver implements IBatchResolver<Integer, Boolean> {
+
+		private int calls;
+		private Set<Integer> lastKeys;
+
+		@Override
+		public Map<Integer, Boolean> resolve(Set<Integer> keys) {
+			calls++;
+			lastKeys = keys;
+
+			final Map<Integer, Boolean> values = new HashMap<>();
+			for (Integer key : keys) {
+				values.put(key, key % 2 == 0);
+			}
+			return values;
+		}
+	}
+
+	private static class OddNumberCheck implements IDeferredCheck<Integer, Boolean> {
+
+		@Override
+		public void check(Integer key, Boolean even, IValidationContext context) {
+			if (!even) {
+				context.addError("/value", locationType("json"), code(1), "%d is odd", key);
+			}
+		}
+	}
 }
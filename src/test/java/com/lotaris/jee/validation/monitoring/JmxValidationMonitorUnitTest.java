@@ -0,0 +1,154 @@
+package com.lotaris.jee.validation.monitoring;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see JmxValidationMonitor
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"monitoring", "jmxValidationMonitor"})
+public class JmxValidationMonitorUnitTest {
+
+	private static final String DOMAIN = "test.validation";
+	private MBeanServer server;
+	private JmxValidationMonitor monitor;
+
+	@Before
+	public void setUp() {
+		server = MBeanServerFactory.newMBeanServer();
+		monitor = new JmxValidationMonitor(server, DOMAIN);
+	}
+
+	@After
+	public void tearDown() {
+		monitor.unregister();
+	}
+
+	@Test
+	@RoxableTest(key = "7ab101254d15")
+	public void jmxValidationMonitorShouldExportTimingsAsMBeans() throws JMException {
+
+		assertTrue(monitor.isEnabled());
+		assertNull(monitor.getPreprocessorStatistics(TestPreprocessor.class));
+
+		monitor.preprocessorCompleted(new TestPreprocessor(), 100);
+		monitor.preprocessorCompleted(new TestPreprocessor(), 300);
+		monitor.validatorCompleted(new TestValidator(), 50);
+
+		assertEquals(2, monitor.getPreprocessorStatistics(TestPreprocessor.class).getCount());
+		assertEquals(1, monitor.getValidatorStatistics(TestValidator.class).getCount());
+
+		final ObjectName preprocessorName = new ObjectName(DOMAIN + ":type=Preprocessor,name=" + TestPreprocessor.class.getName());
+		assertEquals(2L, server.getAttribute(preprocessorName, "Count"));
+		assertEquals(400L, server.getAttribute(preprocessorName, "TotalTimeNanos"));
+		assertEquals(300L, server.getAttribute(preprocessorName, "MaxTimeNanos"));
+
+		final ObjectName validatorName = new ObjectName(DOMAIN + ":type=Validator,name=" + TestValidator.class.getName());
+		assertEquals(50L, server.getAttribute(validatorName, "AverageTimeNanos"));
+
+		server.invoke(validatorName, "reset", null, null);
+		assertEquals(0, monitor.getValidatorStatistics(TestValidator.class).getCount());
+	}
+
+	@Test
+	@RoxableTest(key = "611bb959f477")
+	public void jmxValidationMonitorShouldExportErrorAndElementCountsAsMBeans() throws JMException {
+
+		monitor.errorAdded(code(1000));
+		monitor.errorAdded(code(1000));
+		monitor.errorAdded(code(2000));
+		monitor.errorAdded(null);
+		monitor.elementsValidated(10);
+		monitor.elementsValidated(5);
+
+		assertEquals(2, monitor.getErrorCount(1000));
+		assertEquals(1, monitor.getErrorCount(2000));
+		assertEquals(0, monitor.getErrorCount(3000));
+		assertEquals(1, monitor.getErrorCount(null));
+		assertEquals(15, monitor.getValidatedElementCount());
+
+		assertEquals(2L, server.getAttribute(new ObjectName(DOMAIN + ":type=Errors,code=1000"), "Count"));
+		assertEquals(1L, server.getAttribute(new ObjectName(DOMAIN + ":type=Errors,code=2000"), "Count"));
+		assertEquals(1L, server.getAttribute(new ObjectName(DOMAIN + ":type=Errors,code=none"), "Count"));
+		assertEquals(15L, server.getAttribute(new ObjectName(DOMAIN + ":type=Payload,name=ValidatedElements"), "Count"));
+	}
+
+	@Test
+	@RoxableTest(key = "b1f02d234e61")
+	public void jmxValidationMonitorShouldUnregisterItsMBeans() throws JMException {
+
+		monitor.errorAdded(code(1000));
+		assertEquals(3, server.queryNames(new ObjectName(DOMAIN + ":*"), null).size());
+
+		monitor.unregister();
+		assertTrue(server.queryNames(new ObjectName(DOMAIN + ":*"), null).isEmpty());
+
+		// statistics are still recorded but no new beans are registered
+		monitor.errorAdded(code(2000));
+		assertEquals(1, monitor.getErrorCount(2000));
+		assertTrue(server.queryNames(new ObjectName(DOMAIN + ":*"), null).isEmpty());
+	}
+
+	@Test
+	@RoxableTest(key = "24797c2175ec")
+	public void jmxValidationMonitorShouldNotAcceptANullServerOrDomain() {
+
+		try {
+			new JmxValidationMonitor(null, DOMAIN);
+			fail("Expected an illegal argument exception for a null server");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+
+		try {
+			new JmxValidationMonitor(server, null);
+			fail("Expected an illegal argument exception for a null domain");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	private static IErrorCode code(final int code) {
+		return new IErrorCode() {
+			@Override
+			public int getCode() {
+				return code;
+			}
+
+			@Override
+			public int getDefaultHttpStatusCode() {
+				return 422;
+			}
+		};
+	}
+
+	private static class TestPreprocessor implements IPreprocessor {
+
+		@Override
+		public boolean process(Object object, IPreprocessingConfig config) {
+			return true;
+		}
+	}
+
+	private static class TestValidator implements IValidator<Object> {
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+		}
+	}
+}
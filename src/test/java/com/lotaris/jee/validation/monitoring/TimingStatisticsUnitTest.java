@@ -0,0 +1,92 @@
+package com.lotaris.jee.validation.monitoring;
+
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see TimingStatistics
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"monitoring", "timingStatistics"})
+public class TimingStatisticsUnitTest {
+
+	private TimingStatistics statistics;
+
+	@Before
+	public void setUp() {
+		statistics = new TimingStatistics();
+	}
+
+	@Test
+	@RoxableTest(key = "1f3a18c1c15c")
+	public void timingStatisticsShouldBeEmptyWhenNothingWasRecorded() {
+		assertEquals(0, statistics.getCount());
+		assertEquals(0, statistics.getTotalTimeNanos());
+		assertEquals(0, statistics.getAverageTimeNanos());
+		assertEquals(0, statistics.getMaxTimeNanos());
+		assertEquals(0, statistics.getMedianTimeNanos());
+		assertEquals(0, statistics.get99thPercentileTimeNanos());
+	}
+
+	@Test
+	@RoxableTest(key = "3820abf41205")
+	public void timingStatisticsShouldRecordDurations() {
+
+		for (int i = 1; i <= 99; i++) {
+			statistics.record(100);
+		}
+		statistics.record(10000);
+
+		assertEquals(100, statistics.getCount());
+		assertEquals(99 * 100 + 10000, statistics.getTotalTimeNanos());
+		assertEquals(199, statistics.getAverageTimeNanos());
+		assertEquals(10000, statistics.getMaxTimeNanos());
+
+		// 100 is in the bucket from 64 to 127 nanoseconds
+		assertEquals(127, statistics.getMedianTimeNanos());
+		assertEquals(127, statistics.get99thPercentileTimeNanos());
+
+		// the upper bound of the last bucket is capped by the maximum
+		assertEquals(10000, statistics.getPercentileTimeNanos(100));
+
+		// negative durations are recorded as zero
+		statistics.record(-5);
+		assertEquals(101, statistics.getCount());
+		assertEquals(10000, statistics.getMaxTimeNanos());
+		assertEquals(0, statistics.getPercentileTimeNanos(0.5));
+	}
+
+	@Test
+	@RoxableTest(key = "f6e8257ec876")
+	public void timingStatisticsShouldBeResettable() {
+
+		statistics.record(42);
+		statistics.reset();
+
+		assertEquals(0, statistics.getCount());
+		assertEquals(0, statistics.getTotalTimeNanos());
+		assertEquals(0, statistics.getMaxTimeNanos());
+		assertEquals(0, statistics.getMedianTimeNanos());
+
+		statistics.record(3);
+		assertEquals(3, statistics.getMedianTimeNanos());
+	}
+
+	@Test
+	@RoxableTest(key = "e2bdfd173c34")
+	public void timingStatisticsShouldNotAcceptAnOutOfBoundsPercentile() {
+
+		for (double percentile : new double[]{ 0, -1, 100.5 }) {
+			try {
+				statistics.getPercentileTimeNanos(percentile);
+				fail("Expected an illegal argument exception for percentile " + percentile);
+			} catch (IllegalArgumentException iae) {
+				// success
+			}
+		}
+	}
+}
@@ -4,13 +4,26 @@ import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
 import com.lotaris.jee.validation.preprocessing.IPreprocessor;
 import com.lotaris.jee.validation.preprocessing.ApiPreprocessingContext;
 import com.lotaris.jee.test.utils.PreprossessingAnswers;
+import com.lotaris.jee.validation.ApiErrorResponse;
 import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IAsyncValidator;
 import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidationCallback;
+import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -99,6 +112,30 @@ public class ApiPreprocessingContextUnitTest {
 		assertTrue("Patch validation should be enabled after calling #validatePatch", context.isPatchValidationEnabled());
 	}
 
+	@Test
+	@RoxableTest(key = "b7f22b44eff5")
+	public void apiPreprocessingContextShouldEnableRecursiveModification() {
+		assertFalse("Recursive modification should not be enabled by default", context.isRecursiveModificationEnabled());
+		assertSame("#modifyRecursively should return the context itself", context, context.modifyRecursively());
+		assertTrue("Recursive modification should be enabled after calling #modifyRecursively", context.isRecursiveModificationEnabled());
+	}
+
+	@Test
+	@RoxableTest(key = "0a846f882558")
+	public void apiPreprocessingContextShouldEnableStoppingOnErrors() {
+		assertFalse("Stopping on errors should not be enabled by default", context.isStopOnErrorsEnabled());
+		assertSame("#stopOnErrors should return the context itself", context, context.stopOnErrors());
+		assertTrue("Stopping on errors should be enabled after calling #stopOnErrors", context.isStopOnErrorsEnabled());
+	}
+
+	@Test
+	@RoxableTest(key = "0d81c813880b")
+	public void apiPreprocessingContextShouldEnableValidatorCostOrdering() {
+		assertFalse("Validator cost ordering should not be enabled by default", context.isValidatorCostOrderingEnabled());
+		assertSame("#orderValidatorsByCost should return the context itself", context, context.orderValidatorsByCost());
+		assertTrue("Validator cost ordering should be enabled after calling #orderValidatorsByCost", context.isValidatorCostOrderingEnabled());
+	}
+
 	@Test
 	@RoxableTest(key = "992a5beffc99")
 	public void apiPreprocessingContextShouldHaveAnEmptyUnprocessableEntityApiErrorResponseByDefault() {
@@ -122,6 +159,62 @@ public class ApiPreprocessingContextUnitTest {
 		}
 	}
 
+	@Test
+	@RoxableTest(key = "130eb50e1cf2")
+	public void apiPreprocessingContextShouldBeReusableAfterReset() throws ApiErrorsException {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final ApiErrorResponse apiErrorResponse = context.getApiErrorResponse();
+		final IValidationContext validationContext = context.getValidationContext();
+
+		context.validateOnly(ValidationGroupA.class).validateWith(mock(IValidator.class)).validatePatch().modifyRecursively().stopOnErrors().orderValidatorsByCost().failOnErrors(false).maxErrors(1).withStates("foo");
+		assertThat(context.process(new Object()), isSuccessfulPreprocessingResult(true));
+
+		assertSame(context, context.reset());
+		assertEquals(0, context.getValidationGroups().length);
+		assertTrue(context.getValidators().isEmpty());
+		assertFalse(context.isPatchValidationEnabled());
+		assertFalse(context.isRecursiveModificationEnabled());
+		assertFalse(context.isStopOnErrorsEnabled());
+		assertFalse(context.isValidatorCostOrderingEnabled());
+
+		// the error response and validation context are reused since there were no errors
+		assertSame(apiErrorResponse, context.getApiErrorResponse());
+		assertSame(validationContext, context.getValidationContext());
+		context.withStates("bar");
+		assertEquals("bar", context.getValidationContext().getState(String.class));
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(false);
+		assertThat(context.process(new Object()), isSuccessfulPreprocessingResult(false));
+		verify(preprocessor, times(2)).process(anyObject(), same(context));
+	}
+
+	@Test
+	@RoxableTest(key = "aef8bcf827fb")
+	public void apiPreprocessingContextShouldNotReuseAnApiErrorResponseWithErrorsWhenReset() {
+
+		doAnswer(new PreprossessingAnswers.PreprossessingWithErrorAnswer(errorCode(2), "foo")).when(preprocessor).process(anyObject(), same(context));
+
+		ApiErrorResponse thrownApiErrorResponse = null;
+		try {
+			context.process(new Object());
+			fail("Expected an API error exception to be thrown");
+		} catch (ApiErrorsException aee) {
+			thrownApiErrorResponse = aee.getErrorResponse();
+		}
+
+		context.reset();
+		assertNotSame(thrownApiErrorResponse, context.getApiErrorResponse());
+		assertFalse(context.hasErrors());
+		assertThat(thrownApiErrorResponse, isApiErrorResponseObject(422).withError(2, null, "foo"));
+
+		// errors are collected into the new response
+		context.getValidationContext().addError(null, null, errorCode(3), "bar");
+		assertThat(context.getApiErrorResponse(), isApiErrorResponseObject(422).withError(3, null, "bar"));
+		assertEquals(1, thrownApiErrorResponse.getErrors().size());
+	}
+
 	@Test
 	@RoxableTest(key = "b49215985574")
 	public void apiPreprocessingContextShouldNotBeSuccessfulWhenUnprocessed() {
@@ -190,6 +283,27 @@ public class ApiPreprocessingContextUnitTest {
 		}
 	}
 
+	@Test
+	@RoxableTest(key = "14696204a4f1")
+	public void apiPreprocessingContextShouldLimitTheNumberOfCollectedErrors() throws ApiErrorsException {
+
+		assertSame(context, context.maxErrors(2).maxErrors("/items", 1).failOnErrors(false));
+
+		final IValidationContext validationContext = context.getValidationContext();
+		validationContext.addError("/items/0", null, errorCode(1), "foo");
+		validationContext.addError("/items/1", null, errorCode(1), "foo");
+		assertEquals(1, context.getApiErrorResponse().getErrors().size());
+		assertTrue(context.getApiErrorResponse().isErrorLimitReached("/items/2"));
+		assertFalse(validationContext.isErrorLimitReached());
+
+		validationContext.addError("/name", null, errorCode(1), "foo");
+		validationContext.addError("/name", null, errorCode(1), "foo");
+
+		assertEquals(2, context.getApiErrorResponse().getErrors().size());
+		assertTrue(context.getApiErrorResponse().isTruncated());
+		assertTrue(validationContext.isErrorLimitReached());
+	}
+
 	@Test
 	@RoxableTest(key = "6825a51caee9")
 	public void apiPreprocessingContextShouldReturnCollectedErrors() throws ApiErrorsException {
@@ -255,6 +369,329 @@ public class ApiPreprocessingContextUnitTest {
 		assertSame(state3, context.getValidationContext().getState(HashMap.class));
 	}
 
+	@Test
+	@RoxableTest(key = "5276e767255a")
+	public void apiPreprocessingContextShouldReportToItsMonitor() {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		when(monitor.isEnabled()).thenReturn(true);
+		assertSame(NoOpValidationMonitor.INSTANCE, context.getMonitor());
+		assertSame(context, context.monitorWith(monitor));
+		assertSame(monitor, context.getMonitor());
+
+		final IErrorCode code = errorCode(2);
+		doAnswer(new PreprossessingAnswers.PreprossessingWithErrorAnswer(code, "foo")).when(preprocessor).process(anyObject(), same(context));
+
+		try {
+			context.process(new Object());
+			fail("Expected an API error exception to be thrown");
+		} catch (ApiErrorsException aee) {
+			// success
+		}
+
+		verify(monitor).preprocessorCompleted(same(preprocessor), anyLong());
+		verify(monitor).errorAdded(code);
+
+		// the monitor is removed on reset
+		context.reset();
+		assertSame(NoOpValidationMonitor.INSTANCE, context.getMonitor());
+		context.getValidationContext().addError(null, null, code, "bar");
+		verify(monitor).errorAdded(code);
+	}
+
+	@Test
+	@RoxableTest(key = "bb8a6b877379")
+	public void apiPreprocessingContextShouldNotAcceptANullMonitor() {
+		try {
+			context.monitorWith(null);
+			fail("Expected an illegal argument exception for a null monitor");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "09dbca678c69")
+	public void apiPreprocessingContextShouldMergeErrorsOfAsyncValidatorsInTheOrderTheyWereAdded() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator first = new PendingValidator();
+		final PendingValidator second = new PendingValidator();
+		final IPreprocessingCallback callback = mock(IPreprocessingCallback.class);
+
+		final Future<ApiPreprocessingContext> future = context.failOnErrors(false).validateAsyncWith(first, second).processAsync(new Object(), callback);
+		assertNotNull("Validators should have been started", first.callback);
+		assertNotNull("Validators should have been started", second.callback);
+		assertFalse(future.isDone());
+
+		// the errors of each validator are not visible to the other
+		second.complete(errorCode(2), "second");
+		assertFalse(first.context.hasErrors());
+		assertFalse(future.isDone());
+		verifyZeroInteractions(callback);
+
+		first.complete(errorCode(1), "first");
+		assertTrue(future.isDone());
+		assertSame(context, future.get());
+		verify(callback).completed(context);
+
+		assertTrue(context.isSuccessful());
+		assertThat(context.getApiErrorResponse(), isApiErrorResponseObject(422).withError(1, null, "first").withError(2, null, "second"));
+		assertEquals("first", context.getApiErrorResponse().getErrors().get(0).getMessage());
+	}
+
+	@Test
+	@RoxableTest(key = "13cb718739be")
+	public void apiPreprocessingContextShouldFailAsyncProcessingWithAnApiErrorsException() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator validator = new PendingValidator();
+		final IPreprocessingCallback callback = mock(IPreprocessingCallback.class);
+
+		final Future<ApiPreprocessingContext> future = context.validateAsyncWith(validator).processAsync(new Object(), callback);
+		validator.complete(errorCode(3), "foo");
+
+		try {
+			future.get();
+			fail("Expected an execution exception to be thrown");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof ApiErrorsException);
+			assertSame(context.getApiErrorResponse(), ((ApiErrorsException) ee.getCause()).getErrorResponse());
+			verify(callback).failed(ee.getCause());
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "f1de88edad56")
+	public void apiPreprocessingContextShouldFailAsyncProcessingIfAnAsyncValidatorFails() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator first = new PendingValidator();
+		final PendingValidator second = new PendingValidator();
+		final IPreprocessingCallback callback = mock(IPreprocessingCallback.class);
+
+		final Future<ApiPreprocessingContext> future = context.validateAsyncWith(first, second).processAsync(new Object(), callback);
+
+		final IllegalStateException exception = new IllegalStateException("unavailable");
+		first.callback.failed(exception);
+		assertFalse("Processing should wait for all validators", future.isDone());
+		second.complete(errorCode(2), "bar");
+
+		try {
+			future.get();
+			fail("Expected an execution exception to be thrown");
+		} catch (ExecutionException ee) {
+			assertSame(exception, ee.getCause());
+		}
+
+		verify(callback).failed(exception);
+		assertFalse("Errors of failed validations should be discarded", context.hasErrors());
+
+		// callbacks can only be notified once
+		try {
+			second.callback.completed();
+			fail("Expected an illegal state exception when notifying a callback twice");
+		} catch (IllegalStateException ise) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "6c1a949fa870")
+	public void apiPreprocessingContextShouldNotStartAsyncValidatorsIfThePreprocessorFails() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(false);
+
+		final PendingValidator validator = new PendingValidator();
+		final Future<ApiPreprocessingContext> future = context.validateAsyncWith(validator).processAsync(new Object(), null);
+
+		assertNull(validator.callback);
+		assertSame(context, future.get());
+		assertFalse(context.isSuccessful());
+
+		try {
+			context.processAsync(new Object(), null);
+			fail("Expected an illegal state exception when trying to reuse context");
+		} catch (IllegalStateException ise) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "6119f261e218")
+	public void apiPreprocessingContextShouldNotStartAsyncValidatorsAfterErrorsIfItStopsOnErrors() throws Exception {
+
+		doAnswer(new PreprossessingAnswers.PreprossessingWithErrorAnswer(errorCode(2), "foo")).when(preprocessor).process(anyObject(), same(context));
+
+		final PendingValidator validator = new PendingValidator();
+		final IPreprocessingCallback callback = mock(IPreprocessingCallback.class);
+		context.stopOnErrors().validateAsyncWith(validator).processAsync(new Object(), callback);
+
+		assertNull(validator.callback);
+		verify(callback).failed(any(ApiErrorsException.class));
+	}
+
+	@Test
+	@RoxableTest(key = "38c2a93eb77d")
+	public void apiPreprocessingContextShouldWaitForAsyncValidatorsWhenProcessedSynchronously() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			context.validateAsyncWith(new IAsyncValidator<Object>() {
+				@Override
+				public void collectErrors(Object object, final IValidationContext validationContext, final IValidationCallback callback) {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							validationContext.addError("/foo", null, errorCode(4), "async");
+							callback.completed();
+						}
+					});
+				}
+			});
+
+			try {
+				context.process(new Object());
+				fail("Expected an API errors exception to be thrown");
+			} catch (ApiErrorsException aee) {
+				assertThat(aee.getErrorResponse(), isApiErrorResponseObject(422).withError(4, "/foo", "async"));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "e33192e416cc")
+	public void apiPreprocessingContextShouldTimeOutWaitingForPendingAsyncValidators() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator validator = new PendingValidator();
+		final Future<ApiPreprocessingContext> future = context.validateAsyncWith(validator).processAsync(new Object(), null);
+
+		try {
+			future.get(1, TimeUnit.MILLISECONDS);
+			fail("Expected a timeout exception while the validator is pending");
+		} catch (TimeoutException te) {
+			// success
+		}
+
+		assertFalse(future.isDone());
+		validator.complete(errorCode(2), "foo");
+
+		try {
+			future.get(1, TimeUnit.MILLISECONDS);
+			fail("Expected an execution exception to be thrown");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof ApiErrorsException);
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "51a8989dd80c")
+	public void apiPreprocessingContextShouldDiscardErrorsOfAsyncValidatorsOnceCancelled() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator validator = new PendingValidator();
+		final IPreprocessingCallback callback = mock(IPreprocessingCallback.class);
+		final Future<ApiPreprocessingContext> future = context.validateAsyncWith(validator).processAsync(new Object(), callback);
+
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		assertTrue(future.isDone());
+		verify(callback).failed(any(CancellationException.class));
+
+		validator.complete(errorCode(2), "foo");
+		assertFalse("Errors of a cancelled validation should be discarded", context.hasErrors());
+		assertFalse("Processing can only be cancelled once", future.cancel(false));
+		verifyNoMoreInteractions(callback);
+
+		try {
+			future.get();
+			fail("Expected a cancellation exception to be thrown");
+		} catch (CancellationException ce) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "24ffc54e6dd2")
+	public void apiPreprocessingContextShouldStopWaitingForAsyncValidatorsAfterTheTimeout() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator validator = new PendingValidator();
+		context.validateAsyncWith(validator).asyncTimeout(10, TimeUnit.MILLISECONDS);
+
+		try {
+			context.process(new Object());
+			fail("Expected an illegal state exception when the validator does not complete in time");
+		} catch (IllegalStateException ise) {
+			assertTrue(ise.getCause() instanceof TimeoutException);
+		}
+
+		validator.complete(errorCode(2), "foo");
+		assertFalse("Errors of validators completing after the timeout should be discarded", context.hasErrors());
+
+		try {
+			context.asyncTimeout(-1, TimeUnit.SECONDS);
+			fail("Expected an illegal argument exception for a negative timeout");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "ea13f1f33a3a")
+	public void apiPreprocessingContextShouldNotReuseTheErrorResponseOfValidatorsStillRunningWhenReset() throws Exception {
+
+		when(preprocessor.process(anyObject(), any(IPreprocessingConfig.class))).thenReturn(true);
+
+		final PendingValidator validator = new PendingValidator();
+		context.withState("state", String.class).validateAsyncWith(validator);
+
+		final Future<ApiPreprocessingContext> future = context.processAsync(new Object(), null);
+		try {
+			context.reset();
+			fail("Expected an illegal state exception when resetting a context whose validators are pending");
+		} catch (IllegalStateException ise) {
+			// success
+		}
+
+		future.cancel(false);
+		final ApiErrorResponse previousResponse = context.getApiErrorResponse();
+		final IValidationContext previousValidationContext = context.getValidationContext();
+
+		context.reset();
+		assertNotSame("The error response read by running validators should not be reused", previousResponse, context.getApiErrorResponse());
+		assertNotSame(previousValidationContext, context.getValidationContext());
+
+		// the next request does not see the errors or states of the running validator
+		context.withState("other", String.class);
+		assertEquals("state", validator.context.getState(String.class));
+		validator.complete(errorCode(2), "foo");
+		assertFalse(context.hasErrors());
+		assertFalse(previousResponse.hasErrors());
+	}
+
+	@Test
+	@RoxableTest(key = "d033d15908e4")
+	public void apiPreprocessingContextShouldNotAcceptNullAsyncValidators() {
+		try {
+			context.validateAsyncWith(new PendingValidator(), null);
+			fail("Expected an illegal argument exception for a null validator");
+		} catch (IllegalArgumentException iae) {
+			// success
+		}
+	}
+
 	private IErrorCode errorCode(final int code) {
 		return new IErrorCode() {
 			@Override
@@ -302,4 +739,21 @@ public class ApiPreprocessingContextUnitTest {
 
 	private static interface ValidationGroupB {
 	}
+
+	private static class PendingValidator implements IAsyncValidator<Object> {
+
+		private IValidationContext context;
+		private IValidationCallback callback;
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context, IValidationCallback callback) {
+			this.context = context;
+			this.callback = callback;
+		}
+
+		public void complete(IErrorCode code, String message) {
+			context.addError(null, null, code, message);
+			callback.completed();
+		}
+	}
 }
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.validation.Constraint;
 import javax.validation.Payload;
 import javax.validation.Valid;
@@ -212,6 +213,46 @@ public class BeanValidationPreprocessorUnitTest {
 		verify(validationContext, never()).addErrorAtCurrentLocation(any(IErrorCode.class), anyString());
 	}
 
+	@Test
+	@RoxableTest(key = "58fd88dcbe22")
+	public void beanValidationPreprocessorShouldKeepClassLevelErrorsOfPatchObjects() {
+
+		final NamesPatchTO patch = new NamesPatchTO();
+		patch.setMiddleName("Bob"); // no first or last name; the class-level constraint fails
+
+		when(config.isPatchValidationEnabled()).thenReturn(true);
+		assertTrue(processor.process(patch, config));
+
+		// the error of the class-level constraint is at the root of the document
+		verify(validationContext).addError(eq(""), any(IErrorLocationType.class), any(IErrorCode.class), eq("A first or last name is required."));
+		verify(validationContext, times(1)).addError(anyString(), any(IErrorLocationType.class), any(IErrorCode.class), anyString());
+	}
+
+	@Test
+	@RoxableTest(key = "81125d6db6f8")
+	public void beanValidationPreprocessorShouldNotTraverseUnsetFieldsInPatchObjects() {
+
+		final PatchTO patch = new PatchTO();
+		patch.setFirstName("Bob");
+
+		// unset properties with invalid values
+		patch.middleName = null;
+		patch.address = new AddressTO();
+
+		CheckNotNullTestValidator.VALIDATIONS.set(0);
+		when(config.isPatchValidationEnabled()).thenReturn(true);
+		assertTrue(processor.process(patch, config));
+
+		// only the first name was validated
+		assertEquals(1, CheckNotNullTestValidator.VALIDATIONS.get());
+		verify(validationContext, never()).addError(anyString(), any(IErrorLocationType.class), any(IErrorCode.class), anyString());
+
+		// the same object is fully validated without patch validation
+		when(config.isPatchValidationEnabled()).thenReturn(false);
+		assertTrue(processor.process(patch, config));
+		assertEquals(5, CheckNotNullTestValidator.VALIDATIONS.get());
+	}
+
 	@Test
 	@RoxableTest(key = "61d8b5bbe987")
 	public void beanValidationPreprocessorShouldNotUsePatchValidationIfNotExplicityEnabled() {
@@ -261,6 +302,73 @@ public class BeanValidationPreprocessorUnitTest {
 		}
 	}
 
+	@Test
+	@RoxableTest(key = "674a4b488c1a")
+	public void beanValidationPreprocessorShouldReuseItsValidator() {
+
+		final UserTO user = new UserTO();
+		user.setName("jdoe");
+
+		processor.process(user, config);
+		processor.process(user, config);
+		processor.process(new UserTO(), config);
+
+		verify(validatorFactory, times(1)).getValidator();
+	}
+
+	@Test
+	@RoxableTest(key = "2ea6b9cdf844")
+	public void beanValidationPreprocessorShouldConvertEachConstraintOnlyOnce() {
+
+		final List<Class<? extends Annotation>> convertedCodes = new ArrayList<>();
+		final List<Class<? extends Annotation>> convertedLocationTypes = new ArrayList<>();
+		final NotNullErrorCode notNullErrorCode = new NotNullErrorCode();
+
+		processor.setConstraintConverter(new IConstraintConverter() {
+			@Override
+			public IErrorCode getErrorCode(Class<? extends Annotation> annotationType) {
+				convertedCodes.add(annotationType);
+				return notNullErrorCode;
+			}
+
+			@Override
+			public IErrorLocationType getErrorLocationType(Class<? extends Annotation> annotationType) {
+				convertedLocationTypes.add(annotationType);
+				return null;
+			}
+		});
+
+		// 3 violations of the same constraint
+		final UserTO user = new UserTO();
+		for (int i = 0; i < 2; i++) {
+			user.getApplications().add(new ApplicationTO());
+		}
+
+		processor.process(user, config);
+		processor.process(user, config);
+
+		verify(validationContext, times(2)).addError(eq("/name"), isNull(IErrorLocationType.class), same(notNullErrorCode), eq("This value must not be null."));
+		verify(validationContext, times(2)).addError(eq("/applications/1/name"), isNull(IErrorLocationType.class), same(notNullErrorCode), eq("This value must not be null."));
+		assertEquals(Collections.singletonList(CheckNotNullTest.class), convertedCodes);
+		assertEquals(Collections.singletonList(CheckNotNullTest.class), convertedLocationTypes);
+
+		// setting another converter clears the converted constraints
+		processor.setConstraintConverter(new IConstraintConverter() {
+			@Override
+			public IErrorCode getErrorCode(Class<? extends Annotation> annotationType) {
+				return null;
+			}
+
+			@Override
+			public IErrorLocationType getErrorLocationType(Class<? extends Annotation> annotationType) {
+				return null;
+			}
+		});
+
+		processor.process(user, config);
+		verify(validationContext).addError(eq("/name"), isNull(IErrorLocationType.class), isNull(IErrorCode.class), eq("This value must not be null."));
+	}
+
 	//<editor-fold defaultstate="collapsed" desc="@CheckNotNullTest Annotation & Validator">
 	@Documented
 	@Target(ElementType.FIELD)
@@ -278,8 +386,11 @@ public class BeanValidationPreprocessorUnitTest {
 
 	public static class CheckNotNullTestValidator extends AbstractConstraintValidator<CheckNotNullTest, Object> {
 
+		private static final AtomicInteger VALIDATIONS = new AtomicInteger();
+
 		@Override
 		public void validate(Object value, IConstraintValidationContext context) {
+			VALIDATIONS.incrementAndGet();
 			if (value == null) {
 				context.addDefaultError();
 			}
@@ -287,6 +398,32 @@ public class BeanValidationPreprocessorUnitTest {
 	}
 	//</editor-fold>
 
+	//<editor-fold defaultstate="collapsed" desc="@CheckNamesTest Annotation & Validator">
+	@Documented
+	@Target(ElementType.TYPE)
+	@Retention(RetentionPolicy.RUNTIME)
+	@Constraint(validatedBy = CheckNamesTestValidator.class)
+	@ConstraintConverter(code = 11, locationType = "json")
+	public @interface CheckNamesTest {
+
+		String message() default "A first or last name is required.";
+
+		Class<?>[] groups() default {};
+
+		Class<? extends Payload>[] payload() default {};
+	}
+
+	public static class CheckNamesTestValidator extends AbstractConstraintValidator<CheckNamesTest, NamesPatchTO> {
+
+		@Override
+		public void validate(NamesPatchTO value, IConstraintValidationContext context) {
+			if (value.firstName == null && value.lastName == null) {
+				context.addDefaultError();
+			}
+		}
+	}
+	//</editor-fold>
+
 	//<editor-fold defaultstate="collapsed" desc="@CheckStringLengthTest Annotation & Validator">
 	@Documented
 	@Target(ElementType.FIELD)
@@ -452,6 +589,42 @@ public class BeanValidationPreprocessorUnitTest {
 		}
 	}
 	
+	@CheckNamesTest
+	private static class NamesPatchTO implements IPatchObject {
+
+		private static final String FIRST_NAME = "firstName";
+		private static final String MIDDLE_NAME = "middleName";
+		private static final String LAST_NAME = "lastName";
+		private String firstName;
+		private String middleName;
+		private String lastName;
+		private Set<String> setProperties;
+
+		public NamesPatchTO() {
+			this.setProperties = new HashSet<>();
+		}
+
+		@Override
+		public boolean isPropertySet(String property) {
+			return setProperties.contains(property);
+		}
+
+		public void setFirstName(String firstName) {
+			setProperties.add(FIRST_NAME);
+			this.firstName = firstName;
+		}
+
+		public void setMiddleName(String middleName) {
+			setProperties.add(MIDDLE_NAME);
+			this.middleName = middleName;
+		}
+
+		public void setLastName(String lastName) {
+			setProperties.add(LAST_NAME);
+			this.lastName = lastName;
+		}
+	}
+
 	public static class NotNullErrorCode implements IErrorCode {
 
 		@Override
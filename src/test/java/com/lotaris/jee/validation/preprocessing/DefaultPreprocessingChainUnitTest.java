@@ -5,6 +5,7 @@ import com.lotaris.jee.validation.preprocessing.DefaultPreprocessingChain;
 import com.lotaris.jee.validation.preprocessing.ValidationPreprocessor;
 import com.lotaris.jee.validation.preprocessing.ModifiersPreprocessor;
 import com.lotaris.jee.validation.preprocessing.BeanValidationPreprocessor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
 import org.junit.Before;
@@ -50,6 +51,7 @@ public class DefaultPreprocessingChainUnitTest {
 
 		final Object object = new Object();
 		final IPreprocessingConfig config = mock(IPreprocessingConfig.class);
+		when(config.getMonitor()).thenReturn(NoOpValidationMonitor.INSTANCE);
 		assertTrue(chain.process(object, config));
 
 		// check that the three preprocessors were called in the correct order
@@ -0,0 +1,149 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.preprocessing.modifier.Trim;
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @see ModifierPlanProcessor
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"preprocessing", "modifierPlanProcessor"})
+public class ModifierPlanProcessorUnitTest {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("modifier-plans").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	@Test
+	@RoxableTest(key = "7c288ed628a3")
+	public void modifierPlanProcessorShouldGeneratePlansListingDeclaredAndInheritedFields() throws Exception {
+
+		compile("com.example.BaseTO",
+				"package com.example;",
+				"public class BaseTO {",
+				"	@com.lotaris.jee.validation.preprocessing.modifier.Trim private String id;",
+				"	private String notModified;",
+				"}");
+		compile("com.example.UserTO",
+				"package com.example;",
+				"import com.lotaris.jee.validation.preprocessing.modifier.Trim;",
+				"public class UserTO extends BaseTO {",
+				"	@Trim private String name;",
+				"	@Trim @Deprecated private String description;",
+				"	@Trim private static String IGNORED;",
+				"	public static class AddressTO {",
+				"		@Trim private String street;",
+				"	}",
+				"}");
+
+		assertEquals(Arrays.asList("com.example.UserTO.name", "com.example.UserTO.description", "com.example.BaseTO.id"), registeredFields("com.example.UserTO"));
+		assertEquals(Arrays.asList("com.example.BaseTO.id"), registeredFields("com.example.BaseTO"));
+		assertEquals(Arrays.asList("com.example.UserTO$AddressTO.street"), registeredFields("com.example.UserTO$AddressTO"));
+	}
+
+	@Test
+	@RoxableTest(key = "b2f386cd1f26")
+	public void modifierPlanProcessorShouldNotGeneratePlansForClassesWithoutModifiers() throws Exception {
+
+		compile("com.example.PlainTO",
+				"package com.example;",
+				"public abstract class PlainTO {",
+				"	@Deprecated private String name;",
+				"	public static abstract class AbstractTO {",
+				"		@com.lotaris.jee.validation.preprocessing.modifier.Trim private String name;",
+				"	}",
+				"}");
+
+		assertFalse(new File(directory, "com/example/PlainTO$$Modifiers.class").exists());
+		assertFalse(new File(directory, "com/example/PlainTO$AbstractTO$$Modifiers.class").exists());
+	}
+
+	@Test
+	@RoxableTest(key = "3a40ca72816b")
+	public void modifierPlanProcessorShouldNotGeneratePlansForInaccessibleClasses() throws Exception {
+
+		compile("com.example.OuterTO",
+				"package com.example;",
+				"public class OuterTO {",
+				"	private static class PrivateTO {",
+				"		@com.lotaris.jee.validation.preprocessing.modifier.Trim private String name;",
+				"	}",
+				"}");
+
+		assertFalse(new File(directory, "com/example/OuterTO$PrivateTO$$Modifiers.class").exists());
+	}
+
+	private void compile(String className, String... lines) throws IOException {
+
+		final File source = new File(directory, className.replace('.', '/') + ".java");
+		source.getParentFile().mkdirs();
+		Files.write(source.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+
+			final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source);
+			final List<String> options = Arrays.asList(
+					"-classpath", System.getProperty("java.class.path") + File.pathSeparator + directory.getPath(),
+					"-d", directory.getPath(), "-s", directory.getPath(),
+					"-processor", ModifierPlanProcessor.class.getName());
+
+			assertTrue("Compilation of " + className + " failed", compiler.getTask(null, fileManager, null, options, null, units).call());
+		}
+	}
+
+	private List<String> registeredFields(String className) throws Exception {
+
+		final List<String> fields = new ArrayList<>();
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[]{ directory.toURI().toURL() }, getClass().getClassLoader())) {
+			final IModifierPlan plan = (IModifierPlan) classLoader.loadClass(className + IModifierPlan.SUFFIX).newInstance();
+			plan.registerModifiedFields(new IModifierPlan.IModifiedFieldRegistry() {
+				@Override
+				public void register(Class<?> declaringClass, String fieldName, Class<? extends Annotation> annotationType) {
+					assertSame(Trim.class, annotationType);
+					fields.add(declaringClass.getName() + "." + fieldName);
+				}
+			});
+		}
+
+		return fields;
+	}
+
+	private static void delete(File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
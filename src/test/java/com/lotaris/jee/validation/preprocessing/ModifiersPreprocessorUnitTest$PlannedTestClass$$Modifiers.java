@@ -0,0 +1,22 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.preprocessing.modifier.Trim;
+
+/**
+ * Hand-written modifier plan which only lists one of the annotated fields of
+ * {@link ModifiersPreprocessorUnitTest}'s <tt>PlannedTestClass</tt> (the processor does not
+ * generate plans for private classes).
+ *
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+public class ModifiersPreprocessorUnitTest$PlannedTestClass$$Modifiers implements IModifierPlan {
+
+	@Override
+	public void registerModifiedFields(IModifiedFieldRegistry registry) {
+		try {
+			registry.register(Class.forName("com.lotaris.jee.validation.preprocessing.ModifiersPreprocessorUnitTest$PlannedTestClass"), "name", Trim.class);
+		} catch (ClassNotFoundException cnfe) {
+			throw new IllegalStateException(cnfe);
+		}
+	}
+}
@@ -6,7 +6,22 @@ import com.lotaris.jee.validation.preprocessing.modifier.Trim;
 import com.lotaris.jee.validation.preprocessing.modifier.TrimModifier;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
+import com.lotaris.jee.validation.AbstractModifier;
+import com.lotaris.jee.validation.FieldAccessor;
+import com.lotaris.jee.validation.IModifier;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.Before;
@@ -15,6 +30,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -45,7 +61,329 @@ public class ModifiersPreprocessorUnitTest {
 		final AnnotatedTestClass app = new AnnotatedTestClass("foo");
 		preprocessor.process(app, config);
 
-		verify(trimModifier).process(same(app), argThat(isField(AnnotatedTestClass.class, "name", true)), argThat(isTrim()));
+		verify(trimModifier).process(same(app), argThat(isAccessor(AnnotatedTestClass.class, "name")), argThat(isTrim()));
+	}
+
+	@Test
+	@RoxableTest(key = "3969c0ab0958")
+	public void modifiersPreprocessorShouldRunTheTrimModifierOnInheritedFields() {
+
+		final AnnotatedTestSubclass app = new AnnotatedTestSubclass("foo", "bar");
+		preprocessor.process(app, config);
+		preprocessor.process(app, config);
+
+		verify(trimModifier, times(2)).process(same(app), argThat(isAccessor(AnnotatedTestClass.class, "name")), argThat(isTrim()));
+		verify(trimModifier, times(2)).process(same(app), argThat(isAccessor(AnnotatedTestSubclass.class, "description")), argThat(isTrim()));
+	}
+
+	@Test
+	@RoxableTest(key = "a1ddb9177707")
+	public void modifiersPreprocessorShouldScanClassesAgainWhenNewModifiersAreRegistered() {
+
+		final UppercaseTestClass object = new UppercaseTestClass("foo");
+
+		// the uppercase modifier is not known yet
+		preprocessor.process(object, config);
+		assertEquals("foo", object.name);
+
+		final UppercasePreprocessor uppercasePreprocessor = new UppercasePreprocessor();
+		uppercasePreprocessor.configure();
+		uppercasePreprocessor.process(object, config);
+		assertEquals("FOO", object.name);
+
+		// the trim modifier is still run but not the uppercase modifier this preprocessor does not have
+		object.name = "bar";
+		preprocessor.process(object, config);
+		assertEquals("bar", object.name);
+		verify(trimModifier, times(2)).process(same(object), argThat(isAccessor(UppercaseTestClass.class, "name")), argThat(isTrim()));
+	}
+
+	@Test
+	@RoxableTest(key = "cf5cd71e3243")
+	@SuppressWarnings("unchecked")
+	public void modifiersPreprocessorShouldPassTheFieldToModifiersWhichDoNotExtendAbstractModifier() {
+
+		final IModifier<Uppercase> modifier = mock(IModifier.class);
+		doReturn(Uppercase.class).when(modifier).getAnnotationType();
+
+		final ModifiersPreprocessor modifierPreprocessor = new PlainModifierPreprocessor(modifier);
+		modifierPreprocessor.configure();
+
+		final UppercaseTestClass object = new UppercaseTestClass("foo");
+		modifierPreprocessor.process(object, config);
+
+		verify(modifier).process(same(object), argThat(isField(UppercaseTestClass.class, "name", true)), any(Uppercase.class));
+	}
+
+	@Test
+	@RoxableTest(key = "28fdc6cf5ffa")
+	public void modifiersPreprocessorShouldProcessObjectsFromMultipleThreads() throws Exception {
+
+		final ModifiersPreprocessor trimPreprocessor = trimPreprocessor();
+
+		final List<AnnotatedTestSubclass> objects = new ArrayList<>();
+		for (int i = 0; i < 8000; i++) {
+			objects.add(new AnnotatedTestSubclass(" foo " + i, " bar  " + i + " "));
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final List<AnnotatedTestSubclass> chunk = objects.subList(t * 1000, (t + 1) * 1000);
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (AnnotatedTestSubclass object : chunk) {
+							trimPreprocessor.process(object, config);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (int i = 0; i < objects.size(); i++) {
+			assertEquals("foo " + i, ((AnnotatedTestClass) objects.get(i)).name);
+			assertEquals("bar " + i, objects.get(i).description);
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "095c8f77e6ae")
+	public void modifiersPreprocessorShouldOnlyModifyTheTopLevelObjectByDefault() {
+
+		final NestedTestClass object = new NestedTestClass(" foo ");
+		object.child = new NestedTestClass(" bar ");
+		object.children = Arrays.asList(new NestedTestClass(" baz "));
+
+		trimPreprocessor().process(object, config);
+
+		assertEquals("foo", object.name);
+		assertEquals(" bar ", object.child.name);
+		assertEquals(" baz ", object.children.get(0).name);
+	}
+
+	@Test
+	@RoxableTest(key = "09c6b46ac101")
+	public void modifiersPreprocessorShouldModifyNestedObjectsRecursivelyIfEnabled() {
+
+		final NestedTestClass object = new NestedTestClass(" foo ");
+		object.child = new NestedTestClass(" bar ");
+		object.child.child = object;
+		object.children = Arrays.asList(new NestedTestClass(" baz "), null, object);
+		object.childrenArray = new NestedTestClass[]{ new NestedTestClass(" qux ") };
+		object.childrenByName = new HashMap<>();
+		object.childrenByName.put(" key ", new NestedTestClass(" corge "));
+		object.tags = new ArrayList<>(Arrays.asList(" tag "));
+		object.anything = new NestedTestClass(" grault ");
+
+		doReturn(true).when(config).isRecursiveModificationEnabled();
+		trimPreprocessor().process(object, config);
+
+		assertEquals("foo", object.name);
+		assertEquals("bar", object.child.name);
+		assertEquals("baz", object.children.get(0).name);
+		assertEquals("qux", object.childrenArray[0].name);
+		assertEquals("corge", object.childrenByName.get(" key ").name);
+		assertEquals("grault", ((NestedTestClass) object.anything).name);
+
+		// strings in collections are not modified
+		assertEquals(" tag ", object.tags.get(0));
+	}
+
+	@Test
+	@RoxableTest(key = "d3d3f7a0a4d3")
+	public void modifiersPreprocessorShouldModifyCollectionsRecursivelyIfEnabled() {
+
+		final List<NestedTestClass> objects = Arrays.asList(new NestedTestClass(" foo "), new NestedTestClass(" bar "));
+
+		doReturn(true).when(config).isRecursiveModificationEnabled();
+		trimPreprocessor().process(objects, config);
+
+		assertEquals("foo", objects.get(0).name);
+		assertEquals("bar", objects.get(1).name);
+	}
+
+	@Test
+	@RoxableTest(key = "bd58b1d67488")
+	public void modifiersPreprocessorShouldNotFollowFieldsWhoseTypeHasNoModifiers() {
+
+		// the declared type of the field has no modifier annotations, so the subclass is not visited
+		final UnmodifiedTestClass object = new UnmodifiedTestClass();
+		object.child = new UnmodifiedTestSubclass(" foo ");
+
+		doReturn(true).when(config).isRecursiveModificationEnabled();
+		trimPreprocessor().process(object, config);
+
+		assertEquals(" foo ", ((UnmodifiedTestSubclass) object.child).name);
+	}
+
+	@Test
+	@RoxableTest(key = "9d064ac89e2e")
+	public void modifiersPreprocessorShouldUseGeneratedModifierPlans() throws Exception {
+
+		// the plan is generated when the tests are compiled
+		assertTrue(IModifierPlan.class.isAssignableFrom(Class.forName(GeneratedPlanTestClass.class.getName() + IModifierPlan.SUFFIX)));
+
+		final GeneratedPlanTestClass object = new GeneratedPlanTestClass();
+		object.name = " foo ";
+		object.description = " bar ";
+		trimPreprocessor().process(object, config);
+
+		assertEquals("foo", object.name);
+		assertEquals("bar", object.description);
+	}
+
+	@Test
+	@RoxableTest(key = "b5586e048f81")
+	public void modifiersPreprocessorShouldOnlyModifyTheFieldsListedByModifierPlans() {
+
+		final PlannedTestClass object = new PlannedTestClass();
+		object.name = " foo ";
+		object.description = " bar ";
+		trimPreprocessor().process(object, config);
+
+		assertEquals("foo", object.name);
+		assertEquals(" bar ", object.description);
+	}
+
+	@Test
+	@RoxableTest(key = "7df1d38b5cbe")
+	public void modifiersPreprocessorShouldScanClassesWithPlansForModifiersWhoseAnnotationIsNotMarked() throws Exception {
+
+		// the plan only lists the trim annotation, as the uppercase annotation is not marked
+		assertTrue(IModifierPlan.class.isAssignableFrom(Class.forName(MixedPlanTestClass.class.getName() + IModifierPlan.SUFFIX)));
+
+		final MixedPlanTestClass object = new MixedPlanTestClass();
+		object.name = " foo ";
+
+		final UppercasePreprocessor uppercasePreprocessor = new UppercasePreprocessor();
+		uppercasePreprocessor.configure();
+		uppercasePreprocessor.process(object, config);
+		assertEquals(" FOO ", object.name);
+
+		trimPreprocessor().process(object, config);
+		assertEquals("FOO", object.name);
+	}
+
+	private ModifiersPreprocessor trimPreprocessor() {
+		final ModifiersPreprocessor trimPreprocessor = new ModifiersPreprocessor();
+		trimPreprocessor.trimProcessor = new TrimModifier();
+		trimPreprocessor.configure();
+		return trimPreprocessor;
+	}
+
+	static class GeneratedPlanTestClass {
+
+		@Trim
+		private String name;
+		@Trim
+		private String description;
+	}
+
+	static class MixedPlanTestClass {
+
+		@Trim
+		@Uppercase
+		private String name;
+	}
+
+	private static class PlannedTestClass {
+
+		@Trim
+		private String name;
+		@Trim
+		private String description;
+	}
+
+	private static class NestedTestClass {
+
+		@Trim
+		private String name;
+		private NestedTestClass child;
+		private List<NestedTestClass> children;
+		private NestedTestClass[] childrenArray;
+		private Map<String, NestedTestClass> childrenByName;
+		private List<String> tags;
+		private Object anything;
+
+		public NestedTestClass(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class UnmodifiedTestClass {
+
+		private UnmodifiedTestClass child;
+	}
+
+	private static class UnmodifiedTestSubclass extends UnmodifiedTestClass {
+
+		@Trim
+		private String name;
+
+		public UnmodifiedTestSubclass(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class UppercaseTestClass {
+
+		@Trim
+		@Uppercase
+		private String name;
+
+		public UppercaseTestClass(String name) {
+			this.name = name;
+		}
+	}
+
+	@Target(ElementType.FIELD)
+	@Retention(RetentionPolicy.RUNTIME)
+	private static @interface Uppercase {
+	}
+
+	private static class UppercaseModifier extends AbstractModifier<Uppercase> {
+
+		public UppercaseModifier() {
+			super(Uppercase.class);
+		}
+
+		@Override
+		public void process(Object object, Field field, Uppercase annotation) {
+			final FieldAccessor accessor = FieldAccessor.of(field);
+			accessor.set(object, accessor.get(object).toString().toUpperCase());
+		}
+	}
+
+	private static class UppercasePreprocessor extends ModifiersPreprocessor {
+
+		private UppercaseModifier uppercaseModifier = new UppercaseModifier();
+	}
+
+	private static class PlainModifierPreprocessor extends ModifiersPreprocessor {
+
+		private final IModifier<Uppercase> modifier;
+
+		public PlainModifierPreprocessor(IModifier<Uppercase> modifier) {
+			this.modifier = modifier;
+		}
+	}
+
+	private static class AnnotatedTestSubclass extends AnnotatedTestClass {
+
+		@Trim
+		private String description;
+
+		public AnnotatedTestSubclass(String name, String description) {
+			super(name);
+			this.description = description;
+		}
 	}
 
 	private static class AnnotatedTestClass {
@@ -90,4 +428,23 @@ public class ModifiersPreprocessorUnitTest {
 			}
 		};
 	}
+
+	private static BaseMatcher<FieldAccessor> isAccessor(final Class declaringClass, final String name) {
+		return new BaseMatcher<FieldAccessor>() {
+			@Override
+			public boolean matches(Object item) {
+				try {
+					// the cached accessor of the field is passed to the modifier
+					return item == FieldAccessor.of(declaringClass.getDeclaredField(name));
+				} catch (NoSuchFieldException nsfe) {
+					return false;
+				}
+			}
+
+			@Override
+			public void describeTo(Description description) {
+				description.appendText("accessor of field \"" + name + "\"");
+			}
+		};
+	}
 }
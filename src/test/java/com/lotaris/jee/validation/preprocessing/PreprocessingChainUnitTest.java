@@ -4,6 +4,9 @@ import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
 import com.lotaris.jee.validation.preprocessing.IPreprocessor;
 import com.lotaris.jee.validation.preprocessing.PreprocessingChain;
 import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
 import java.util.ArrayList;
@@ -77,6 +80,78 @@ public class PreprocessingChainUnitTest {
 		}
 	}
 
+	@Test
+	@RoxableTest(key = "818d01b83dee")
+	public void preprocessingChainShouldReportTheTimeTakenByEachPreprocessorToAnEnabledMonitor() throws ApiErrorsException {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		when(monitor.isEnabled()).thenReturn(true);
+		final IPreprocessingConfig config = mockConfig();
+		when(config.getMonitor()).thenReturn(monitor);
+
+		final IPreprocessor first = mockPreprocessor("one", true);
+		final IPreprocessor second = mockPreprocessor("two", false);
+		final IPreprocessor third = mockPreprocessor("three", true);
+		chain.add(first);
+		chain.add(second);
+		chain.add(third);
+
+		assertFalse(chain.process(object, config));
+
+		verify(monitor).preprocessorCompleted(same(first), anyLong());
+		verify(monitor).preprocessorCompleted(same(second), anyLong());
+		verify(monitor, never()).preprocessorCompleted(same(third), anyLong());
+	}
+
+	@Test
+	@RoxableTest(key = "9d840a0a4e15")
+	public void preprocessingChainShouldNotReportToADisabledMonitor() throws ApiErrorsException {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		final IPreprocessingConfig config = mockConfig();
+		when(config.getMonitor()).thenReturn(monitor);
+
+		chain.add(mockPreprocessor("one", true));
+		assertTrue(chain.process(object, config));
+
+		verify(monitor).isEnabled();
+		verifyNoMoreInteractions(monitor);
+	}
+
+	@Test
+	@RoxableTest(key = "6f2d6a9434e4")
+	public void preprocessingChainShouldStopAfterThePreprocessorProducingErrorsIfConfigured() throws ApiErrorsException {
+
+		final IValidationContext context = mock(IValidationContext.class);
+		when(context.hasErrors()).thenReturn(false, true);
+		final IPreprocessingConfig config = mockConfig();
+		when(config.getValidationContext()).thenReturn(context);
+		when(config.isStopOnErrorsEnabled()).thenReturn(true);
+
+		chain.add(mockPreprocessor("one", true));
+		chain.add(mockPreprocessor("two", true));
+		chain.add(mockPreprocessor("three", true));
+
+		assertFalse(chain.process(object, config));
+		assertArrayEquals(new String[]{"one", "two"}, calls.toArray());
+	}
+
+	@Test
+	@RoxableTest(key = "6e47413ac872")
+	public void preprocessingChainShouldRunAllPreprocessorsDespiteErrorsByDefault() throws ApiErrorsException {
+
+		final IValidationContext context = mock(IValidationContext.class);
+		when(context.hasErrors()).thenReturn(true);
+		final IPreprocessingConfig config = mockConfig();
+		when(config.getValidationContext()).thenReturn(context);
+
+		chain.add(mockPreprocessor("one", true));
+		chain.add(mockPreprocessor("two", true));
+
+		assertTrue(chain.process(object, config));
+		assertArrayEquals(new String[]{"one", "two"}, calls.toArray());
+	}
+
 	private IPreprocessor mockPreprocessor(final String name, final boolean successful) throws ApiErrorsException {
 		final IPreprocessor preprocessorMock = mock(IPreprocessor.class);
 		when(preprocessorMock.process(anyObject(), any(IPreprocessingConfig.class))).then(new Answer<Boolean>() {
@@ -92,6 +167,7 @@ public class PreprocessingChainUnitTest {
 	private IPreprocessingConfig mockConfig() {
 		final IPreprocessingConfig configMock = mock(IPreprocessingConfig.class);
 		when(configMock.getValidationGroups()).thenReturn(new Class[]{});
+		when(configMock.getMonitor()).thenReturn(NoOpValidationMonitor.INSTANCE);
 		return configMock;
 	}
 }
@@ -4,8 +4,11 @@ import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
 import com.lotaris.jee.validation.preprocessing.ValidationPreprocessor;
 import com.lotaris.jee.validation.IValidationContext;
 import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.monitoring.IValidationMonitor;
+import com.lotaris.jee.validation.monitoring.NoOpValidationMonitor;
 import com.lotaris.rox.annotations.RoxableTest;
 import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -35,6 +38,7 @@ public class ValidationPreprocessorUnitTest {
 	public void setUp() {
 		MockitoAnnotations.initMocks(this);
 		when(config.getValidationContext()).thenReturn(context);
+		when(config.getMonitor()).thenReturn(NoOpValidationMonitor.INSTANCE);
 		objectToValidate = new Object();
 		preprocessor = new ValidationPreprocessor();
 	}
@@ -62,4 +66,136 @@ public class ValidationPreprocessorUnitTest {
 		inOrder.verify(validators.get(1)).collectErrors(objectToValidate, context);
 		inOrder.verify(validators.get(2)).collectErrors(objectToValidate, context);
 	}
+
+	@Test
+	@RoxableTest(key = "46e7ee923943")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldStopRunningValidatorsWhenTheErrorLimitIsReached() {
+
+		final List<IValidator> validators = Arrays.asList(mock(IValidator.class), mock(IValidator.class), mock(IValidator.class));
+		when(config.getValidators()).thenReturn(validators);
+		when(context.isErrorLimitReached()).thenReturn(false, false, true);
+
+		assertFalse(preprocessor.process(objectToValidate, config));
+
+		verify(validators.get(0)).collectErrors(objectToValidate, context);
+		verify(validators.get(1)).collectErrors(objectToValidate, context);
+		verify(validators.get(2), never()).collectErrors(objectToValidate, context);
+	}
+
+	@Test
+	@RoxableTest(key = "628640a1aa6b")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldReportTheTimeTakenByEachValidatorToAnEnabledMonitor() {
+
+		final IValidationMonitor monitor = mock(IValidationMonitor.class);
+		when(monitor.isEnabled()).thenReturn(true);
+		when(config.getMonitor()).thenReturn(monitor);
+
+		final List<IValidator> validators = Arrays.asList(mock(IValidator.class), mock(IValidator.class));
+		when(config.getValidators()).thenReturn(validators);
+
+		assertTrue(preprocessor.process(objectToValidate, config));
+
+		verify(monitor).validatorCompleted(same(validators.get(0)), anyLong());
+		verify(monitor).validatorCompleted(same(validators.get(1)), anyLong());
+	}
+
+	@Test
+	@RoxableTest(key = "8e4441f82468")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldStopRunningValidatorsOnErrorsIfConfigured() {
+
+		final List<IValidator> validators = Arrays.asList(mock(IValidator.class), mock(IValidator.class), mock(IValidator.class));
+		when(config.getValidators()).thenReturn(validators);
+		when(config.isStopOnErrorsEnabled()).thenReturn(true);
+		when(context.hasErrors()).thenReturn(false, false, true);
+
+		assertFalse(preprocessor.process(objectToValidate, config));
+
+		verify(validators.get(0)).collectErrors(objectToValidate, context);
+		verify(validators.get(1)).collectErrors(objectToValidate, context);
+		verify(validators.get(2), never()).collectErrors(objectToValidate, context);
+	}
+
+	@Test
+	@RoxableTest(key = "b2e9cdc06b85")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldRunTheCheapestValidatorsFirstIfConfigured() {
+
+		final List<String> calls = new ArrayList<>();
+		final IValidator slowValidator = new SlowValidator(calls);
+		final IValidator fastValidator = new FastValidator(calls);
+		when(config.getValidators()).thenReturn(Arrays.asList(slowValidator, fastValidator));
+		when(config.isValidatorCostOrderingEnabled()).thenReturn(true);
+
+		// validators run in the order they were added until they have been measured
+		assertTrue(preprocessor.process(objectToValidate, config));
+		assertEquals(Arrays.asList("slow", "fast"), calls);
+
+		calls.clear();
+		assertTrue(preprocessor.process(objectToValidate, config));
+		assertEquals(Arrays.asList("fast", "slow"), calls);
+	}
+
+	@Test
+	@RoxableTest(key = "8b3fb47c57e0")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldResolveDeferredLookupsAfterRunningValidators() {
+
+		final List<IValidator> validators = Arrays.asList(mock(IValidator.class), mock(IValidator.class));
+		when(config.getValidators()).thenReturn(validators);
+
+		assertTrue(preprocessor.process(objectToValidate, config));
+
+		final InOrder inOrder = inOrder(validators.get(0), validators.get(1), context);
+		inOrder.verify(validators.get(0)).collectErrors(objectToValidate, context);
+		inOrder.verify(validators.get(1)).collectErrors(objectToValidate, context);
+		inOrder.verify(context).resolveDeferredLookups();
+	}
+
+	@Test
+	@RoxableTest(key = "431bd4c4dfdd")
+	@SuppressWarnings("unchecked")
+	public void validationPreprocessorShouldNotResolveDeferredLookupsWhenTheErrorLimitIsReached() {
+
+		when(config.getValidators()).thenReturn(Arrays.asList(mock(IValidator.class)));
+		when(context.isErrorLimitReached()).thenReturn(false, true);
+
+		assertFalse(preprocessor.process(objectToValidate, config));
+		verify(context, never()).resolveDeferredLookups();
+	}
+
+	private static class FastValidator implements IValidator<Object> {
+
+		private final List<String> calls;
+
+		public FastValidator(List<String> calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+			calls.add("fast");
+		}
+	}
+
+	private static class SlowValidator implements IValidator<Object> {
+
+		private final List<String> calls;
+
+		public SlowValidator(List<String> calls) {
+			this.calls = calls;
+		}
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			calls.add("slow");
+		}
+	}
 }
@@ -0,0 +1,88 @@
+package com.lotaris.jee.validation.preprocessing;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.rox.annotations.RoxableTest;
+import com.lotaris.rox.annotations.RoxableTestClass;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @see ValidatorCosts
+ * @author Simon Oulevay (simon.oulevay@lotaris.com)
+ */
+@RoxableTestClass(tags = {"preprocessing", "validatorCosts"})
+public class ValidatorCostsUnitTest {
+
+	private ValidatorCosts costs;
+
+	@Before
+	public void setUp() {
+		costs = new ValidatorCosts();
+	}
+
+	@Test
+	@RoxableTest(key = "a0c865a9061d")
+	public void validatorCostsShouldAverageRecordedDurationsByValidatorClass() {
+
+		assertEquals(0, costs.getCost(new ValidatorA()));
+
+		costs.record(new ValidatorA(), 800);
+		assertEquals(800, costs.getCost(new ValidatorA()));
+
+		// each new duration accounts for 1/8th of the average
+		costs.record(new ValidatorA(), 1600);
+		assertEquals(900, costs.getCost(new ValidatorA()));
+		costs.record(new ValidatorA(), 100);
+		assertEquals(800, costs.getCost(new ValidatorA()));
+
+		assertEquals(0, costs.getCost(new ValidatorB()));
+	}
+
+	@Test
+	@RoxableTest(key = "a1fc1e1e3811")
+	@SuppressWarnings("unchecked")
+	public void validatorCostsShouldOrderValidatorsByIncreasingCost() {
+
+		final IValidator a = new ValidatorA();
+		final IValidator b = new ValidatorB();
+		final IValidator c = new ValidatorC();
+		final IValidator d = new ValidatorD();
+		final List<IValidator> validators = Arrays.asList(a, b, c, d);
+
+		// validators which were never measured keep their order
+		assertEquals(Arrays.asList(a, b, c, d), costs.order(validators));
+
+		costs.record(a, 3000);
+		costs.record(b, 1000);
+		costs.record(c, 2000);
+		assertEquals(Arrays.asList(d, b, c, a), costs.order(validators));
+
+		// validators of equal cost keep their relative order
+		costs.record(d, 2000);
+		assertEquals(Arrays.asList(b, c, d, a), costs.order(validators));
+
+		// the original list is not modified
+		assertEquals(Arrays.asList(a, b, c, d), validators);
+	}
+
+	private static class ValidatorA implements IValidator<Object> {
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+		}
+	}
+
+	private static class ValidatorB extends ValidatorA {
+	}
+
+	private static class ValidatorC extends ValidatorA {
+	}
+
+	private static class ValidatorD extends ValidatorA {
+	}
+}
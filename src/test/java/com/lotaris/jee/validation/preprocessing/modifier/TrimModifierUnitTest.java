@@ -61,14 +61,110 @@ public class TrimModifierUnitTest {
 		assertEquals(testObject.value, null);
 	}
 
+	@Test
+	@RoxableTest(key = "fdfdca0dc3ad")
+	public void trimModifierShouldNotReplaceValuesWhichAreAlreadyTrimmed() {
+		final String value = "foo bar baz";
+		testObject.value = value;
+		trim.process(testObject, valueField, mockAnnotation(true));
+		assertSame(value, testObject.value);
+	}
+
+	@Test
+	@RoxableTest(key = "a393fef3a78e")
+	public void trimModifierShouldTrimLikeStringTrimAndCollapseLikeRegularExpressions() {
+
+		final String[] values = {
+			"", " ", "\t\n", "a", " a ", "a b", "a  b", "a\tb", " a \t b\n c ", "\u0000a\u0000", "a\u0000 \u0000b",
+			"a \u000B\f\r\n b", "a\u00A0\u00A0b", "\u00A0a\u00A0", "  foo   bar  "
+		};
+
+		for (String value : values) {
+			assertEquals(value.trim(), trimmed(value, false));
+			assertEquals(value.trim().replaceAll("\\s+", " "), trimmed(value, true));
+		}
+	}
+
+	@Test
+	@RoxableTest(key = "69428af3bb25")
+	public void trimModifierShouldTrimAndCollapseUnicodeWhitespaceIfEnabled() {
+		testObject.value = "\u3000foo\u00A0\u00A0 bar\u2003";
+		trim.process(testObject, valueField, mockAnnotation(true, true));
+		assertEquals("foo bar", testObject.value);
+
+		testObject.value = "\u3000foo\u00A0\u00A0 bar\u2003";
+		trim.process(testObject, valueField, mockAnnotation(false, true));
+		assertEquals("foo\u00A0\u00A0 bar", testObject.value);
+	}
+
+	@Test
+	@RoxableTest(key = "afa11f6a8092")
+	public void trimModifierShouldTrimCharacterArrays() throws NoSuchFieldException {
+		final char[] trimmed = "foo bar".toCharArray();
+		testObject.chars = trimmed;
+		trim.process(testObject, field("chars"), mockAnnotation(true));
+		assertSame(trimmed, testObject.chars);
+
+		testObject.chars = "  foo \t bar ".toCharArray();
+		trim.process(testObject, field("chars"), mockAnnotation(true));
+		assertArrayEquals("foo bar".toCharArray(), testObject.chars);
+	}
+
+	@Test
+	@RoxableTest(key = "c60dd66e2875")
+	public void trimModifierShouldTrimCharacterSequences() throws NoSuchFieldException {
+
+		// a character sequence field can hold a string
+		testObject.sequence = new StringBuilder(" foo  bar ");
+		trim.process(testObject, field("sequence"), mockAnnotation(true));
+		assertEquals("foo bar", testObject.sequence);
+
+		// a builder field is modified in place
+		final StringBuilder builder = new StringBuilder(" foo  bar ");
+		testObject.builder = builder;
+		trim.process(testObject, field("builder"), mockAnnotation(true));
+		assertSame(builder, testObject.builder);
+		assertEquals("foo bar", builder.toString());
+	}
+
+	@Test
+	@RoxableTest(key = "8f2ea00accd5")
+	public void trimModifierShouldIgnoreValuesWhichAreNotText() throws NoSuchFieldException {
+		final Object value = 42;
+		testObject.object = value;
+		trim.process(testObject, field("object"), mockAnnotation(true));
+		assertSame(value, testObject.object);
+	}
+
+	private String trimmed(String value, boolean collapseWhitespace) {
+		testObject.value = value;
+		trim.process(testObject, valueField, mockAnnotation(collapseWhitespace));
+		return testObject.value;
+	}
+
+	private Field field(String name) throws NoSuchFieldException {
+		final Field field = TestObject.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
 	private Trim mockAnnotation(boolean collapseWhitespace) {
+		return mockAnnotation(collapseWhitespace, false);
+	}
+
+	private Trim mockAnnotation(boolean collapseWhitespace, boolean unicodeWhitespace) {
 		final Trim annotationMock = Mockito.mock(Trim.class);
 		Mockito.when(annotationMock.collapseWhitespace()).thenReturn(collapseWhitespace);
+		Mockito.when(annotationMock.unicodeWhitespace()).thenReturn(unicodeWhitespace);
 		return annotationMock;
 	}
 
 	public static class TestObject {
 
 		private String value;
+		private char[] chars;
+		private CharSequence sequence;
+		private StringBuilder builder;
+		private Object object;
 	}
 }